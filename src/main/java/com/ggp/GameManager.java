@@ -70,7 +70,12 @@ public class GameManager {
         player2.init(initTimeoutMillis);
         gameListeners.forEach((listener) -> listener.playerInitFinished(2));
 
-        while(!playOneTurn(actTimeoutMillis, actionSelector)) {}
+        try {
+            while(!playOneTurn(actTimeoutMillis, actionSelector)) {}
+        } finally {
+            if (player1 != null) player1.close();
+            if (player2 != null) player2.close();
+        }
         gameListeners.forEach((listener) -> listener.gameEnd(getPayoff(1), getPayoff(2)));
     }
 
@@ -0,0 +1,95 @@
+package com.ggp;
+
+import java.io.Serializable;
+
+/**
+ * Optional compact representation of a game, in which states are packed into a long and actions are identified
+ * by their index in state's legal actions.
+ *
+ * Traversing the game through this interface doesn't allocate. Action indices correspond to the order of legal
+ * actions of the object view, which remains available through {@link #toState(long)}.
+ */
+public interface ICompactGame extends Serializable {
+    /**
+     * Implemented by states which can be converted to a compact representation.
+     */
+    interface IProvider {
+        /**
+         * Get compact representation of the game this state belongs to.
+         * @return compact game or null if the game's parameters don't fit the compact representation
+         */
+        ICompactGame getCompactGame();
+    }
+
+    long getInitialState();
+
+    boolean isTerminal(long state);
+
+    /**
+     * @param state
+     * @return 1,2 or 0 for random node, same as {@link ICompleteInformationState#getActingPlayerId()}
+     */
+    int getActingPlayerId(long state);
+
+    /**
+     * Get payoff, only valid in terminal state
+     * @param state
+     * @param player
+     * @return payoff
+     */
+    double getPayoff(long state, int player);
+
+    /**
+     * Get number of legal actions
+     * @param state non-terminal state
+     * @return
+     */
+    int getActionCount(long state);
+
+    /**
+     * Get state resulting from taking an action
+     * @param state non-terminal state
+     * @param actionIdx index of the action in state's legal actions
+     * @return
+     */
+    long next(long state, int actionIdx);
+
+    /**
+     * Get probability of random action
+     * @param state random node
+     * @param actionIdx
+     * @return
+     */
+    double getRandomActionProb(long state, int actionIdx);
+
+    /**
+     * Get key of player's information set, keys are equal iff the corresponding information sets are equal.
+     * @param state
+     * @param player
+     * @return
+     */
+    long getInfoSetKey(long state, int player);
+
+    /**
+     * Get object view of player's information set.
+     * @param state
+     * @param player
+     * @return
+     */
+    IInformationSet getInfoSet(long state, int player);
+
+    /**
+     * Convert compact state to its object view.
+     * @param state
+     * @return
+     */
+    ICompleteInformationState toState(long state);
+
+    /**
+     * Convert object state of this game to compact state.
+     * @param state
+     * @return
+     * @throws IllegalArgumentException if the state doesn't belong to this game
+     */
+    long fromState(ICompleteInformationState state);
+}
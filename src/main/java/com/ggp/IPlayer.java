@@ -38,4 +38,10 @@ public interface IPlayer {
      * @param percept
      */
     void receivePercepts(IPercept percept);
+
+    /**
+     * Release resources held by the player, e.g. background computations. Called once the match is over.
+     */
+    default void close() {
+    }
 }
\ No newline at end of file
@@ -20,10 +20,15 @@ import com.ggp.players.random.RandomPlayer;
 import com.ggp.solvers.cfr.*;
 import com.ggp.solvers.cfr.baselines.ExponentiallyDecayingAverageBaseline;
 import com.ggp.solvers.cfr.baselines.NoBaseline;
+import com.ggp.solvers.cfr.is_info.HeapInfoSetStorage;
+import com.ggp.solvers.cfr.is_info.IInfoSetStorage;
+import com.ggp.solvers.cfr.is_info.MappedFileInfoSetStorage;
 import com.ggp.utils.GameRepository;
 import com.ggp.utils.IUtilityEstimator;
 import com.ggp.utils.estimators.RandomPlayoutUtilityEstimator;
+import com.ggp.utils.game.Cached.CachedGameDescription;
 import com.ggp.utils.game.CheckedTraversal.CheckedTraversalGameDescription;
+import com.ggp.utils.game.Interned.InternedGameDescription;
 import com.ggp.utils.game.PlayerSwap.PlayerSwapGameDescription;
 import com.ggp.utils.recall.PerfectRecallGameDescriptionWrapper;
 import picocli.CommandLine;
@@ -62,6 +67,7 @@ public class Main {
         registerCFRSolvers(factory);
         registerPlayers(factory);
         registerBaselines(factory);
+        registerInfoSetStorages(factory);
         registerPlayerEvaluators(factory);
     }
 
@@ -136,12 +142,35 @@ public class Main {
                 ),
                 "Wrapper that checks the validity of used actions and percepts. Useful for debugging."
         );
+        factory.register(IGameDescription.class, "Interned",
+                ConfigurableFactory.createPositionalFactory(
+                        InternedGameDescription.class.getConstructor(IGameDescription.class),
+                        "Game to wrap"
+                ),
+                "Wrapper that interns information sets, so that their lookups use reference equality"
+        );
+        factory.register(IGameDescription.class, "Cached",
+                ConfigurableFactory.createPositionalFactory(
+                        CachedGameDescription.class.getConstructor(IGameDescription.class),
+                        "Game to wrap"
+                )
+        );
+        factory.register(IGameDescription.class, "Cached",
+                ConfigurableFactory.createPositionalFactory(
+                        CachedGameDescription.class.getConstructor(IGameDescription.class, long.class),
+                        "Game to wrap", "Maximum number of cached states"
+                )
+        );
+        factory.setImplementationDescription(IGameDescription.class, "Cached",
+                "Wrapper that caches child states, legal actions and information sets of visited states");
     }
 
     private static void registerCFRSolvers(ConfigurableFactory factory) {
         factory.setTypeDescription(BaseCFRSolver.Factory.class, "CFR solver factory");
         Parameter rm = new Parameter(IRegretMatching.IFactory.class, null, true, "Regret matching");
         Parameter cse = new Parameter(double.class, 0d, false, "Cumulative strategy discounting exponent");
+        Parameter par = new Parameter(int.class, 1, false, "Number of threads used by the solver");
+        Parameter st = new Parameter(IInfoSetStorage.IFactory.class, null, false, "Storage of IS data (on-heap by default)");
         {
             HashMap<String, Parameter> params = new HashMap<>();
             params.put("rm", rm);
@@ -149,16 +178,35 @@ public class Main {
             params.put("dl", new Parameter(int.class, 0, false, "Depth limit"));
             params.put("au", new Parameter(boolean.class, true, false, "Alternating updates"));
             params.put("cse", cse);
+            params.put("par", par);
+            params.put("rbp", new Parameter(boolean.class, false, false, "Regret-based pruning (only with alternating updates and RM/DRM)"));
+            params.put("st", st);
             factory.register(BaseCFRSolver.Factory.class, "CFR", new FactoryDescription(null, params,
                     (posParams, kvParams) -> new DepthLimitedCFRSolver.Factory(
                             (IRegretMatching.IFactory) kvParams.get("rm"),
                             (int) kvParams.get("dl"),
                             (IUtilityEstimator.IFactory) kvParams.get("ue"),
                             (boolean) kvParams.get("au"),
-                            (double) kvParams.get("cse")
-                    )
+                            (double) kvParams.get("cse"),
+                            (int) kvParams.get("par"),
+                            (boolean) kvParams.get("rbp")
+                    ).setStorageFactory((IInfoSetStorage.IFactory) kvParams.get("st"))
             ), "Depth-limited CFR");
         }
+        {
+            HashMap<String, Parameter> params = new HashMap<>();
+            params.put("rm", rm);
+            params.put("au", new Parameter(boolean.class, true, false, "Alternating updates"));
+            params.put("cse", cse);
+            params.put("st", st);
+            factory.register(BaseCFRSolver.Factory.class, "CompiledCFR", new FactoryDescription(null, params,
+                    (posParams, kvParams) -> new CompiledCFRSolver.Factory(
+                            (IRegretMatching.IFactory) kvParams.get("rm"),
+                            (boolean) kvParams.get("au"),
+                            (double) kvParams.get("cse")
+                    ).setStorageFactory((IInfoSetStorage.IFactory) kvParams.get("st"))
+            ), "Full-traversal CFR over a game tree compiled into flat arrays");
+        }
         Parameter e = new Parameter(double.class, 0.2d, false, "Exploration probability");
         Parameter t = new Parameter(double.class, 0d, false, "Targeting probability");
         {
@@ -167,13 +215,16 @@ public class Main {
             params.put("e", e);
             params.put("t", t);
             params.put("cse", cse);
+            params.put("par", par);
+            params.put("st", st);
             factory.register(BaseCFRSolver.Factory.class, "MC-CFR", new FactoryDescription(null, params,
                     (posParams, kvParams) -> new MCCFRSolver.Factory(
                             (IRegretMatching.IFactory) kvParams.get("rm"),
                             (double) kvParams.get("e"),
                             (double) kvParams.get("t"),
-                            (double) kvParams.get("cse")
-                    )
+                            (double) kvParams.get("cse"),
+                            (int) kvParams.get("par")
+                    ).setStorageFactory((IInfoSetStorage.IFactory) kvParams.get("st"))
             ), "Monte-Carlo CFR");
         }
         {
@@ -183,16 +234,31 @@ public class Main {
             params.put("e", e);
             params.put("t", t);
             params.put("cse", cse);
+            params.put("par", par);
+            params.put("st", st);
             factory.register(BaseCFRSolver.Factory.class, "VR-MCCFR", new FactoryDescription(null, params,
                     (posParams, kvParams) -> new VRMCCFRSolverFactory(
                             (IRegretMatching.IFactory) kvParams.get("rm"),
                             (double) kvParams.get("e"),
                             (double) kvParams.get("t"),
                             (double) kvParams.get("cse"),
-                            (IBaseline.IFactory) kvParams.get("bl")
-                    )
+                            (IBaseline.IFactory) kvParams.get("bl"),
+                            (int) kvParams.get("par")
+                    ).setStorageFactory((IInfoSetStorage.IFactory) kvParams.get("st"))
             ), "Variance-Reduction Monte-Carlo CFR");
         }
+        {
+            HashMap<String, Parameter> params = new HashMap<>();
+            params.put("rm", rm);
+            params.put("cse", cse);
+            params.put("st", st);
+            factory.register(BaseCFRSolver.Factory.class, "ES-MCCFR", new FactoryDescription(null, params,
+                    (posParams, kvParams) -> new ExternalSamplingMCCFRSolver.Factory(
+                            (IRegretMatching.IFactory) kvParams.get("rm"),
+                            (double) kvParams.get("cse")
+                    ).setStorageFactory((IInfoSetStorage.IFactory) kvParams.get("st"))
+            ), "External-sampling Monte-Carlo CFR");
+        }
     }
 
     private static void registerPlayers(ConfigurableFactory factory) throws NoSuchMethodException {
@@ -202,16 +268,28 @@ public class Main {
                 new FactoryDescription(null, null, (a, b) -> new RandomPlayer.Factory()),
                 "Uniform random player"
         );
-        factory.register(IPlayerFactory.class, "ContinualResolving", ConfigurableFactory.createPositionalFactory(
-                ContinualResolvingPlayer.Factory.class.getConstructor(BaseCFRSolver.Factory.class),
-                "CFR solver used for re-solving",
-                "Continual resolving player with default resolver"
-        ), "Continual resolving player");
-        factory.register(IPlayerFactory.class, "ContinualResolving", ConfigurableFactory.createPositionalFactory(
-                ContinualResolvingPlayer.Factory.class.getConstructor(ISubgameResolver.IFactory.class),
-                "Subgame resolver",
-                "Continual resolving player with custom resolver"
-        ));
+        {
+            HashMap<String, Parameter> params = new HashMap<>();
+            params.put("ponder", new Parameter(boolean.class, false, false, "Resolve likely next subgames during opponent's turn"));
+            params.put("ws", new Parameter(boolean.class, false, false, "Warm-start resolving from the previous subgame's solver"));
+            params.put("sgc", new Parameter(long.class, 0L, false, "Maximum number of states in the cache of subgame structure (0 disables the cache)"));
+            factory.register(IPlayerFactory.class, "ContinualResolving", new FactoryDescription(
+                    Arrays.asList(new Parameter(BaseCFRSolver.Factory.class, null, true, "CFR solver used for re-solving")), params,
+                    (posParams, kvParams) -> new ContinualResolvingPlayer.Factory((BaseCFRSolver.Factory) posParams.get(0))
+                            .setPonder((boolean) kvParams.get("ponder"))
+                            .setWarmStart((boolean) kvParams.get("ws"))
+                            .setSubgameCacheSize((long) kvParams.get("sgc")),
+                    "Continual resolving player with default resolver"
+            ), "Continual resolving player");
+            factory.register(IPlayerFactory.class, "ContinualResolving", new FactoryDescription(
+                    Arrays.asList(new Parameter(ISubgameResolver.IFactory.class, null, true, "Subgame resolver")), params,
+                    (posParams, kvParams) -> new ContinualResolvingPlayer.Factory((ISubgameResolver.IFactory) posParams.get(0))
+                            .setPonder((boolean) kvParams.get("ponder"))
+                            .setWarmStart((boolean) kvParams.get("ws"))
+                            .setSubgameCacheSize((long) kvParams.get("sgc")),
+                    "Continual resolving player with custom resolver"
+            ));
+        }
         factory.register(IPlayerFactory.class, "PerfectRecall", ConfigurableFactory.createPositionalFactory(
                 PerfectRecallPlayerFactory.class.getConstructor(IPlayerFactory.class),
                 "Player to wrap"
@@ -273,6 +351,18 @@ public class Main {
                 "Empty baseline");
     }
 
+    private static void registerInfoSetStorages(ConfigurableFactory factory) throws NoSuchMethodException {
+        factory.setTypeDescription(IInfoSetStorage.IFactory.class, "Solver IS data storage factory");
+
+        factory.register(IInfoSetStorage.IFactory.class, "Heap",
+                new FactoryDescription(null, null, (a, b) -> new HeapInfoSetStorage.Factory()),
+                "On-heap storage");
+        factory.register(IInfoSetStorage.IFactory.class, "MMap", ConfigurableFactory.createPositionalFactory(
+                MappedFileInfoSetStorage.Factory.class.getConstructor(String.class),
+                "Directory for the backing file"
+        ), "Off-heap storage in a memory-mapped temporary file");
+    }
+
     private static void registerPlayerEvaluators(ConfigurableFactory factory) throws NoSuchMethodException {
         factory.setTypeDescription(IPlayerEvaluator.IFactory.class,"Player evaluator factory");
 
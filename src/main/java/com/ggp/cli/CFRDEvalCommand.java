@@ -67,6 +67,9 @@ class CFRDEvalCommand implements Runnable {
     @CommandLine.Option(names={"--skip-warmup"}, description="Skip warm-up")
     private boolean skipWarmup;
 
+    @CommandLine.Option(names={"--exp-threads"}, description="Number of threads used to compute exploitability", defaultValue = "1")
+    private int expThreads;
+
     @CommandLine.Option(names={"--res-dir"}, description="Results directory", defaultValue="cfrd-results")
     private String resultsDirectory;
 
@@ -94,7 +97,7 @@ class CFRDEvalCommand implements Runnable {
         if (quiet) return;
         StopWatch expTimer = new StopWatch();
         expTimer.start();
-        double exp = ExploitabilityUtils.computeExploitability(new Strategy(), gameDesc);
+        double exp = ExploitabilityUtils.computeExploitability(new Strategy(), gameDesc, expThreads);
         expTimer.stop();
         System.out.println("Exploitability estimate for uniform strategy: " + exp + " in " + expTimer.getDurationMs() + " ms");
     }
@@ -166,7 +169,7 @@ class CFRDEvalCommand implements Runnable {
                 evaluationTimer.stop();
                 long visitedStates = cfrSolver.getVisitedStates();
                 double subgameExp = ImperfectRecallExploitability.computeExploitability(new NormalizingStrategyWrapper(cfrSolver.getCumulativeStrat()), root);
-                double exp = ExploitabilityUtils.computeExploitability(new NormalizingStrategyWrapper(new ReplacedStrategy(trunkStrategy, new PlayerLimitedStrategy(cfrSolver.getCumulativeStrat(), myId))), gameDesc);
+                double exp = ExploitabilityUtils.computeExploitability(new NormalizingStrategyWrapper(new ReplacedStrategy(trunkStrategy, new PlayerLimitedStrategy(cfrSolver.getCumulativeStrat(), myId))), gameDesc, expThreads);
                 double avgRegret = cfrSolver.getTotalRegret() / iter;
                 csvOut.printRecord((entryIdx+1) * evaluateAfterMs ,timer.getDurationMs(), iter, visitedStates, exp, avgRegret, trunkExp, subgameExp);
                 csvOut.flush();
@@ -334,7 +337,7 @@ class CFRDEvalCommand implements Runnable {
             if (!quiet) System.out.println("Using CBR strategy to compute opponent CFVs");
         }
 
-        double trunkExp = ExploitabilityUtils.computeExploitability(trunkStrategy, wrappedGame, trunkBestResponse);
+        double trunkExp = ExploitabilityUtils.computeExploitability(trunkStrategy, wrappedGame, trunkBestResponse, expThreads);
         if (!quiet) {
             System.out.println("Trunk strategy's exploitability " + trunkExp);
         }
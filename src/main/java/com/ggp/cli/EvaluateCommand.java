@@ -2,11 +2,13 @@ package com.ggp.cli;
 
 import com.ggp.IGameDescription;
 import com.ggp.IPlayerFactory;
+import com.ggp.IStrategy;
 import com.ggp.player_evaluators.IEvaluablePlayer;
 import com.ggp.player_evaluators.EvaluatorEntry;
 import com.ggp.player_evaluators.IPlayerEvaluationSaver;
 import com.ggp.player_evaluators.IPlayerEvaluator;
 import com.ggp.utils.exploitability.ExploitabilityUtils;
+import com.ggp.utils.exploitability.MonteCarloExploitability;
 import com.ggp.utils.strategy.NormalizingStrategyWrapper;
 import com.ggp.utils.strategy.Strategy;
 import com.ggp.utils.time.StopWatch;
@@ -67,6 +69,12 @@ class EvaluateCommand implements Runnable {
     @CommandLine.Option(names={"--skip-warmup"}, description="Skip warm-up")
     private boolean skipWarmup;
 
+    @CommandLine.Option(names={"--exp-threads"}, description="Number of threads used to compute exploitability", defaultValue = "1")
+    private int expThreads;
+
+    @CommandLine.Option(names={"--exp-sample-ms"}, description="Estimate exploitability by sampling for given time (ms) instead of computing it exactly, the estimate is a lower bound", defaultValue = "0")
+    private long expSampleMs;
+
     private String getDateKey() {
         return String.format("%1$tY%1$tm%1$td-%1$tH%1$tM%1$tS", new Date());
     }
@@ -85,6 +93,17 @@ class EvaluateCommand implements Runnable {
         if (!quiet) System.out.println(String.format("Warm-up complete in %dms.", warmupTimer.getLiveDurationMs()));
     }
 
+    /**
+     * Compute exploitability exactly or estimate it by sampling if {@link #expSampleMs} is set.
+     * @param normalizedStrategy
+     * @param gameDesc
+     * @return estimate, with empty confidence interval for exact exploitability
+     */
+    private MonteCarloExploitability.Estimate estimateExploitability(IStrategy normalizedStrategy, IGameDescription gameDesc) {
+        if (expSampleMs > 0) return new MonteCarloExploitability(gameDesc).computeExploitability(normalizedStrategy, expSampleMs);
+        return new MonteCarloExploitability.Estimate(ExploitabilityUtils.computeExploitability(normalizedStrategy, gameDesc, expThreads), 0, 0);
+    }
+
     private void runEvaluator(IPlayerEvaluator.IFactory usedEvaluatorFactory, IEvaluablePlayer.IFactory usedPlayerFactory,
                               IGameDescription gameDesc, IPlayerEvaluationSaver saver, boolean quiet, int initMs,
                               int[] timeLimitsMs, TimeLimit evaluationTimeLimit) {
@@ -95,8 +114,9 @@ class EvaluateCommand implements Runnable {
             for (int logTimeMs: timeLimitsMs) {
                 IPlayerEvaluator evaluator = usedEvaluatorFactory.create(initMs, Collections.singletonList(logTimeMs));
                 EvaluatorEntry entry = evaluator.evaluate(gameDesc, usedPlayerFactory, quiet, evaluationTimeLimit).get(0);
-                double exp = ExploitabilityUtils.computeExploitability(new NormalizingStrategyWrapper(entry.getAggregatedStrat()), gameDesc);
-                double firstActExp = ExploitabilityUtils.computeExploitability(new NormalizingStrategyWrapper(entry.getFirstActionStrat()), gameDesc);
+                MonteCarloExploitability.Estimate expEstimate = estimateExploitability(new NormalizingStrategyWrapper(entry.getAggregatedStrat()), gameDesc);
+                MonteCarloExploitability.Estimate firstActExpEstimate = estimateExploitability(new NormalizingStrategyWrapper(entry.getFirstActionStrat()), gameDesc);
+                double exp = expEstimate.getExploitability(), firstActExp = firstActExpEstimate.getExploitability();
                 if (saver != null) {
                     saver.add(entry, exp, firstActExp);
                 }
@@ -105,9 +125,14 @@ class EvaluateCommand implements Runnable {
                     bestStrategyExp = exp;
                 }
                 if (!quiet) {
-                    System.out.println(String.format("(%5d ms, %12d total states, %8d avg. path states) -> (%10.4g exp, %10.4g first act exp) | %.4g states/s",
+                    String status = String.format("(%5d ms, %12d total states, %8d avg. path states) -> (%10.4g exp, %10.4g first act exp) | %.4g states/s",
                             (int) entry.getEntryTimeMs(), entry.getAvgVisitedStates(), entry.getPathStatesAvg(),
-                            exp, firstActExp, 1000*(entry.getAvgVisitedStates() - lastEntryStates)/(entry.getEntryTimeMs() - lastTime)));
+                            exp, firstActExp, 1000*(entry.getAvgVisitedStates() - lastEntryStates)/(entry.getEntryTimeMs() - lastTime));
+                    if (expSampleMs > 0) {
+                        status += String.format(" | 95%% CI +- %.2g exp, +- %.2g first act exp", expEstimate.getConfidenceInterval(),
+                                firstActExpEstimate.getConfidenceInterval());
+                    }
+                    System.out.println(status);
                 }
                 lastEntryStates = entry.getAvgVisitedStates();
                 lastTime = entry.getEntryTimeMs();
@@ -143,7 +168,7 @@ class EvaluateCommand implements Runnable {
             return;
         }
 
-        if (!quiet) System.out.println("Exploitability estimate for uniform strategy: " + ExploitabilityUtils.computeExploitability(new Strategy(), game));
+        if (!quiet) System.out.println("Exploitability estimate for uniform strategy: " + estimateExploitability(new Strategy(), game));
 
         String gameDir = resultsDirectory + "/" + game.getConfigString();
         String solverDir =  gameDir + "/" + usedPlayerFactory.getConfigString();
@@ -3,9 +3,12 @@ package com.ggp.cli;
 import com.ggp.*;
 import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
 import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.utils.exploitability.ExploitabilityEvaluator;
 import com.ggp.utils.exploitability.ExploitabilityUtils;
+import com.ggp.utils.exploitability.MonteCarloExploitability;
 import com.ggp.utils.strategy.Strategy;
 import com.ggp.solvers.cfr.BaseCFRSolver;
+import com.ggp.solvers.cfr.utils.SolverCheckpoint;
 import com.ggp.utils.strategy.NormalizingStrategyWrapper;
 import com.ggp.utils.time.StopWatch;
 import org.apache.commons.csv.CSVFormat;
@@ -13,7 +16,14 @@ import org.apache.commons.csv.CSVPrinter;
 import picocli.CommandLine;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayDeque;
 import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @CommandLine.Command(name = "solve",
         mixinStandardHelpOptions = true,
@@ -58,6 +68,31 @@ class SolveCommand implements Runnable {
     @CommandLine.Option(names={"--res-postfix"}, description="Postfix for result files", defaultValue="0")
     private String resultPostfix;
 
+    @CommandLine.Option(names={"--checkpoint-freq"}, description="Checkpoint frequency (s), checkpoints are written to the solver's results directory", defaultValue = "-1")
+    private long checkpointFreq;
+
+    @CommandLine.Option(names={"--resume"}, description="Checkpoint to resume the (first) run from")
+    private String resumeFrom;
+
+    @CommandLine.Option(names={"--exp-threads"}, description="Number of threads used to compute exploitability, with more than 1 thread the game tree isn't kept in memory between evaluations", defaultValue = "1")
+    private int expThreads;
+
+    @CommandLine.Option(names={"--async-exp"}, description="Compute exploitability of strategy snapshots in the background while solving continues (snapshots of MMap{} storage copy its whole file)")
+    private boolean asyncExp;
+
+    @CommandLine.Option(names={"--exp-sample-ms"}, description="Estimate exploitability by sampling for given time (ms) instead of computing it exactly, the estimate is a lower bound", defaultValue = "0")
+    private long expSampleMs;
+
+    /**
+     * Number of snapshots which may wait for evaluation before solving is paused.
+     */
+    private static final int MAX_PENDING_EVALUATIONS = 2;
+
+    private ExecutorService checkpointExecutor;
+    private ExecutorService expExecutor;
+    private ExploitabilityEvaluator expEvaluator;
+    private Future<?> pendingCheckpoint;
+
     private String getDateKey() {
         return String.format("%1$tY%1$tm%1$td-%1$tH%1$tM%1$tS", new Date());
     }
@@ -66,11 +101,140 @@ class SolveCommand implements Runnable {
         return String.format("%d-%d-%s-%s.csv", timeLimit, evalFreq, getDateKey(), resultPostfix.replace("-", ""));
     }
 
+    private String getCheckpointName() {
+        return String.format("checkpoint-%s.bin", resultPostfix.replace("-", ""));
+    }
+
+    /**
+     * Write checkpoint in the background, the solver is only copied on the calling thread.
+     *
+     * The checkpoint is skipped if the previous one is still being written.
+     */
+    private void writeCheckpointAsync(BaseCFRSolver cfrSolver, File file, long iterations, long timeMs) {
+        if (pendingCheckpoint != null && !pendingCheckpoint.isDone()) return;
+        if (checkpointExecutor == null) {
+            checkpointExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "checkpoint-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        BaseCFRSolver snapshot = cfrSolver.copy(null);
+        String solverConfig = solver.getConfigString();
+        pendingCheckpoint = checkpointExecutor.submit(() -> {
+            try {
+                SolverCheckpoint.write(file, solverConfig, snapshot, iterations, timeMs);
+            } catch (IOException e) {
+                System.out.println("Failed to write checkpoint: " + e.getMessage());
+            } finally {
+                snapshot.close();
+            }
+        });
+    }
+
+    private void waitForCheckpoint() {
+        if (pendingCheckpoint == null) return;
+        try {
+            pendingCheckpoint.get();
+        } catch (InterruptedException | ExecutionException e) {
+            System.out.println("Failed to write checkpoint: " + e.getMessage());
+        }
+        pendingCheckpoint = null;
+    }
+
+    /**
+     * Get CPU time used by the whole process, so that parallel speed-up can be reported.
+     * @return CPU time in ns or -1 if it isn't supported.
+     */
+    private static long getProcessCpuTimeNs() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * Compute exploitability, the game tree is prepared only once for single-threaded evaluation.
+     * @param normalizedStrategy
+     * @param gameDesc
+     * @return exploitability
+     */
+    private double computeExploitability(IStrategy normalizedStrategy, IGameDescription gameDesc) {
+        return estimateExploitability(normalizedStrategy, gameDesc).getExploitability();
+    }
+
+    /**
+     * Compute exploitability exactly or estimate it by sampling if {@link #expSampleMs} is set.
+     * @param normalizedStrategy
+     * @param gameDesc
+     * @return estimate, with empty confidence interval for exact exploitability
+     */
+    private MonteCarloExploitability.Estimate estimateExploitability(IStrategy normalizedStrategy, IGameDescription gameDesc) {
+        if (expSampleMs > 0) return new MonteCarloExploitability(gameDesc).computeExploitability(normalizedStrategy, expSampleMs);
+        double exp;
+        if (expThreads > 1) {
+            exp = ExploitabilityUtils.computeExploitability(normalizedStrategy, gameDesc, expThreads);
+        } else {
+            if (expEvaluator == null) expEvaluator = new ExploitabilityEvaluator(gameDesc);
+            exp = expEvaluator.computeExploitability(normalizedStrategy);
+        }
+        return new MonteCarloExploitability.Estimate(exp, 0, 0);
+    }
+
+    private ExecutorService getExpExecutor() {
+        if (expExecutor == null) {
+            expExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "exploitability-evaluator");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return expExecutor;
+    }
+
+    /**
+     * Compute exploitability of a strategy snapshot and write its results.
+     *
+     * Asynchronous evaluations run on a single thread, so the results are written in the order of the snapshots.
+     * @return exploitability
+     */
+    private double recordEvaluation(CSVPrinter csvOut, IGameDescription gameDesc, boolean quiet, IStrategy cumulativeStrat,
+                                    long snapshotNs, long intendedTimeMs, long timeMs, long iterations, long visitedStates,
+                                    double avgRegret, String speedStatus) throws IOException {
+        MonteCarloExploitability.Estimate estimate = estimateExploitability(new NormalizingStrategyWrapper(cumulativeStrat), gameDesc);
+        double exp = estimate.getExploitability();
+        long latencyMs = (System.nanoTime() - snapshotNs) / 1000000L;
+        csvOut.printRecord(intendedTimeMs, timeMs, iterations, visitedStates, exp, avgRegret, latencyMs, estimate.getConfidenceInterval());
+        csvOut.flush();
+
+        String expStatus = String.format("%10.4g exp", exp);
+        if (expSampleMs > 0) expStatus = String.format("%10.4g +- %.2g exp", exp, estimate.getConfidenceInterval());
+        String status = String.format("(%8d ms, %10d iterations, %12d states) -> (%s, %10.4g avg. regret)",
+                timeMs, iterations, visitedStates, expStatus, avgRegret) + speedStatus;
+        if (asyncExp) status += String.format(" | evaluated after %d ms", latencyMs);
+        if (!quiet) {
+            System.out.println(status);
+        }
+        return exp;
+    }
+
+    private double waitForEvaluation(Future<Double> evaluation) throws IOException {
+        try {
+            return evaluation.get();
+        } catch (InterruptedException e) {
+            throw new IOException("Exploitability evaluation was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     private void printUniformExp(IGameDescription gameDesc) {
         if (quiet) return;
         StopWatch expTimer = new StopWatch();
         expTimer.start();
-        double exp = ExploitabilityUtils.computeExploitability(new Strategy(), gameDesc);
+        double exp = computeExploitability(new Strategy(), gameDesc);
         expTimer.stop();
         System.out.println("Exploitability estimate for uniform strategy: " + exp + " in " + expTimer.getDurationMs() + " ms");
     }
@@ -80,50 +244,110 @@ class SolveCommand implements Runnable {
         if (!quiet) System.out.println("Warming up ...");
 
         for (int i = 0; i < 5; ++i) {
-            runSolver(solverFactory, gameDesc, 1000, 5, true, -1, new StringWriter());
+            runSolver(solverFactory, gameDesc, 1000, 5, true, -1, new StringWriter(), null, null);
         }
 
         if (!quiet) System.out.println("Warm-up complete.");
     }
 
-    private Strategy runSolver(BaseCFRSolver.Factory usedSolverFactory, IGameDescription gameDesc, long freqMs, long evalEntries, boolean quiet, double returnStratThreshold, Writer fileOutput) {
+    /**
+     * Run the solver
+     * @param usedSolverFactory
+     * @param gameDesc
+     * @param freqMs
+     * @param evalEntries
+     * @param quiet
+     * @param returnStratThreshold
+     * @param fileOutput
+     * @param checkpointFile file for periodic checkpoints or null
+     * @param resumeFile checkpoint to resume from or null
+     * @return
+     */
+    private Strategy runSolver(BaseCFRSolver.Factory usedSolverFactory, IGameDescription gameDesc, long freqMs, long evalEntries,
+                               boolean quiet, double returnStratThreshold, Writer fileOutput, File checkpointFile, File resumeFile) {
         try {
             CSVPrinter csvOut = new CSVPrinter(fileOutput,
-                    CSVFormat.EXCEL.withHeader("intended_time", "time", "iterations", "states", "exp", "avg_regret"));
+                    CSVFormat.EXCEL.withHeader("intended_time", "time", "iterations", "states", "exp", "avg_regret", "exp_latency", "exp_ci"));
 
             BaseCFRSolver cfrSolver = usedSolverFactory.create(null);
             IGameTraversalTracker tracker = SimpleTracker.createRoot(gameDesc.getInitialState());
             int entryIdx = 0;
             final long evaluateAfterMs = freqMs;
             StopWatch timer = new StopWatch(), evaluationTimer = new StopWatch();
+            long iter = 0, lastEvalIters = 0;
+            // time spent by the run which is being resumed
+            long timeOffsetMs = 0;
+            if (resumeFile != null) {
+                SolverCheckpoint checkpoint = SolverCheckpoint.read(resumeFile, usedSolverFactory.getConfigString(), cfrSolver);
+                iter = lastEvalIters = checkpoint.getIterations();
+                timeOffsetMs = checkpoint.getTimeMs();
+                entryIdx = (int) (timeOffsetMs / evaluateAfterMs);
+                if (!quiet) System.out.println(String.format("Resumed from %s after %d ms and %d iterations.", resumeFile, timeOffsetMs, iter));
+            }
+            final long checkpointAfterMs = checkpointFreq * 1000;
+            long nextCheckpointMs = (checkpointFile == null || checkpointAfterMs <= 0) ? Long.MAX_VALUE : timeOffsetMs + checkpointAfterMs;
             timer.start();
             evaluationTimer.start();
-            long iter = 0, lastEvalIters = 0;
+            long evalStartCpuNs = getProcessCpuTimeNs();
             double strategyExp = 0;
+            ArrayDeque<Future<Double>> pendingEvaluations = new ArrayDeque<>();
             while (entryIdx < evalEntries) {
                 do {
-                    iter++;
+                    iter += cfrSolver.getIterationsPerRun();
                     cfrSolver.runIteration(tracker);
-                } while (timer.getLiveDurationMs() < (entryIdx+1)*evaluateAfterMs);
+                    if (timeOffsetMs + timer.getLiveDurationMs() >= nextCheckpointMs) {
+                        long timeMs = timeOffsetMs + timer.getLiveDurationMs();
+                        writeCheckpointAsync(cfrSolver, checkpointFile, iter, timeMs);
+                        nextCheckpointMs = timeMs + checkpointAfterMs;
+                    }
+                } while (timeOffsetMs + timer.getLiveDurationMs() < (entryIdx+1)*evaluateAfterMs);
 
                 timer.stop();
                 evaluationTimer.stop();
-                long visitedStates = cfrSolver.getVisitedStates();
-                double exp = ExploitabilityUtils.computeExploitability(new NormalizingStrategyWrapper(cfrSolver.getCumulativeStrat()), gameDesc);
-                strategyExp = exp;
-                double avgRegret = cfrSolver.getTotalRegret() / iter;
-                csvOut.printRecord((entryIdx+1) * evaluateAfterMs ,timer.getDurationMs(), iter, visitedStates, exp, avgRegret);
-                csvOut.flush();
-
-                String status = String.format("(%8d ms, %10d iterations, %12d states) -> (%10.4g exp, %10.4g avg. regret) | %.4g iters/s",
-                        timer.getDurationMs(), iter, visitedStates, exp, avgRegret, 1000*(iter - lastEvalIters)/((double)evaluationTimer.getDurationMs()));
-                if (!quiet) {
-                    System.out.println(status);
+                long evalCpuNs = getProcessCpuTimeNs() - evalStartCpuNs;
+                final long intendedTimeMs = (entryIdx+1) * evaluateAfterMs, timeMs = timeOffsetMs + timer.getDurationMs();
+                final long iterations = iter, visitedStates = cfrSolver.getVisitedStates();
+                final double avgRegret = cfrSolver.getTotalRegret() / iter;
+                String speed = String.format(" | %.4g iters/s", 1000*(iter - lastEvalIters)/((double)evaluationTimer.getDurationMs()));
+                if (evalStartCpuNs >= 0 && evaluationTimer.getDurationMs() > 0) {
+                    // CPU time per wall time shows how well the solver scales with threads
+                    speed += String.format(" on %.2f cores", evalCpuNs/(1e6*evaluationTimer.getDurationMs()));
+                }
+                final String speedStatus = speed;
+                final long snapshotNs = System.nanoTime();
+                if (asyncExp) {
+                    // solving is paused only when the evaluations can't keep up
+                    while (pendingEvaluations.size() >= MAX_PENDING_EVALUATIONS) {
+                        strategyExp = waitForEvaluation(pendingEvaluations.poll());
+                    }
+                    // on-heap IS data are copied on write, but MMap{} storage copies its whole file here, while the
+                    // solving timer is stopped
+                    BaseCFRSolver snapshot = cfrSolver.copy(null);
+                    pendingEvaluations.add(getExpExecutor().submit(() -> {
+                        try {
+                            return recordEvaluation(csvOut, gameDesc, quiet, snapshot.getCumulativeStrat(), snapshotNs,
+                                    intendedTimeMs, timeMs, iterations, visitedStates, avgRegret, speedStatus);
+                        } finally {
+                            snapshot.close();
+                        }
+                    }));
+                } else {
+                    strategyExp = recordEvaluation(csvOut, gameDesc, quiet, cfrSolver.getCumulativeStrat(), snapshotNs,
+                            intendedTimeMs, timeMs, iterations, visitedStates, avgRegret, speedStatus);
                 }
-                while (timer.getDurationMs() >= (entryIdx+1)*evaluateAfterMs) entryIdx++;
+                while (timeOffsetMs + timer.getDurationMs() >= (entryIdx+1)*evaluateAfterMs) entryIdx++;
                 lastEvalIters = iter;
                 evaluationTimer.reset();
                 timer.start();
+                evalStartCpuNs = getProcessCpuTimeNs();
+            }
+            while (!pendingEvaluations.isEmpty()) {
+                strategyExp = waitForEvaluation(pendingEvaluations.poll());
+            }
+            if (checkpointFile != null && checkpointAfterMs > 0) {
+                // the final state is written synchronously, so that the run can be continued later
+                waitForCheckpoint();
+                SolverCheckpoint.write(checkpointFile, usedSolverFactory.getConfigString(), cfrSolver, iter, timeOffsetMs + timer.getDurationMs());
             }
             if (strategyExp < returnStratThreshold) {
                 return cfrSolver.getFinalCumulativeStrat();
@@ -131,6 +355,7 @@ class SolveCommand implements Runnable {
             csvOut.close();
             return null;
         } catch (IOException e) {
+            if (!quiet) System.out.println(e.getMessage());
             return null;
         }
     }
@@ -169,11 +394,14 @@ class SolveCommand implements Runnable {
             String csvFileName = solverDir + "/" + getCSVName();
             try {
                 Writer output = dryRun ? new StringWriter() : new FileWriter(csvFileName);
-                Strategy newBestStrat = runSolver(solver, game, evalFreq, evalEntriesCount, quiet, bestStrategyExp, output);
+                File checkpointFile = dryRun ? null : new File(solverDir, getCheckpointName());
+                File resumeFile = (i == 0 && resumeFrom != null) ? new File(resumeFrom) : null;
+                Strategy newBestStrat = runSolver(solver, game, evalFreq, evalEntriesCount, quiet, bestStrategyExp, output,
+                        checkpointFile, resumeFile);
                 if (newBestStrat != null) {
                     bestStrategy = newBestStrat;
                     newBestStrat.normalize();
-                    bestStrategyExp = ExploitabilityUtils.computeExploitability(newBestStrat, game);
+                    bestStrategyExp = computeExploitability(newBestStrat, game);
                 }
             } catch (IOException e) {
                 continue;
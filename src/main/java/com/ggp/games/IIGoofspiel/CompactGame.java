@@ -0,0 +1,181 @@
+package com.ggp.games.IIGoofspiel;
+
+import com.ggp.ICompactGame;
+import com.ggp.ICompleteInformationState;
+
+/**
+ * Compact representation of II-Goofspiel.
+ *
+ * Lowest 8 bits hold the number of cards played by each player, followed by the cards played by player 1 and 2.
+ */
+public class CompactGame implements ICompactGame {
+    private static final long serialVersionUID = 1L;
+    /**
+     * Maximum game size, for which the state fits in a long.
+     */
+    public static final int MAX_GAME_SIZE = 8;
+    private static final int CARDS_OFFSET = 8;
+    private static final int TIE = 3;
+
+    private final int gameSize;
+    private final int cardBits;
+    private final long cardMask;
+
+    public CompactGame(int gameSize) {
+        if (gameSize < 0 || gameSize > MAX_GAME_SIZE) {
+            throw new IllegalArgumentException("Game size must be between 0 and " + MAX_GAME_SIZE + "!");
+        }
+        this.gameSize = gameSize;
+        this.cardBits = (gameSize <= 2) ? 1 : 32 - Integer.numberOfLeadingZeros(gameSize - 1);
+        this.cardMask = (1L << cardBits) - 1;
+    }
+
+    private static int getRound(long state, int player) {
+        return (int) ((state >>> (4 * (player - 1))) & 0xF);
+    }
+
+    private int getCard(long state, int player, int round) {
+        return (int) ((state >>> (CARDS_OFFSET + ((player - 1) * gameSize + round) * cardBits)) & cardMask);
+    }
+
+    private int getUsedCards(long state, int player) {
+        int used = 0;
+        for (int round = getRound(state, player) - 1; round >= 0; --round) {
+            used |= 1 << getCard(state, player, round);
+        }
+        return used;
+    }
+
+    /**
+     * Get result of given round.
+     * @param state
+     * @param round
+     * @return winner of the round or {@link #TIE}
+     */
+    private int getRoundResult(long state, int round) {
+        int c1 = getCard(state, 1, round), c2 = getCard(state, 2, round);
+        if (c1 > c2) return 1;
+        if (c2 > c1) return 2;
+        return TIE;
+    }
+
+    @Override
+    public long getInitialState() {
+        return 0;
+    }
+
+    @Override
+    public boolean isTerminal(long state) {
+        return getRound(state, 2) == gameSize;
+    }
+
+    @Override
+    public int getActingPlayerId(long state) {
+        if (getRound(state, 1) == getRound(state, 2)) return 1;
+        return 2;
+    }
+
+    @Override
+    public double getPayoff(long state, int player) {
+        if (!isTerminal(state)) return 0;
+        int score1 = 0, score2 = 0;
+        for (int round = 0; round < gameSize; ++round) {
+            int winner = getRoundResult(state, round);
+            if (winner == 1) score1 += round + 1;
+            else if (winner == 2) score2 += round + 1;
+        }
+        int myScore = (player == 1) ? score1 : score2, oppScore = (player == 1) ? score2 : score1;
+        if (myScore > oppScore) return 1;
+        if (oppScore > myScore) return -1;
+        return 0;
+    }
+
+    @Override
+    public int getActionCount(long state) {
+        return gameSize - getRound(state, getActingPlayerId(state));
+    }
+
+    @Override
+    public long next(long state, int actionIdx) {
+        int player = getActingPlayerId(state);
+        int used = getUsedCards(state, player);
+        int card = 0;
+        for (;; ++card) {
+            if ((used & (1 << card)) != 0) continue;
+            if (actionIdx == 0) break;
+            actionIdx--;
+        }
+        int round = getRound(state, player);
+        state |= ((long) card) << (CARDS_OFFSET + ((player - 1) * gameSize + round) * cardBits);
+        return state + (1L << (4 * (player - 1)));
+    }
+
+    @Override
+    public double getRandomActionProb(long state, int actionIdx) {
+        return 0;
+    }
+
+    @Override
+    public long getInfoSetKey(long state, int player) {
+        int round = getRound(state, player);
+        int playedRounds = getRound(state, 2);
+        long key = player | (round << 2);
+        int offset = 6;
+        for (int r = 0; r < round; ++r) {
+            key |= ((long) getCard(state, player, r)) << offset;
+            offset += cardBits;
+        }
+        for (int r = 0; r < playedRounds; ++r) {
+            key |= ((long) getRoundResult(state, r)) << offset;
+            offset += 2;
+        }
+        return key;
+    }
+
+    @Override
+    public InformationSet getInfoSet(long state, int player) {
+        int round = getRound(state, player);
+        int playedRounds = getRound(state, 2);
+        int[] usedCards = null;
+        char[] wins = null;
+        if (round > 0) {
+            usedCards = new int[round];
+            for (int r = 0; r < round; ++r) usedCards[r] = getCard(state, player, r);
+        }
+        if (playedRounds > 0) {
+            wins = new char[playedRounds];
+            for (int r = 0; r < playedRounds; ++r) {
+                int winner = getRoundResult(state, r);
+                wins[r] = winner == player ? 'W' : (winner == TIE ? 'T' : 'L');
+            }
+        }
+        return new InformationSet(player, gameSize, usedCards, wins);
+    }
+
+    @Override
+    public ICompleteInformationState toState(long state) {
+        return new CompleteInformationState(getInfoSet(state, 1), getInfoSet(state, 2));
+    }
+
+    @Override
+    public long fromState(ICompleteInformationState state) {
+        if (state == null || state.getClass() != CompleteInformationState.class || ((CompleteInformationState) state).getGameSize() != gameSize) {
+            throw new IllegalArgumentException("State doesn't belong to " + this + "!");
+        }
+        long ret = 0;
+        for (int player = 1; player <= 2; ++player) {
+            InformationSet is = (InformationSet) state.getInfoSetForPlayer(player);
+            int round = is.getRound();
+            for (int r = 0; r < round; ++r) {
+                ret |= ((long) is.getCardFromRound(r)) << (CARDS_OFFSET + ((player - 1) * gameSize + r) * cardBits);
+            }
+            ret |= ((long) round) << (4 * (player - 1));
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactGame{IIGoofspiel{" + gameSize + "}}";
+    }
+}
@@ -8,7 +8,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
-public class CompleteInformationState implements ICompleteInformationState {
+public class CompleteInformationState implements ICompleteInformationState, ICompactGame.IProvider {
     private static final long serialVersionUID = 1L;
     private final InformationSet player1IS, player2IS;
 
@@ -124,4 +124,10 @@ public class CompleteInformationState implements ICompleteInformationState {
     public int getGameSize() {
         return player1IS.getGameSize();
     }
+
+    @Override
+    public ICompactGame getCompactGame() {
+        if (getGameSize() > CompactGame.MAX_GAME_SIZE) return null;
+        return new CompactGame(getGameSize());
+    }
 }
@@ -0,0 +1,218 @@
+package com.ggp.games.LatentTicTacToe;
+
+import com.ggp.ICompactGame;
+import com.ggp.ICompleteInformationState;
+
+/**
+ * Compact representation of Latent Tic-Tac-Toe.
+ *
+ * Each player uses 26 bits: masks of own and known enemy fields, delayed action (field index + 1 or 0) and number
+ * of known enemy fields (which can differ from the mask when both players mark the same field). Number of moves made
+ * by both players is stored in the highest bits.
+ */
+public class CompactGame implements ICompactGame {
+    private static final long serialVersionUID = 1L;
+    public static final CompactGame instance = new CompactGame();
+
+    private static final int FIELD_COUNT = InformationSet.GRID_SIZE * InformationSet.GRID_SIZE;
+    private static final int PLAYER_BITS = 26;
+    private static final int ENEMY_OFFSET = 9;
+    private static final int DELAYED_OFFSET = 18;
+    private static final int ENEMY_COUNT_OFFSET = 22;
+    private static final int MOVES_OFFSET = 2 * PLAYER_BITS;
+    private static final int FIELD_MASK = (1 << FIELD_COUNT) - 1;
+    private static final int[] LINES;
+    static {
+        final int n = InformationSet.GRID_SIZE;
+        LINES = new int[2*n + 2];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                LINES[i] |= 1 << (n*i + j); // column
+                LINES[n + i] |= 1 << (n*j + i); // row
+            }
+            LINES[2*n] |= 1 << (n*i + i);
+            LINES[2*n + 1] |= 1 << (n*i + (n - 1 - i));
+        }
+    }
+
+    private CompactGame() {}
+
+    private static int getPlayerBits(long state, int player) {
+        return (int) ((state >>> (PLAYER_BITS * (player - 1))) & ((1L << PLAYER_BITS) - 1));
+    }
+
+    private static int getMine(int playerBits) {
+        return playerBits & FIELD_MASK;
+    }
+
+    private static int getEnemy(int playerBits) {
+        return (playerBits >>> ENEMY_OFFSET) & FIELD_MASK;
+    }
+
+    /**
+     * @param playerBits
+     * @return field index of delayed action or -1
+     */
+    private static int getDelayed(int playerBits) {
+        return ((playerBits >>> DELAYED_OFFSET) & 0xF) - 1;
+    }
+
+    private static int getEnemyCount(int playerBits) {
+        return (playerBits >>> ENEMY_COUNT_OFFSET) & 0xF;
+    }
+
+    private static int makePlayerBits(int mine, int enemy, int delayed, int enemyCount) {
+        return mine | (enemy << ENEMY_OFFSET) | ((delayed + 1) << DELAYED_OFFSET) | (enemyCount << ENEMY_COUNT_OFFSET);
+    }
+
+    private static int getMoves(long state) {
+        return (int) (state >>> MOVES_OFFSET);
+    }
+
+    private static boolean hasLegalActions(int playerBits) {
+        return Integer.bitCount(getMine(playerBits)) + getEnemyCount(playerBits) + (getDelayed(playerBits) >= 0 ? 1 : 0) < FIELD_COUNT;
+    }
+
+    private static boolean hasPlayerWon(int playerBits) {
+        int mine = getMine(playerBits);
+        if (Integer.bitCount(mine) < InformationSet.GRID_SIZE) return false;
+        for (int line: LINES) {
+            if ((mine & line) == line) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param playerBits
+     * @return mask of fields which can be marked by the player
+     */
+    private static int getLegalFields(int playerBits) {
+        int ret = ~(getMine(playerBits) | getEnemy(playerBits)) & FIELD_MASK;
+        int delayed = getDelayed(playerBits);
+        if (delayed >= 0) ret &= ~(1 << delayed);
+        return ret;
+    }
+
+    @Override
+    public long getInitialState() {
+        return 0;
+    }
+
+    @Override
+    public boolean isTerminal(long state) {
+        int x = getPlayerBits(state, CompleteInformationState.PLAYER_X), o = getPlayerBits(state, CompleteInformationState.PLAYER_O);
+        return !hasLegalActions(x) || !hasLegalActions(o) || hasPlayerWon(o)
+                || (hasPlayerWon(x) && getActingPlayerId(state) == CompleteInformationState.PLAYER_X);
+    }
+
+    @Override
+    public int getActingPlayerId(long state) {
+        return (getMoves(state) % 2 == 0) ? CompleteInformationState.PLAYER_X : CompleteInformationState.PLAYER_O;
+    }
+
+    @Override
+    public double getPayoff(long state, int player) {
+        if (!isTerminal(state)) return 0;
+        boolean xWon = hasPlayerWon(getPlayerBits(state, CompleteInformationState.PLAYER_X));
+        boolean oWon = hasPlayerWon(getPlayerBits(state, CompleteInformationState.PLAYER_O));
+        int xPayoff = 0;
+        if (xWon != oWon) xPayoff = xWon ? 1 : -1;
+        if (player == CompleteInformationState.PLAYER_X) return xPayoff;
+        return -xPayoff;
+    }
+
+    @Override
+    public int getActionCount(long state) {
+        int playerBits = getPlayerBits(state, getActingPlayerId(state));
+        if (!hasLegalActions(playerBits)) return 0;
+        return Integer.bitCount(getLegalFields(playerBits));
+    }
+
+    @Override
+    public long next(long state, int actionIdx) {
+        int player = getActingPlayerId(state);
+        int opponent = 3 - player;
+        int playerBits = getPlayerBits(state, player);
+        int legal = getLegalFields(playerBits);
+        for (int i = 0; i < actionIdx; ++i) {
+            legal &= legal - 1;
+        }
+        int action = Integer.numberOfTrailingZeros(legal);
+
+        int mine = getMine(playerBits), enemy = getEnemy(playerBits), enemyCount = getEnemyCount(playerBits);
+        int opponentsDelayed = getDelayed(getPlayerBits(state, opponent));
+        if (opponentsDelayed >= 0 && ((mine | enemy) & (1 << opponentsDelayed)) == 0) {
+            enemy |= 1 << opponentsDelayed;
+            enemyCount++;
+        }
+        // own action is marked even if opponent's delayed action revealed the same field
+        mine |= 1 << action;
+        enemy &= ~(1 << action);
+
+        int shift = PLAYER_BITS * (player - 1);
+        state &= ~(((1L << PLAYER_BITS) - 1) << shift);
+        state |= ((long) makePlayerBits(mine, enemy, action, enemyCount)) << shift;
+        return state + (1L << MOVES_OFFSET);
+    }
+
+    @Override
+    public double getRandomActionProb(long state, int actionIdx) {
+        return 0;
+    }
+
+    @Override
+    public long getInfoSetKey(long state, int player) {
+        int playerBits = getPlayerBits(state, player);
+        return player | ((long) (getMine(playerBits) | (getEnemy(playerBits) << ENEMY_OFFSET)) << 2);
+    }
+
+    @Override
+    public InformationSet getInfoSet(long state, int player) {
+        int playerBits = getPlayerBits(state, player);
+        int mine = getMine(playerBits), enemy = getEnemy(playerBits);
+        int[] field = new int[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; ++i) {
+            if ((mine & (1 << i)) != 0) field[i] = InformationSet.FIELD_MINE;
+            else if ((enemy & (1 << i)) != 0) field[i] = InformationSet.FIELD_ENEMY;
+        }
+        int moves = getMoves(state);
+        int playerMoves = (player == CompleteInformationState.PLAYER_X) ? (moves + 1) / 2 : moves / 2;
+        int delayed = getDelayed(playerBits);
+        MarkFieldAction delayedAction = (delayed < 0) ? null
+                : new MarkFieldAction(delayed / InformationSet.GRID_SIZE, delayed % InformationSet.GRID_SIZE);
+        return new InformationSet(field, player, 2*playerMoves, Integer.bitCount(mine), getEnemyCount(playerBits), delayedAction);
+    }
+
+    @Override
+    public ICompleteInformationState toState(long state) {
+        return new CompleteInformationState(getInfoSet(state, CompleteInformationState.PLAYER_X),
+                getInfoSet(state, CompleteInformationState.PLAYER_O), getActingPlayerId(state));
+    }
+
+    @Override
+    public long fromState(ICompleteInformationState state) {
+        if (state == null || state.getClass() != CompleteInformationState.class) {
+            throw new IllegalArgumentException("State doesn't belong to " + this + "!");
+        }
+        long ret = 0;
+        int moves = 0;
+        for (int player = 1; player <= 2; ++player) {
+            InformationSet is = ((CompleteInformationState) state).getInfoSetForPlayer(player);
+            int mine = 0, enemy = 0;
+            for (int i = 0; i < FIELD_COUNT; ++i) {
+                if (is.getField(i) == InformationSet.FIELD_MINE) mine |= 1 << i;
+                else if (is.getField(i) == InformationSet.FIELD_ENEMY) enemy |= 1 << i;
+            }
+            MarkFieldAction a = is.getDelayedAction();
+            int delayed = (a == null) ? -1 : InformationSet.GRID_SIZE * a.getX() + a.getY();
+            ret |= ((long) makePlayerBits(mine, enemy, delayed, is.getKnownEnemyFields())) << (PLAYER_BITS * (player - 1));
+            moves += is.getTurn() / 2;
+        }
+        return ret | ((long) moves << MOVES_OFFSET);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactGame{LatentTicTacToe{}}";
+    }
+}
@@ -7,7 +7,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
-public class CompleteInformationState implements ICompleteInformationState {
+public class CompleteInformationState implements ICompleteInformationState, ICompactGame.IProvider {
     private static final long serialVersionUID = 1L;
     private InformationSet xInfoSet;
     private InformationSet oInfoSet;
@@ -109,6 +109,11 @@ public class CompleteInformationState implements ICompleteInformationState {
         return null;
     }
 
+    @Override
+    public ICompactGame getCompactGame() {
+        return CompactGame.instance;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
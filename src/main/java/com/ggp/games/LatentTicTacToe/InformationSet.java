@@ -182,6 +182,18 @@ public class InformationSet implements IInformationSet{
         return delayedAction;
     }
 
+    int getField(int pos) {
+        return field[pos];
+    }
+
+    int getTurn() {
+        return turn;
+    }
+
+    int getKnownEnemyFields() {
+        return knownEnemyFields;
+    }
+
     @Override
     public String toString() {
         return "IS{" +
@@ -0,0 +1,283 @@
+package com.ggp.games.LeducPoker;
+
+import com.ggp.ICompactGame;
+import com.ggp.ICompleteInformationState;
+
+/**
+ * Compact representation of Leduc poker.
+ *
+ * Pot size, public card, raises and folding player are the same for both players, therefore they are stored only once.
+ * Widths of the fields depend on game's parameters, see {@link #create(GameDescription)}.
+ */
+public class CompactGame implements ICompactGame {
+    private static final long serialVersionUID = 1L;
+    private static final int ACTING = 0, FOLDED = 1, RAISES = 2, PUBLIC = 3, POT = 4, PRIVATE = 5, ROUND = 7, REMAINING = 9;
+    private static final int FIELD_COUNT = 11;
+    private static final int RAISE = 0, FOLD = 1, CALL = 2;
+    private static final int PRIVATE_CARD = Rounds.PrivateCard.ordinal(),
+            BET1 = Rounds.Bet1.ordinal(), PUBLIC_CARD = Rounds.PublicCard.ordinal(), BET2 = Rounds.Bet2.ordinal(),
+            END = Rounds.End.ordinal();
+    private static final Rounds[] ROUNDS = Rounds.values();
+
+    private final GameDescription gameDesc;
+    private final int[] shifts = new int[FIELD_COUNT];
+    private final long[] masks = new long[FIELD_COUNT];
+    private final long initialState;
+
+    private CompactGame(GameDescription gameDesc, int[] widths) {
+        this.gameDesc = gameDesc;
+        int shift = 0;
+        for (int f = 0; f < FIELD_COUNT; ++f) {
+            shifts[f] = shift;
+            masks[f] = (1L << widths[f]) - 1;
+            shift += widths[f];
+        }
+        long s = 0;
+        s = set(s, POT, 2);
+        s = set(s, ROUND, PRIVATE_CARD);
+        s = set(s, ROUND + 1, PRIVATE_CARD);
+        s = set(s, REMAINING, gameDesc.getStartingMoney(1) - 1);
+        s = set(s, REMAINING + 1, gameDesc.getStartingMoney(2) - 1);
+        initialState = s;
+    }
+
+    private static int bits(int maxValue) {
+        return 32 - Integer.numberOfLeadingZeros(maxValue);
+    }
+
+    /**
+     * Create compact representation of given game.
+     * @param gameDesc
+     * @return compact game or null if the game's parameters are too large
+     */
+    public static CompactGame create(GameDescription gameDesc) {
+        int m1 = gameDesc.getStartingMoney(1), m2 = gameDesc.getStartingMoney(2);
+        int cardBits = bits(gameDesc.getCardsPerSuite());
+        int[] widths = new int[FIELD_COUNT];
+        widths[ACTING] = 2;
+        widths[FOLDED] = 2;
+        widths[RAISES] = bits(gameDesc.getBetsPerRound());
+        widths[PUBLIC] = cardBits;
+        widths[POT] = bits(m1 + m2);
+        widths[PRIVATE] = widths[PRIVATE + 1] = cardBits;
+        widths[ROUND] = widths[ROUND + 1] = 3;
+        widths[REMAINING] = bits(m1);
+        widths[REMAINING + 1] = bits(m2);
+        int total = 0;
+        for (int w: widths) total += w;
+        if (total > 64 || m1 + m2 < 0) return null;
+        return new CompactGame(gameDesc, widths);
+    }
+
+    private int get(long state, int field) {
+        return (int) ((state >>> shifts[field]) & masks[field]);
+    }
+
+    private long set(long state, int field, int value) {
+        return (state & ~(masks[field] << shifts[field])) | (((long) value) << shifts[field]);
+    }
+
+    private static int nextRound(int round) {
+        return round >= BET2 ? END : round + 1;
+    }
+
+    private static int getRaiseAmount(int round) {
+        if (round == BET1) return 2;
+        if (round == BET2) return 4;
+        return 0;
+    }
+
+    private boolean isRaiseLegal(long state, int player) {
+        int raises = get(state, RAISES);
+        return raises < gameDesc.getBetsPerRound()
+                && get(state, REMAINING + player - 1) >= getRaiseAmount(get(state, ROUND + player - 1)) * (raises == 0 ? 1 : 2);
+    }
+
+    /**
+     * Get card which was removed from the deck for the public card, because both players have the same private card.
+     * @param state
+     * @return card + 1 or 0
+     */
+    private int getRemovedCard(long state) {
+        if (get(state, ROUND + 1) != PUBLIC_CARD) return 0;
+        int c1 = get(state, PRIVATE);
+        return (c1 == get(state, PRIVATE + 1)) ? c1 : 0;
+    }
+
+    private long updateActingPlayer(long state, int actingPlayer) {
+        int round = Math.min(get(state, ROUND), get(state, ROUND + 1));
+        int nextPlayer = 0;
+        if (round == BET1 || round == BET2) nextPlayer = actingPlayer == 1 ? 2 : 1;
+        return set(state, ACTING, nextPlayer);
+    }
+
+    @Override
+    public long getInitialState() {
+        return initialState;
+    }
+
+    @Override
+    public boolean isTerminal(long state) {
+        return get(state, ROUND) == END;
+    }
+
+    @Override
+    public int getActingPlayerId(long state) {
+        return get(state, ACTING);
+    }
+
+    @Override
+    public double getPayoff(long state, int player) {
+        if (!isTerminal(state) || (player != 1 && player != 2)) return 0;
+        int winner = 0;
+        int folded = get(state, FOLDED);
+        if (folded != 0) {
+            winner = folded == 1 ? 2 : 1;
+        } else {
+            int publicCard = get(state, PUBLIC);
+            int c1 = get(state, PRIVATE), c2 = get(state, PRIVATE + 1);
+            if (c1 == publicCard) {
+                winner = 1;
+            } else if (c2 == publicCard) {
+                winner = 2;
+            } else if (c1 > c2) {
+                winner = 1;
+            } else if (c2 > c1) {
+                winner = 2;
+            }
+        }
+
+        int myBets = gameDesc.getStartingMoney(player) - get(state, REMAINING + player - 1);
+        if (winner == 0) {
+            return 0; // draw, both players get their bets back
+        } else if (winner == player) {
+            return get(state, POT) - myBets;
+        } else {
+            return -myBets;
+        }
+    }
+
+    @Override
+    public int getActionCount(long state) {
+        int player = get(state, ACTING);
+        if (player == 0) {
+            return gameDesc.getCardsPerSuite() - (getRemovedCard(state) != 0 ? 1 : 0);
+        }
+        return isRaiseLegal(state, player) ? 3 : 2;
+    }
+
+    private long dealCard(long state, int actionIdx) {
+        int removed = getRemovedCard(state);
+        int card = (removed != 0 && actionIdx >= removed - 1) ? actionIdx + 1 : actionIdx;
+        if (get(state, ROUND + 1) == PUBLIC_CARD) {
+            state = set(state, PUBLIC, card + 1);
+            state = set(state, ROUND, nextRound(get(state, ROUND)));
+            state = set(state, ROUND + 1, nextRound(get(state, ROUND + 1)));
+        } else {
+            int player = get(state, PRIVATE) == 0 ? 1 : 2;
+            state = set(state, PRIVATE + player - 1, card + 1);
+            state = set(state, ROUND + player - 1, nextRound(get(state, ROUND + player - 1)));
+        }
+        state = set(state, RAISES, 0);
+        return updateActingPlayer(state, 0);
+    }
+
+    @Override
+    public long next(long state, int actionIdx) {
+        int player = get(state, ACTING);
+        if (player == 0) return dealCard(state, actionIdx);
+        int action = isRaiseLegal(state, player) ? actionIdx : actionIdx + 1;
+        int raises = get(state, RAISES);
+        int raiseAmount = getRaiseAmount(get(state, ROUND + player - 1));
+        int remaining = get(state, REMAINING + player - 1);
+        if (action == FOLD) {
+            state = set(state, ROUND, END);
+            state = set(state, ROUND + 1, END);
+            state = set(state, RAISES, 0);
+            state = set(state, FOLDED, player);
+        } else if (action == CALL) {
+            int potUpdate = raises > 0 ? Math.min(remaining, raiseAmount) : 0;
+            state = set(state, POT, get(state, POT) + potUpdate);
+            state = set(state, REMAINING + player - 1, remaining - potUpdate);
+            // end betting round only if this is not the first action of the betting round
+            if (player == 2 || raises > 0) {
+                state = set(state, ROUND, nextRound(get(state, ROUND)));
+                state = set(state, ROUND + 1, nextRound(get(state, ROUND + 1)));
+                state = set(state, RAISES, 0);
+            }
+        } else {
+            int opponentRemaining = get(state, REMAINING + 2 - player);
+            int potUpdate = raises > 0 ? 2*raiseAmount : raiseAmount;
+            // the opponent may not have enough money to match the raise, the difference is returned
+            int returned = Math.max(0, raiseAmount - opponentRemaining);
+            state = set(state, POT, get(state, POT) + potUpdate - returned);
+            state = set(state, REMAINING + player - 1, remaining - potUpdate + returned);
+            state = set(state, RAISES, raises + 1);
+        }
+        return updateActingPlayer(state, player);
+    }
+
+    @Override
+    public double getRandomActionProb(long state, int actionIdx) {
+        return 1d / getActionCount(state);
+    }
+
+    @Override
+    public long getInfoSetKey(long state, int player) {
+        long key = 0;
+        key = set(key, ACTING, player);
+        key = set(key, FOLDED, get(state, FOLDED));
+        key = set(key, RAISES, get(state, RAISES));
+        key = set(key, PUBLIC, get(state, PUBLIC));
+        key = set(key, POT, get(state, POT));
+        key = set(key, PRIVATE, get(state, PRIVATE + player - 1));
+        key = set(key, ROUND, get(state, ROUND + player - 1));
+        return set(key, REMAINING + player - 1, get(state, REMAINING + player - 1));
+    }
+
+    private static Integer toCard(int code) {
+        return code == 0 ? null : code - 1;
+    }
+
+    private static int fromCard(Integer card) {
+        return card == null ? 0 : card + 1;
+    }
+
+    @Override
+    public InformationSet getInfoSet(long state, int player) {
+        return new InformationSet(gameDesc, player, toCard(get(state, PRIVATE + player - 1)), toCard(get(state, PUBLIC)),
+                get(state, POT), get(state, REMAINING + player - 1), ROUNDS[get(state, ROUND + player - 1)],
+                get(state, RAISES), get(state, FOLDED));
+    }
+
+    @Override
+    public ICompleteInformationState toState(long state) {
+        return new CompleteInformationState(getInfoSet(state, 1), getInfoSet(state, 2), get(state, ACTING));
+    }
+
+    @Override
+    public long fromState(ICompleteInformationState state) {
+        if (state == null || state.getClass() != CompleteInformationState.class
+                || !gameDesc.equals(((InformationSet) state.getInfoSetForPlayer(1)).getGameDesc())) {
+            throw new IllegalArgumentException("State doesn't belong to " + this + "!");
+        }
+        InformationSet is1 = (InformationSet) state.getInfoSetForPlayer(1), is2 = (InformationSet) state.getInfoSetForPlayer(2);
+        long ret = 0;
+        ret = set(ret, ACTING, state.getActingPlayerId());
+        ret = set(ret, FOLDED, is1.getFoldedByPlayer());
+        ret = set(ret, RAISES, is1.getRaisesUsedThisRound());
+        ret = set(ret, PUBLIC, fromCard(is1.getPublicCard()));
+        ret = set(ret, POT, is1.getPotSize());
+        ret = set(ret, PRIVATE, fromCard(is1.getPrivateCard()));
+        ret = set(ret, PRIVATE + 1, fromCard(is2.getPrivateCard()));
+        ret = set(ret, ROUND, is1.getRound().ordinal());
+        ret = set(ret, ROUND + 1, is2.getRound().ordinal());
+        ret = set(ret, REMAINING, is1.getRemainingMoney());
+        return set(ret, REMAINING + 1, is2.getRemainingMoney());
+    }
+
+    @Override
+    public String toString() {
+        return "CompactGame{" + gameDesc + "}";
+    }
+}
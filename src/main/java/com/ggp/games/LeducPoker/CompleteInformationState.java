@@ -13,7 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public class CompleteInformationState implements ICompleteInformationState {
+public class CompleteInformationState implements ICompleteInformationState, ICompactGame.IProvider {
     private static final long serialVersionUID = 1L;
     private final InformationSet player1IS;
     private final InformationSet player2IS;
@@ -221,6 +221,11 @@ public class CompleteInformationState implements ICompleteInformationState {
         return new UniformRandomNode(getLegalActions());
     }
 
+    @Override
+    public ICompactGame getCompactGame() {
+        return player1IS.getGameDesc().getCompactGame();
+    }
+
     @Override
     public String toString() {
         InformationSet is1 = player1IS, is2 = player2IS;
@@ -12,6 +12,8 @@ public class GameDescription implements IGameDescription {
     private final int betsPerRound;
     private final int cardsPerSuite;
     private final CompleteInformationState initialState;
+    private transient CompactGame compactGame;
+    private transient boolean compactGameCreated;
 
     public GameDescription(int startingMoney) {
         this(startingMoney, startingMoney, 1, 3);
@@ -84,4 +86,16 @@ public class GameDescription implements IGameDescription {
     public int getCardsPerSuite() {
         return cardsPerSuite;
     }
+
+    /**
+     * Get compact representation of the game.
+     * @return compact game or null if the game's parameters are too large
+     */
+    public synchronized CompactGame getCompactGame() {
+        if (!compactGameCreated) {
+            compactGame = CompactGame.create(this);
+            compactGameCreated = true;
+        }
+        return compactGame;
+    }
 }
@@ -167,8 +167,8 @@ public class InformationSet implements IInformationSet {
                 raisesUsedThisRound == that.raisesUsedThisRound &&
                 foldedByPlayer == that.foldedByPlayer &&
                 Objects.equals(gameDesc, that.gameDesc) &&
-                privateCard == that.privateCard &&
-                publicCard == that.publicCard &&
+                Objects.equals(privateCard, that.privateCard) &&
+                Objects.equals(publicCard, that.publicCard) &&
                 round == that.round;
     }
 
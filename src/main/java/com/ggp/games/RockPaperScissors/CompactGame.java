@@ -0,0 +1,101 @@
+package com.ggp.games.RockPaperScissors;
+
+import com.ggp.ICompactGame;
+import com.ggp.ICompleteInformationState;
+
+/**
+ * Compact representation of RPS, lower and upper 32 bits hold the choice of player 1 and 2 (0 if not chosen yet).
+ */
+public class CompactGame implements ICompactGame {
+    private static final long serialVersionUID = 1L;
+    private static final long CHOICE_MASK = 0xFFFFFFFFL;
+    private final int size;
+
+    public CompactGame(int size) {
+        this.size = size;
+    }
+
+    private static int getChoice(long state, int player) {
+        return (int) ((state >>> (32 * (player - 1))) & CHOICE_MASK);
+    }
+
+    @Override
+    public long getInitialState() {
+        return 0;
+    }
+
+    @Override
+    public boolean isTerminal(long state) {
+        return getChoice(state, 2) != 0;
+    }
+
+    @Override
+    public int getActingPlayerId(long state) {
+        if (getChoice(state, 1) == 0) return 1;
+        if (getChoice(state, 2) == 0) return 2;
+        return 0;
+    }
+
+    @Override
+    public double getPayoff(long state, int player) {
+        if (!isTerminal(state) || player < 1 || player > 2) return 0;
+        int p1 = getChoice(state, 1), p2 = getChoice(state, 2);
+        if (p1 == p2) return 0;
+        int lookahead = (size-1)/2;
+        int winner = 1;
+        if ((p1 < p2 && p2 - p1 > lookahead) || (p2 < p1 && p1 - p2 <= lookahead)) {
+            winner = 2;
+        }
+        if (player == winner) return 1;
+        return -1;
+    }
+
+    @Override
+    public int getActionCount(long state) {
+        return size;
+    }
+
+    @Override
+    public long next(long state, int actionIdx) {
+        return state | ((long) (actionIdx + 1) << (32 * (getActingPlayerId(state) - 1)));
+    }
+
+    @Override
+    public double getRandomActionProb(long state, int actionIdx) {
+        return 0;
+    }
+
+    @Override
+    public long getInfoSetKey(long state, int player) {
+        return ((long) player << 32) | getChoice(state, player);
+    }
+
+    @Override
+    public InformationSet getInfoSet(long state, int player) {
+        int choice = getChoice(state, player);
+        return new InformationSet(player, choice == 0 ? null : new ChooseAction(choice), size);
+    }
+
+    @Override
+    public ICompleteInformationState toState(long state) {
+        return new CompleteInformationState(getInfoSet(state, 1), getInfoSet(state, 2));
+    }
+
+    @Override
+    public long fromState(ICompleteInformationState state) {
+        if (state == null || state.getClass() != CompleteInformationState.class || ((CompleteInformationState) state).getSize() != size) {
+            throw new IllegalArgumentException("State doesn't belong to " + this + "!");
+        }
+        long ret = 0;
+        for (int player = 1; player <= 2; ++player) {
+            ChooseAction a = ((InformationSet) state.getInfoSetForPlayer(player)).getChosenAction();
+            if (a != null) ret |= ((long) a.getChosen()) << (32 * (player - 1));
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactGame{RockPaperScissors{" + size + "}}";
+    }
+}
@@ -6,7 +6,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
-public class CompleteInformationState implements ICompleteInformationState {
+public class CompleteInformationState implements ICompleteInformationState, ICompactGame.IProvider {
     private static final long serialVersionUID = 1L;
     private InformationSet player1IS, player2IS;
 
@@ -94,4 +94,9 @@ public class CompleteInformationState implements ICompleteInformationState {
     public int getSize() {
         return player1IS.getSize();
     }
+
+    @Override
+    public ICompactGame getCompactGame() {
+        return new CompactGame(getSize());
+    }
 }
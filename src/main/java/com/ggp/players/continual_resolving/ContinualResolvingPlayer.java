@@ -21,6 +21,9 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
         private static final long serialVersionUID = 1L;
         private ISubgameResolver.IFactory resolverFactory;
         private ArrayList<IEvaluablePlayer.IListener> resolvingListeners = new ArrayList<>();
+        private boolean ponder = false;
+        private boolean warmStart = false;
+        private long subgameCacheSize = 0;
 
         public Factory(ISubgameResolver.IFactory resolverFactory) {
             if (resolverFactory == null) {
@@ -36,9 +39,47 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
             }
         }
 
+        /**
+         * Set whether created players resolve likely next subgames while waiting for the opponent.
+         * @param ponder
+         * @return this factory
+         */
+        public Factory setPonder(boolean ponder) {
+            this.ponder = ponder;
+            return this;
+        }
+
+        /**
+         * Set whether resolving of a new subgame continues from the previous subgame's solver.
+         * @param warmStart
+         * @return this factory
+         */
+        public Factory setWarmStart(boolean warmStart) {
+            this.warmStart = warmStart;
+            return this;
+        }
+
+        /**
+         * Set size of the default resolver's cache of subgame structure, see
+         * {@link ExternalCFRResolver.Factory#setSubgameCacheSize(long)}.
+         * @param size maximum total number of cached states, 0 disables the cache
+         * @return this factory
+         */
+        public Factory setSubgameCacheSize(long size) {
+            if (size == subgameCacheSize) return this;
+            if (!(resolverFactory instanceof ExternalCFRResolver.Factory)) {
+                throw new IllegalStateException("Subgame cache is only supported by the default resolver!");
+            }
+            ((ExternalCFRResolver.Factory) resolverFactory).setSubgameCacheSize(size);
+            this.subgameCacheSize = size;
+            return this;
+        }
+
         @Override
         public ContinualResolvingPlayer create(IGameDescription game, int role) {
             ContinualResolvingPlayer ret = new ContinualResolvingPlayer(role, game, resolverFactory);
+            ret.ponder = ponder;
+            ret.warmStart = warmStart;
             for (IListener l: resolvingListeners) {
                 if (l != null) ret.registerResolvingListener(l);
             }
@@ -59,6 +100,9 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
         public String getConfigString() {
             return "ContinualResolving{" +
                         resolverFactory.getConfigString() +
+                        (ponder ? ",ponder=true" : "") +
+                        (warmStart ? ",ws=true" : "") +
+                        (subgameCacheSize > 0 ? ",sgc=" + subgameCacheSize : "") +
                     '}';
         }
     }
@@ -78,6 +122,127 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
     private RandomSampler sampler = new RandomSampler();
     private ISubgameResolver currentResolver = null;
     private IInfoSetStrategy isStrat = null;
+    private boolean ponder = false;
+    private boolean warmStart = false;
+    private long lastTimeoutMillis = 0;
+    private Pondering pondering = null;
+
+    /**
+     * Number of the most likely next subgames which are resolved while waiting for the opponent.
+     */
+    private static final int MAX_PONDERED_SUBGAMES = 3;
+    /**
+     * Pondered subgames are resolved round-robin in slices of this length.
+     */
+    private static final long PONDERING_SLICE_NS = 20000000L;
+
+    /**
+     * Resolves likely next subgames on a background thread.
+     *
+     * Once the percepts determine the entered subgame ({@link #narrow}), only that subgame is resolved. The resolvers are only accessed by the background thread until {@link #stop} returns.
+     */
+    private class Pondering implements Runnable {
+        private final List<Set<ICompleteInformationState>> subgames;
+        private final IdentityHashMap<Set<ICompleteInformationState>, ISubgameResolver> resolvers = new IdentityHashMap<>();
+        private final IInformationSet hiddenInfo;
+        private final HashMap<IInformationSet, Double> opponentCFV;
+        private final HashMap<ICompleteInformationState, Double> reachProbs;
+        private final double cfvNorm;
+        private final double reachProbsNorm;
+        private final long endNs;
+        private final Thread thread;
+        private volatile boolean stopped = false;
+        /**
+         * Subgame which was entered according to the percepts, the others are dropped by the background thread.
+         */
+        private volatile Set<ICompleteInformationState> enteredSubgame = null;
+        private boolean failed = false;
+
+        Pondering(List<Set<ICompleteInformationState>> subgames, long timeLimitMillis) {
+            this.subgames = new ArrayList<>(subgames);
+            this.hiddenInfo = ContinualResolvingPlayer.this.hiddenInfo;
+            this.opponentCFV = new HashMap<>(ContinualResolvingPlayer.this.opponentCFV);
+            this.reachProbs = new HashMap<>(ContinualResolvingPlayer.this.reachProbs);
+            this.cfvNorm = ContinualResolvingPlayer.this.cfvNorm;
+            this.reachProbsNorm = ContinualResolvingPlayer.this.reachProbsNorm;
+            this.endNs = System.nanoTime() + timeLimitMillis * 1000000L;
+            this.thread = new Thread(this, "continual-resolving-pondering");
+            this.thread.setDaemon(true);
+        }
+
+        private boolean shouldStop() {
+            return stopped || System.nanoTime() >= endNs;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!subgames.isEmpty() && !shouldStop()) {
+                    final Set<ICompleteInformationState> entered = enteredSubgame;
+                    if (entered != null) keepOnly(entered);
+                    Iterator<Set<ICompleteInformationState>> it = subgames.iterator();
+                    while (it.hasNext() && !shouldStop() && enteredSubgame == entered) {
+                        Set<ICompleteInformationState> subgame = it.next();
+                        ISubgameResolver resolver = resolvers.computeIfAbsent(subgame, k -> resolverFactory.create(id, hiddenInfo,
+                                new CISRange(subgame, reachProbs, reachProbsNorm), opponentCFV, cfvNorm, resolvingListeners));
+                        final long sliceEnd = System.nanoTime() + PONDERING_SLICE_NS;
+                        if (!resolver.ponder(() -> shouldStop() || System.nanoTime() >= sliceEnd || enteredSubgame != entered)) {
+                            resolvers.remove(subgame).close();
+                            it.remove();
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                // partially resolved subgames may be inconsistent, resolve them from scratch
+                System.err.println("Pondering failed, subgames will be resolved from scratch: " + e);
+                e.printStackTrace();
+                failed = true;
+            }
+        }
+
+        private void keepOnly(Set<ICompleteInformationState> subgame) {
+            if (subgames.size() == 1 && subgames.get(0) == subgame) return;
+            ISubgameResolver kept = resolvers.remove(subgame);
+            resolvers.values().forEach(ISubgameResolver::close);
+            resolvers.clear();
+            if (kept != null) resolvers.put(subgame, kept);
+            subgames.clear();
+            subgames.add(subgame);
+        }
+
+        /**
+         * Resolve only given subgame from now on, it doesn't have to be one of the pondered subgames.
+         * @param subgame subgame entered according to the percepts
+         */
+        void narrow(Set<ICompleteInformationState> subgame) {
+            enteredSubgame = subgame;
+        }
+
+        /**
+         * Stop pondering and wait for the background thread.
+         * @param subgame entered subgame or null to close all resolvers
+         * @return resolver which already worked on the subgame or null
+         */
+        ISubgameResolver stop(Set<ICompleteInformationState> subgame) {
+            stopped = true;
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    // the resolvers can only be closed once the background thread is done with them
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            ISubgameResolver ret = (failed || subgame == null) ? null : resolvers.get(subgame);
+            resolvers.forEach((k, resolver) -> {
+                if (resolver != ret) resolver.close();
+            });
+            return ret;
+        }
+    }
 
     private ContinualResolvingPlayer(ContinualResolvingPlayer other) {
         this.id = other.id;
@@ -94,6 +259,9 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
         this.subgameMap = other.subgameMap;
         this.currentResolver = other.currentResolver == null ? null : other.currentResolver.copy(this.resolvingListeners);
         this.isStrat = other.isStrat == null ? null : new InfoSetStrategy(other.isStrat);
+        this.ponder = other.ponder;
+        this.warmStart = other.warmStart;
+        this.lastTimeoutMillis = other.lastTimeoutMillis;
     }
 
     public ContinualResolvingPlayer(int id, IGameDescription gameDesc, ISubgameResolver.IFactory resolverFactory) {
@@ -141,13 +309,25 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
     public void computeStrategy(long timeoutMillis) {
         IterationTimer timer = new IterationTimer(timeoutMillis);
         timer.start();
-        if (subgameMap != null) {
-            Set<ICompleteInformationState> subgame = subgameMap.getSubgame(hiddenInfo);
-            if (subgame != null) {
-                // entering new subgame
-                range = new CISRange(subgameMap.getSubgame(hiddenInfo), reachProbs, reachProbsNorm);
+        lastTimeoutMillis = timeoutMillis;
+        Set<ICompleteInformationState> subgame = subgameMap == null ? null : subgameMap.getSubgame(hiddenInfo);
+        ISubgameResolver ponderedResolver = null;
+        if (pondering != null) {
+            ponderedResolver = pondering.stop(subgame);
+            pondering = null;
+        }
+        if (subgame != null) {
+            // entering new subgame
+            range = new CISRange(subgame, reachProbs, reachProbsNorm);
+            ISubgameResolver previousResolver = currentResolver;
+            if (ponderedResolver != null) {
+                currentResolver = ponderedResolver;
+            } else {
                 currentResolver = createResolver();
+                if (warmStart && previousResolver != null) currentResolver.warmStart(previousResolver);
             }
+            // warm start keeps its own copy of the solver
+            if (previousResolver != null) previousResolver.close();
         }
 
         ISubgameResolver.ActResult res = currentResolver.act(timer, hiddenInfo);
@@ -161,9 +341,25 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
 
     @Override
     public ContinualResolvingPlayer copy() {
+        // pondered subgames are derived from this player's state, they can't be collected by the copy
+        stopPondering();
         return new ContinualResolvingPlayer(this);
     }
 
+    private void stopPondering() {
+        if (pondering == null) return;
+        pondering.stop(null);
+        pondering = null;
+    }
+
+    /**
+     * Stop pondering and release the pondered resolvers.
+     */
+    @Override
+    public void close() {
+        stopPondering();
+    }
+
     private IAction act(IAction forcedAction, long timeoutMillis) {
         computeStrategy(timeoutMillis);
         IAction selectedAction;
@@ -174,6 +370,7 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
         }
 
         actWithPrecomputedStrategy(selectedAction);
+        if (ponder) startPondering();
         return selectedAction;
     }
 
@@ -183,6 +380,32 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
         isStrat = null;
     }
 
+    /**
+     * Start resolving the most likely next subgames in the background, until the next {@link #computeStrategy} or
+     * for as long as the last move took.
+     *
+     * Only started when the player acts on its own, callers of {@link #actWithPrecomputedStrategy} may not compute
+     * strategy on this instance again.
+     */
+    private void startPondering() {
+        if (subgameMap == null || reachProbs == null || opponentCFV == null) return;
+        ArrayList<Set<ICompleteInformationState>> subgames = new ArrayList<>(subgameMap.getSubgames());
+        if (subgames.isEmpty()) return;
+        // my own action is already known, but it can't be matched with subgame states in general, so the subgames
+        // are ranked by their reach probability
+        IdentityHashMap<Set<ICompleteInformationState>, Double> reach = new IdentityHashMap<>();
+        for (Set<ICompleteInformationState> subgame: subgames) {
+            double sum = 0;
+            for (ICompleteInformationState s: subgame) {
+                sum += reachProbs.getOrDefault(s, 0d);
+            }
+            reach.put(subgame, sum);
+        }
+        subgames.sort((a, b) -> Double.compare(reach.get(b), reach.get(a)));
+        pondering = new Pondering(subgames.subList(0, Math.min(MAX_PONDERED_SUBGAMES, subgames.size())), lastTimeoutMillis);
+        pondering.thread.start();
+    }
+
     @Override
     public void forceAction(IAction forcedAction, long timeoutMillis) {
         act(forcedAction, timeoutMillis);
@@ -197,6 +420,10 @@ public class ContinualResolvingPlayer implements IEvaluablePlayer {
     public void receivePercepts(IPercept percept) {
         hiddenInfo = hiddenInfo.applyPercept(percept);
         isStrat = null;
+        if (pondering != null && subgameMap != null) {
+            Set<ICompleteInformationState> subgame = subgameMap.getSubgame(hiddenInfo);
+            if (subgame != null) pondering.narrow(subgame);
+        }
     }
 
     @Override
@@ -7,6 +7,7 @@ import com.ggp.utils.time.IterationTimer;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.function.BooleanSupplier;
 
 public interface ISubgameResolver {
     interface IFactory {
@@ -38,4 +39,34 @@ public interface ISubgameResolver {
     void init(ICompleteInformationState initialState, IterationTimer timeout);
     ISubgameResolver copy(ArrayList<IEvaluablePlayer.IListener> resolvingListeners);
     IEvaluablePlayer.IResolvingInfo getResolvingInfo();
+
+    /**
+     * Resolve the subgame in advance, before hidden info of the first {@link #act} is known.
+     *
+     * Can be called repeatedly from a background thread before the first act, the work is kept by the act. Resolving
+     * listeners aren't notified.
+     * @param stop checked between iterations
+     * @return false if the resolver doesn't support pondering
+     */
+    default boolean ponder(BooleanSupplier stop) {
+        return false;
+    }
+
+    /**
+     * Continue from the solving data of the previous subgame's resolver instead of starting from scratch.
+     *
+     * Has to be called before the first {@link #act}.
+     * @param previous resolver of the previous subgame
+     * @return false if the resolver can't continue from given resolver
+     */
+    default boolean warmStart(ISubgameResolver previous) {
+        return false;
+    }
+
+    /**
+     * Release resources held by the resolver, e.g. solver's mapped files. The resolver and its results must not be
+     * used afterwards, copies aren't affected.
+     */
+    default void close() {
+    }
 }
@@ -17,7 +17,11 @@ public class CFRDGadgetRoot implements ICompleteInformationState {
     private double opponentCFVNorm;
     private int opponentId;
     private final List<IAction> legalActions;
-    private final HashMap<IInformationSet, Double> opponentIsReachProbs;
+    /**
+     * Opponent's payoff for terminating the game instead of following into each state of the range, indexed by
+     * the range's ordinals.
+     */
+    private final double[] opponentTerminalValues;
 
     public CFRDGadgetRoot(CISRange range, Map<IInformationSet, Double> opponentCFV, double opponentCFVNorm, int opponentId) {
         this.range = range;
@@ -25,14 +29,22 @@ public class CFRDGadgetRoot implements ICompleteInformationState {
         this.opponentCFVNorm = opponentCFVNorm;
         this.opponentId = opponentId;
 
-        this.opponentIsReachProbs = new HashMap<>();
-        ArrayList<IAction> legalActions = new ArrayList<>(range.size());
-        for (Map.Entry<ICompleteInformationState, Double> entry: range.getProbabilities()) {
-            ICompleteInformationState s = entry.getKey();
-            legalActions.add(new SelectCISAction(s, entry.getValue()/range.getNorm()));
-            this.opponentIsReachProbs.merge(((CFRDAugmentedCISWrapper)s).getOpponentsAugmentedIS(), entry.getValue(), (oldV, newV) -> oldV + newV);
+        final int size = range.size();
+        HashMap<IInformationSet, Double> opponentIsReachProbs = new HashMap<>();
+        ArrayList<IAction> legalActions = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            ICompleteInformationState s = range.getState(i);
+            legalActions.add(new SelectCISAction(s, range.getProbability(i)/range.getNorm(), i));
+            opponentIsReachProbs.merge(((CFRDAugmentedCISWrapper)s).getOpponentsAugmentedIS(), range.getProbability(i), (oldV, newV) -> oldV + newV);
         }
         this.legalActions = Collections.unmodifiableList(legalActions);
+        this.opponentTerminalValues = new double[size];
+        for (int i = 0; i < size; ++i) {
+            CFRDAugmentedIS is = ((CFRDAugmentedCISWrapper)range.getState(i)).getOpponentsAugmentedIS();
+            double isReachProb = opponentIsReachProbs.get(is);
+            if (isReachProb == 0) isReachProb = 1;
+            opponentTerminalValues[i] = opponentCFV.get(is)/opponentCFVNorm/isReachProb;
+        }
     }
 
     @Override
@@ -62,17 +74,19 @@ public class CFRDGadgetRoot implements ICompleteInformationState {
 
     @Override
     public boolean isLegal(IAction a) {
-        return a != null && a.getClass() == SelectCISAction.class && range.getPossibleStates().contains(((SelectCISAction)a).getSelectedState());
+        return a != null && a.getClass() == SelectCISAction.class && range.getIndex(((SelectCISAction)a).getSelectedState()) >= 0;
     }
 
     @Override
     public ICompleteInformationState next(IAction a) {
         SelectCISAction sel = (SelectCISAction) a;
         ICompleteInformationState s = sel.getSelectedState();
-        CFRDAugmentedIS is = ((CFRDAugmentedCISWrapper)s).getOpponentsAugmentedIS();
-        double isReachProb = opponentIsReachProbs.get(is);
-        if (isReachProb == 0) isReachProb = 1;
-        return new OpponentsChoiceState(s, opponentId, opponentCFV.get(is)/opponentCFVNorm/isReachProb);
+        int idx = sel.getIdx();
+        // actions which weren't created by this root have to be looked up
+        if (idx < 0 || idx >= legalActions.size() || ((SelectCISAction) legalActions.get(idx)).getSelectedState() != s) {
+            idx = range.getIndex(s);
+        }
+        return new OpponentsChoiceState(s, opponentId, opponentTerminalValues[idx]);
     }
 
     @Override
@@ -10,10 +10,22 @@ public class SelectCISAction implements IAction, IRandomNode.IRandomNodeAction {
     private static final long serialVersionUID = 1L;
     private ICompleteInformationState selectedState;
     private double prob;
+    private int idx;
 
     public SelectCISAction(ICompleteInformationState selectedState, double prob) {
+        this(selectedState, prob, -1);
+    }
+
+    /**
+     * Constructor
+     * @param selectedState
+     * @param prob
+     * @param idx ordinal of the state in the range it was selected from, isn't part of the equality
+     */
+    public SelectCISAction(ICompleteInformationState selectedState, double prob, int idx) {
         this.selectedState = selectedState;
         this.prob = prob;
+        this.idx = idx;
     }
 
     @Override
@@ -34,6 +46,14 @@ public class SelectCISAction implements IAction, IRandomNode.IRandomNodeAction {
         return selectedState;
     }
 
+    /**
+     * Get ordinal of the state in the range it was selected from.
+     * @return ordinal or -1 if unknown
+     */
+    public int getIdx() {
+        return idx;
+    }
+
     @Override
     public double getProb() {
         return prob;
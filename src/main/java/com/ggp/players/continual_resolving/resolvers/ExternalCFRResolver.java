@@ -20,20 +20,40 @@ import com.ggp.utils.strategy.RestrictedStrategy;
 import com.ggp.utils.time.IterationTimer;
 
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
+/**
+ * Resolves subgames by running a CFR solver on the CFR-D gadget.
+ *
+ * Resolving runs on multiple threads when the solver does (e.g. CFR or MC-CFR with par > 1): solver's workers share
+ * its IS table and the values for the next subgames are accumulated concurrently.
+ */
 public class ExternalCFRResolver implements ISubgameResolver {
     public static class Factory implements IFactory {
         private BaseCFRSolver.Factory solverFactory;
+        private SubgameCache subgameCache = null;
 
         public Factory(BaseCFRSolver.Factory solverFactory) {
             this.solverFactory = solverFactory;
         }
 
+        /**
+         * Set size of the cache of subgame structure, which is shared by all resolvers created by this factory.
+         * The cache is disabled by default.
+         * @param size maximum total number of cached states, 0 disables the cache
+         * @return this factory
+         */
+        public Factory setSubgameCacheSize(long size) {
+            this.subgameCache = (size > 0) ? new SubgameCache(size) : null;
+            return this;
+        }
+
         @Override
         public ISubgameResolver create(int myId, IInformationSet hiddenInfo, CISRange myRange, HashMap<IInformationSet, Double> opponentCFV,
                                        double opponentCfvNorm, ArrayList<IEvaluablePlayer.IListener> resolvingListeners)
         {
-            return new ExternalCFRResolver(myId, hiddenInfo, myRange, opponentCFV, opponentCfvNorm, resolvingListeners, solverFactory);
+            return new ExternalCFRResolver(myId, hiddenInfo, myRange, opponentCFV, opponentCfvNorm, resolvingListeners,
+                    solverFactory, subgameCache);
         }
 
         @Override
@@ -52,11 +72,15 @@ public class ExternalCFRResolver implements ISubgameResolver {
     private final int opponentId;
 
     private BaseCFRSolver.Factory solverFactory;
+    private final SubgameCache subgameCache;
     private SubgameMap subgameMap;
-    private HashMap<IInformationSet, Double> nextOpponentCFV = new HashMap<>();
-    private HashMap<ICompleteInformationState, Double> nextReachProbs = new HashMap<>();
+    private NextSubgameValues nextSubgameValues = new NextSubgameValues();
     private IStrategy cummulativeStrategy;
     private BaseCFRSolver cfrSolver = null;
+    /**
+     * Copy of the previous subgame's solver which will be used instead of a new one.
+     */
+    private BaseCFRSolver warmStartSolver = null;
     private long visitedStates = 0;
     private long iters = 0;
     private CFRDTracker rootTracker = null;
@@ -96,6 +120,24 @@ public class ExternalCFRResolver implements ISubgameResolver {
     public ExternalCFRResolver(int myId, IInformationSet hiddenInfo, CISRange range, HashMap<IInformationSet, Double> opponentCFV,
                                double opponentCFVNorm, ArrayList<IEvaluablePlayer.IListener> resolvingListeners,
                                BaseCFRSolver.Factory solverFactory)
+    {
+        this(myId, hiddenInfo, range, opponentCFV, opponentCFVNorm, resolvingListeners, solverFactory, null);
+    }
+
+    /**
+     * Constructor
+     * @param myId
+     * @param hiddenInfo
+     * @param range
+     * @param opponentCFV
+     * @param opponentCFVNorm
+     * @param resolvingListeners
+     * @param solverFactory
+     * @param subgameCache cache of the walks to the next subgames or null
+     */
+    public ExternalCFRResolver(int myId, IInformationSet hiddenInfo, CISRange range, HashMap<IInformationSet, Double> opponentCFV,
+                               double opponentCFVNorm, ArrayList<IEvaluablePlayer.IListener> resolvingListeners,
+                               BaseCFRSolver.Factory solverFactory, SubgameCache subgameCache)
     {
         this.myId = myId;
         this.hiddenInfo = hiddenInfo;
@@ -106,6 +148,7 @@ public class ExternalCFRResolver implements ISubgameResolver {
         if (this.resolvingListeners == null) this.resolvingListeners = new ArrayList<>();
         this.opponentId = PlayerHelpers.getOpponentId(myId);
         this.solverFactory = solverFactory;
+        this.subgameCache = subgameCache;
         this.subgameMap = new SubgameMap(opponentId);
     }
 
@@ -118,10 +161,13 @@ public class ExternalCFRResolver implements ISubgameResolver {
         this.resolvingListeners = null;
         this.opponentId = other.opponentId;
         this.solverFactory = other.solverFactory;
+        this.subgameCache = other.subgameCache;
         this.subgameMap = other.subgameMap;
-        this.nextOpponentCFV = new HashMap<>(other.nextOpponentCFV);
-        this.nextReachProbs = new HashMap<>(other.nextReachProbs);
+        this.nextSubgameValues = other.nextSubgameValues.copy();
         this.cfrSolver = other.cfrSolver.copy();
+        // copied listener would update the original's accumulators
+        this.cfrSolver.clearListeners();
+        this.cfrSolver.registerListener(new NextSubgameListener());
         this.cummulativeStrategy = this.cfrSolver.getCumulativeStrat();
         this.visitedStates = other.visitedStates;
         this.iters = other.iters;
@@ -129,45 +175,80 @@ public class ExternalCFRResolver implements ISubgameResolver {
         this.subgameActDepth = other.subgameActDepth;
         this.subgameActingIs = null; // will re-create automatically if necessary
         this.useISTargeting = other.useISTargeting;
+        this.warmStartSolver = other.warmStartSolver == null ? null : other.warmStartSolver.copy();
     }
 
-    private BaseCFRSolver createSolver() {
-        cfrSolver = solverFactory.create(null);
+    /**
+     * Accumulates opponent's CFVs and my reach probabilities of the next subgames' roots.
+     */
+    private class NextSubgameListener implements BaseCFRSolver.IListener {
+        @Override
+        public void enteringState(IGameTraversalTracker tracker, BaseCFRSolver.Info info) {
+        }
 
-        cfrSolver.registerListener(new BaseCFRSolver.IListener() {
-            @Override
-            public void enteringState(IGameTraversalTracker tracker, BaseCFRSolver.Info info) {
-            }
+        @Override
+        public void leavingState(IGameTraversalTracker tracker, BaseCFRSolver.Info info, double p1Utility) {
+            double probWithoutOpponent = info.rndProb * PlayerHelpers.selectByPlayerId(myId, info.reachProb1, info.reachProb2);
+            double playerMul = PlayerHelpers.selectByPlayerId(myId, -1, 1);
+            IInformationSet oppIs = ((CFRDAugmentedCISWrapper)tracker.getCurrentState()).getOpponentsAugmentedIS();
+            nextSubgameValues.add(tracker.getCurrentState(), oppIs, probWithoutOpponent/info.stateSamplingProb,
+                    probWithoutOpponent * playerMul * p1Utility);
+        }
 
-            @Override
-            public void leavingState(IGameTraversalTracker t, BaseCFRSolver.Info info, double p1Utility) {
-                CFRDTracker tracker = (CFRDTracker) t;
-                if (tracker.wasMyFirstTurnReached() && tracker.isSubgameRoot()) {
-                    double probWithoutOpponent = info.rndProb * PlayerHelpers.selectByPlayerId(myId, info.reachProb1, info.reachProb2);
-                    double playerMul = PlayerHelpers.selectByPlayerId(myId, -1, 1);
-                    IInformationSet oppIs = ((CFRDAugmentedCISWrapper)tracker.getCurrentState()).getOpponentsAugmentedIS();
-                    double oppCFV = probWithoutOpponent * playerMul * p1Utility;
-                    nextOpponentCFV.computeIfPresent(oppIs, (k, oldV) -> oldV + oppCFV);
-                    nextReachProbs.computeIfPresent(tracker.getCurrentState(), (k, oldV) -> oldV + probWithoutOpponent/info.stateSamplingProb);
-                }
-            }
-        });
+        @Override
+        public boolean needsEnteringState() {
+            return false;
+        }
+
+        @Override
+        public boolean isObservedState(IGameTraversalTracker t) {
+            // only next subgame's roots are needed
+            CFRDTracker tracker = (CFRDTracker) t;
+            return tracker.wasMyFirstTurnReached() && tracker.isSubgameRoot();
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            // the roots are all added before solving
+            return true;
+        }
+    }
+
+    private BaseCFRSolver createSolver() {
+        if (warmStartSolver != null) {
+            cfrSolver = warmStartSolver;
+            warmStartSolver = null;
+            cfrSolver.clearListeners();
+            cfrSolver.clearVisitedStates();
+        } else {
+            cfrSolver = solverFactory.create(null);
+        }
+
+        cfrSolver.registerListener(new NextSubgameListener());
         cummulativeStrategy = cfrSolver.getCumulativeStrat();
         return cfrSolver;
     }
 
     protected void findMyNextTurn(CFRDTracker tracker, ArrayList<ActionIdxWrapper> actionPath, ObjectTree<ActionIdxWrapper> currentPathTree) {
         ICompleteInformationState s = tracker.getCurrentState();
+        if (subgameCache != null && s instanceof CFRDAugmentedCISWrapper) {
+            // first state of the original game, the walk from here doesn't depend on the rest of the subgame
+            boolean withPaths = (actionPath != null);
+            SubgameCache.Entry entry = subgameCache.get(s, myId, withPaths);
+            if (entry == null) {
+                entry = subgameCache.add(tracker, withPaths);
+                visitedStates += entry.getVisitedStates();
+            }
+            addNextSubgames(entry, actionPath, currentPathTree);
+            return;
+        }
         visitedStates++;
         if (s.isTerminal()) return;
         if (actionPath != null && s.getActingPlayerId() == myId && s.getInfoSetForActingPlayer().equals(hiddenInfo)) {
             currentPathTree.addPath(actionPath);
         }
         if (tracker.wasMyNextTurnReached()) {
-            ICompleteInformationState uf = tracker.getLastSubgameRoot();
-            subgameMap.addSubgameState(tracker.getCurrentState(), uf);
-            nextOpponentCFV.putIfAbsent(((CFRDAugmentedCISWrapper)uf).getOpponentsAugmentedIS(), 0d);
-            nextReachProbs.putIfAbsent(uf, 0d);
+            addNextSubgameState(tracker.getCurrentState(), tracker.getLastSubgameRoot());
             return;
         }
         int actionIdx = 0;
@@ -179,6 +260,24 @@ public class ExternalCFRResolver implements ISubgameResolver {
         }
     }
 
+    private void addNextSubgameState(ICompleteInformationState s, ICompleteInformationState uf) {
+        subgameMap.addSubgameState(s, uf);
+        nextSubgameValues.addRoot(uf, ((CFRDAugmentedCISWrapper)uf).getOpponentsAugmentedIS());
+    }
+
+    private void addNextSubgames(SubgameCache.Entry entry, ArrayList<ActionIdxWrapper> actionPath, ObjectTree<ActionIdxWrapper> currentPathTree) {
+        List<ICompleteInformationState> states = entry.getNextTurnStates(), roots = entry.getNextSubgameRoots();
+        for (int i = 0; i < states.size(); ++i) {
+            addNextSubgameState(states.get(i), roots.get(i));
+        }
+        if (actionPath == null) return;
+        for (List<ActionIdxWrapper> path: entry.getMyTurnPaths(hiddenInfo)) {
+            ArrayList<ActionIdxWrapper> fullPath = new ArrayList<>(actionPath);
+            fullPath.addAll(path);
+            currentPathTree.addPath(fullPath);
+        }
+    }
+
     private void findMySubgameTurn(CFRDTracker tracker, int turns) {
         ICompleteInformationState s = tracker.getCurrentState();
         // when next subgame is reached, any state where I act will be re-solved in another subgame
@@ -199,6 +298,7 @@ public class ExternalCFRResolver implements ISubgameResolver {
         ICompleteInformationState subgame = new CFRDGadgetRoot(range, opponentCFV, opponentCFVNorm, opponentId);
         CFRDTracker tracker = CFRDTracker.create(myId, subgame, range.getNorm());
         findMyNextTurn(tracker, useISTargeting ? new ArrayList<>() : null, currentPathTree);
+        nextSubgameValues.prepare();
         return tracker;
     }
 
@@ -215,7 +315,7 @@ public class ExternalCFRResolver implements ISubgameResolver {
 
             runWithPausedTimer(timeout, () -> resolvingListeners.forEach(listener -> listener.resolvingIterationEnd(resInfo)));
             timeout.endIteration();
-            iters++;
+            iters += cfrSolver.getIterationsPerRun();
         } while (timeout.canDoAnotherIteration());
     }
 
@@ -242,15 +342,56 @@ public class ExternalCFRResolver implements ISubgameResolver {
         runSolver(timeout);
         runWithPausedTimer(timeout, () -> resolvingListeners.forEach(listener -> listener.resolvingEnd(resInfo)));
 
-        return new ActResult(cfrSolver.getCumulativeStrat(), subgameMap, nextReachProbs, nextOpponentCFV, iters, iters);
+        return new ActResult(cfrSolver.getCumulativeStrat(), subgameMap, nextSubgameValues.getReachProbs(),
+                nextSubgameValues.getOpponentCFV(), iters, iters);
+    }
+
+
+    @Override
+    public boolean ponder(BooleanSupplier stop) {
+        if (cfrSolver == null) {
+            createSolver();
+            if (cfrSolver instanceof ITargetableSolver && ((ITargetableSolver)cfrSolver).wantsTargeting()) {
+                // targeting needs hidden info
+                cfrSolver.close();
+                cfrSolver = null;
+                cummulativeStrategy = null;
+                return false;
+            }
+            rootTracker = prepareDataStructures(null);
+        }
+        while (!stop.getAsBoolean()) {
+            cfrSolver.runIteration(rootTracker);
+            iters += cfrSolver.getIterationsPerRun();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean warmStart(ISubgameResolver previous) {
+        if (cfrSolver != null || !(previous instanceof ExternalCFRResolver)) return false;
+        BaseCFRSolver previousSolver = ((ExternalCFRResolver) previous).cfrSolver;
+        if (previousSolver == null) return false;
+        // IS data is copied on write, IS which aren't in this subgame are kept but never touched
+        warmStartSolver = previousSolver.copy(null);
+        return true;
     }
 
+    @Override
+    public void close() {
+        if (cfrSolver != null) cfrSolver.close();
+        if (warmStartSolver != null) warmStartSolver.close();
+        cfrSolver = null;
+        warmStartSolver = null;
+        cummulativeStrategy = null;
+    }
 
     @Override
     public void init(ICompleteInformationState initialState, IterationTimer timeout) {
         runWithPausedTimer(timeout, () -> resolvingListeners.forEach(listener -> listener.resolvingStart(resInfo)));
         rootTracker = CFRDTracker.create(myId, initialState, 1);
         findMyNextTurn(rootTracker, null, null);
+        nextSubgameValues.prepare();
         createSolver();
         runSolver(timeout);
         runWithPausedTimer(timeout, () -> {
@@ -3,47 +3,100 @@ package com.ggp.players.continual_resolving.utils;
 import com.ggp.ICompleteInformationState;
 
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Probability distribution over subgame root states.
+ *
+ * States are indexed by ordinals from 0 to size - 1, probabilities are stored densely by the ordinals.
+ */
 public class CISRange implements Serializable {
-    private HashMap<ICompleteInformationState, Double> range = new HashMap<>();
+    private final ICompleteInformationState[] states;
+    private final double[] probs;
+    private final HashMap<ICompleteInformationState, Integer> stateIdx;
     private double norm = 1d;
 
     public CISRange(ICompleteInformationState initialState) {
-        range.put(initialState, 1d);
+        states = new ICompleteInformationState[] {initialState};
+        probs = new double[] {1d};
+        stateIdx = new HashMap<>(2);
+        stateIdx.put(initialState, 0);
     }
 
     public CISRange(Set<ICompleteInformationState> subgameStates, Map<ICompleteInformationState, Double> reachProbs, double reachProbNorm) {
+        states = subgameStates.toArray(new ICompleteInformationState[0]);
+        probs = new double[states.length];
+        stateIdx = new HashMap<>(2 * states.length);
         norm = 0;
-        for (ICompleteInformationState s: subgameStates) {
-            double stateReachProb = reachProbs.get(s)/reachProbNorm;
-            range.put(s, stateReachProb);
+        for (int i = 0; i < states.length; ++i) {
+            double stateReachProb = reachProbs.get(states[i])/reachProbNorm;
+            stateIdx.put(states[i], i);
+            probs[i] = stateReachProb;
             norm += stateReachProb;
         }
         if (norm == 0) {
             norm = 1;
-            double prob = 1d / range.size();
-            range.replaceAll((k, v) -> prob);
+            double prob = 1d / states.length;
+            for (int i = 0; i < states.length; ++i) {
+                probs[i] = prob;
+            }
         }
 
     }
 
     public double getProbability(ICompleteInformationState s) {
-        return range.getOrDefault(s, 0d);
+        Integer idx = stateIdx.get(s);
+        if (idx == null) return 0d;
+        return probs[idx];
+    }
+
+    /**
+     * Get ordinal of given state.
+     * @param s
+     * @return ordinal or -1 if the state isn't in the range
+     */
+    public int getIndex(ICompleteInformationState s) {
+        Integer idx = stateIdx.get(s);
+        return idx == null ? -1 : idx;
+    }
+
+    /**
+     * Get state with given ordinal.
+     * @param idx
+     * @return
+     */
+    public ICompleteInformationState getState(int idx) {
+        return states[idx];
+    }
+
+    /**
+     * Get probability of state with given ordinal.
+     * @param idx
+     * @return
+     */
+    public double getProbability(int idx) {
+        return probs[idx];
     }
 
     public Set<ICompleteInformationState> getPossibleStates() {
-        return range.keySet();
+        return Collections.unmodifiableSet(stateIdx.keySet());
     }
 
     public int size() {
-        return range.size();
+        return states.length;
     }
 
     public Set<?extends Map.Entry<ICompleteInformationState, Double>> getProbabilities() {
-        return range.entrySet();
+        LinkedHashSet<Map.Entry<ICompleteInformationState, Double>> ret = new LinkedHashSet<>();
+        for (int i = 0; i < states.length; ++i) {
+            ret.add(new AbstractMap.SimpleImmutableEntry<>(states[i], probs[i]));
+        }
+        return ret;
     }
 
     public double getNorm() {
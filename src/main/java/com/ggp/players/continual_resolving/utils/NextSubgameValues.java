@@ -0,0 +1,155 @@
+package com.ggp.players.continual_resolving.utils;
+
+import com.ggp.ICompleteInformationState;
+import com.ggp.IInformationSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * My reach probabilities and opponent's CFVs of the next subgames' roots.
+ *
+ * Roots and opponent's information sets are given ordinals when they are added and the values are stored in dense
+ * arrays indexed by the ordinals. Once {@link #prepare()} is called, values can be accumulated from multiple threads.
+ */
+public class NextSubgameValues {
+    private final HashMap<ICompleteInformationState, Integer> rootIdx;
+    private final ArrayList<ICompleteInformationState> roots;
+    private final HashMap<IInformationSet, Integer> infoSetIdx;
+    private final ArrayList<IInformationSet> infoSets;
+    /**
+     * Ordinal of opponent's IS for each root or -1 if equal roots were added with different opponent's IS.
+     */
+    private int[] rootInfoSet;
+    // doubles stored as raw long bits, so that they can be updated atomically
+    private AtomicLongArray reachProbs = new AtomicLongArray(0);
+    private AtomicLongArray opponentCFV = new AtomicLongArray(0);
+
+    public NextSubgameValues() {
+        rootIdx = new HashMap<>();
+        roots = new ArrayList<>();
+        infoSetIdx = new HashMap<>();
+        infoSets = new ArrayList<>();
+        rootInfoSet = new int[16];
+    }
+
+    private NextSubgameValues(NextSubgameValues other) {
+        // the index doesn't change once the values are prepared
+        rootIdx = other.rootIdx;
+        roots = other.roots;
+        infoSetIdx = other.infoSetIdx;
+        infoSets = other.infoSets;
+        rootInfoSet = other.rootInfoSet;
+        reachProbs = copy(other.reachProbs);
+        opponentCFV = copy(other.opponentCFV);
+    }
+
+    private static AtomicLongArray copy(AtomicLongArray values) {
+        AtomicLongArray ret = new AtomicLongArray(values.length());
+        for (int i = 0; i < values.length(); ++i) {
+            ret.set(i, values.get(i));
+        }
+        return ret;
+    }
+
+    private static void add(AtomicLongArray values, int idx, double diff) {
+        long old, updated;
+        do {
+            old = values.get(idx);
+            updated = Double.doubleToRawLongBits(Double.longBitsToDouble(old) + diff);
+        } while (!values.compareAndSet(idx, old, updated));
+    }
+
+    /**
+     * Add next subgame's root, roots which were already added are ignored.
+     * @param root
+     * @param opponentIs opponent's augmented IS in the root
+     */
+    public void addRoot(ICompleteInformationState root, IInformationSet opponentIs) {
+        Integer isIdx = infoSetIdx.get(opponentIs);
+        if (isIdx == null) {
+            isIdx = infoSets.size();
+            infoSetIdx.put(opponentIs, isIdx);
+            infoSets.add(opponentIs);
+        }
+        Integer existingIdx = rootIdx.get(root);
+        if (existingIdx != null) {
+            // state equality doesn't have to include the augmented IS
+            if (rootInfoSet[existingIdx] != isIdx) rootInfoSet[existingIdx] = -1;
+            return;
+        }
+        int idx = roots.size();
+        rootIdx.put(root, idx);
+        roots.add(root);
+        if (idx >= rootInfoSet.length) rootInfoSet = Arrays.copyOf(rootInfoSet, 2 * rootInfoSet.length);
+        rootInfoSet[idx] = isIdx;
+    }
+
+    /**
+     * Allocate values for all added roots, values accumulated so far are kept.
+     */
+    public void prepare() {
+        if (reachProbs.length() != roots.size()) {
+            AtomicLongArray newReachProbs = new AtomicLongArray(roots.size());
+            for (int i = 0; i < reachProbs.length(); ++i) newReachProbs.set(i, reachProbs.get(i));
+            reachProbs = newReachProbs;
+        }
+        if (opponentCFV.length() != infoSets.size()) {
+            AtomicLongArray newOpponentCFV = new AtomicLongArray(infoSets.size());
+            for (int i = 0; i < opponentCFV.length(); ++i) newOpponentCFV.set(i, opponentCFV.get(i));
+            opponentCFV = newOpponentCFV;
+        }
+    }
+
+    /**
+     * Accumulate values of a state.
+     *
+     * Reach probability is only accumulated for the roots, opponent's CFV for any state in opponent's IS of some root.
+     * @param s
+     * @param opponentIs opponent's augmented IS in the state
+     * @param reachProb
+     * @param oppCFV
+     */
+    public void add(ICompleteInformationState s, IInformationSet opponentIs, double reachProb, double oppCFV) {
+        Integer idx = rootIdx.get(s);
+        if (idx != null) {
+            add(reachProbs, idx, reachProb);
+            if (rootInfoSet[idx] >= 0) {
+                add(opponentCFV, rootInfoSet[idx], oppCFV);
+                return;
+            }
+        }
+        Integer isIdx = infoSetIdx.get(opponentIs);
+        if (isIdx != null) add(opponentCFV, isIdx, oppCFV);
+    }
+
+    /**
+     * Get my reach probabilities of the roots.
+     * @return
+     */
+    public HashMap<ICompleteInformationState, Double> getReachProbs() {
+        HashMap<ICompleteInformationState, Double> ret = new HashMap<>(2 * roots.size());
+        for (int i = 0; i < roots.size(); ++i) {
+            ret.put(roots.get(i), Double.longBitsToDouble(reachProbs.get(i)));
+        }
+        return ret;
+    }
+
+    /**
+     * Get opponent's CFVs of the information sets in the roots.
+     * @return
+     */
+    public HashMap<IInformationSet, Double> getOpponentCFV() {
+        HashMap<IInformationSet, Double> ret = new HashMap<>(2 * infoSets.size());
+        for (int i = 0; i < infoSets.size(); ++i) {
+            ret.put(infoSets.get(i), Double.longBitsToDouble(opponentCFV.get(i)));
+        }
+        return ret;
+    }
+
+    public NextSubgameValues copy() {
+        return new NextSubgameValues(this);
+    }
+}
@@ -0,0 +1,164 @@
+package com.ggp.players.continual_resolving.utils;
+
+import com.ggp.IAction;
+import com.ggp.ICompleteInformationState;
+import com.ggp.IInformationSet;
+import com.ggp.players.continual_resolving.trackers.CFRDTracker;
+import com.ggp.utils.ActionIdxWrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the game's structure between subgame root states and my next turn.
+ *
+ * The walk from a subgame root state to the next subgames depends only on the state and on the resolving player,
+ * so it can be shared by all subgames which contain the state, including subgames in other games of the same game
+ * description. The size is limited by the total number of states and path actions stored by the entries, entries
+ * aren't evicted, walks which don't fit aren't cached. Thread-safe.
+ */
+public class SubgameCache {
+    /**
+     * Result of the walk from one root state.
+     */
+    public static class Entry {
+        private final ArrayList<ICompleteInformationState> nextTurnStates = new ArrayList<>();
+        private final ArrayList<ICompleteInformationState> nextSubgameRoots = new ArrayList<>();
+        private final HashMap<IInformationSet, List<List<ActionIdxWrapper>>> myTurnPaths;
+        private long visitedStates = 0;
+        // including the root state
+        private long storedStates = 1;
+
+        private Entry(boolean withPaths) {
+            this.myTurnPaths = withPaths ? new HashMap<>() : null;
+        }
+
+        /**
+         * Get states where my next turn is reached.
+         * @return
+         */
+        public List<ICompleteInformationState> getNextTurnStates() {
+            return Collections.unmodifiableList(nextTurnStates);
+        }
+
+        /**
+         * Get roots of the next subgames, in the order of {@link #getNextTurnStates()}.
+         * @return
+         */
+        public List<ICompleteInformationState> getNextSubgameRoots() {
+            return Collections.unmodifiableList(nextSubgameRoots);
+        }
+
+        /**
+         * Get paths from the root state to states where I act in given IS.
+         * @param is
+         * @return
+         */
+        public List<List<ActionIdxWrapper>> getMyTurnPaths(IInformationSet is) {
+            return myTurnPaths.getOrDefault(is, Collections.emptyList());
+        }
+
+        /**
+         * Get number of states visited by the walk.
+         * @return
+         */
+        public long getVisitedStates() {
+            return visitedStates;
+        }
+    }
+
+    private final long maxSize;
+    private final List<ConcurrentHashMap<ICompleteInformationState, Entry>> entries = new ArrayList<>(2);
+    private final AtomicLong cachedStates = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param maxSize maximum total number of states and path actions stored by the cached entries
+     */
+    public SubgameCache(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size can't be negative!");
+        }
+        this.maxSize = maxSize;
+        entries.add(new ConcurrentHashMap<>());
+        entries.add(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Get cached walk from given state.
+     * @param s subgame root state
+     * @param myId resolving player
+     * @param withPaths whether paths to my turns are needed
+     * @return cached walk or null
+     */
+    public Entry get(ICompleteInformationState s, int myId, boolean withPaths) {
+        Entry ret = entries.get(myId - 1).get(s);
+        if (ret == null || (withPaths && ret.myTurnPaths == null)) return null;
+        return ret;
+    }
+
+    /**
+     * Walk the game from tracker's state to my next turn and cache the result if there is space left.
+     * @param tracker tracker in a subgame root state
+     * @param withPaths whether paths to my turns should be collected
+     * @return
+     */
+    public Entry add(CFRDTracker tracker, boolean withPaths) {
+        ConcurrentHashMap<ICompleteInformationState, Entry> playerEntries = entries.get(tracker.getMyId() - 1);
+        ICompleteInformationState s = tracker.getCurrentState();
+        Entry ret = new Entry(withPaths);
+        walk(tracker, ret, withPaths ? new ArrayList<>() : null);
+        // reserve the space first, so that concurrent walks can't exceed the limit
+        long size = cachedStates.addAndGet(ret.storedStates);
+        if (size > maxSize) {
+            cachedStates.addAndGet(-ret.storedStates);
+            return ret;
+        }
+        Entry replaced = playerEntries.put(s, ret);
+        if (replaced != null) cachedStates.addAndGet(-replaced.storedStates);
+        return ret;
+    }
+
+    /**
+     * Get number of cached root states.
+     * @return
+     */
+    public int size() {
+        return entries.get(0).size() + entries.get(1).size();
+    }
+
+    /**
+     * Get total number of states and path actions stored by the cached entries.
+     * @return
+     */
+    public long getCachedStates() {
+        return cachedStates.get();
+    }
+
+    private static void walk(CFRDTracker tracker, Entry entry, ArrayList<ActionIdxWrapper> actionPath) {
+        ICompleteInformationState s = tracker.getCurrentState();
+        entry.visitedStates++;
+        if (s.isTerminal()) return;
+        if (actionPath != null && s.getActingPlayerId() == tracker.getMyId()) {
+            entry.myTurnPaths.computeIfAbsent(s.getInfoSetForActingPlayer(), k -> new ArrayList<>()).add(new ArrayList<>(actionPath));
+            entry.storedStates += actionPath.size();
+        }
+        if (tracker.wasMyNextTurnReached()) {
+            entry.nextTurnStates.add(s);
+            entry.nextSubgameRoots.add(tracker.getLastSubgameRoot());
+            entry.storedStates += 2;
+            return;
+        }
+        int actionIdx = 0;
+        for (IAction a: s.getLegalActions()) {
+            if (actionPath != null) actionPath.add(new ActionIdxWrapper(a, actionIdx));
+            walk(tracker.next(a), entry, actionPath);
+            if (actionPath != null) actionPath.remove(actionPath.size() - 1);
+            actionIdx++;
+        }
+    }
+}
@@ -5,8 +5,11 @@ import com.ggp.IInformationSet;
 import com.ggp.players.continual_resolving.cfrd.AugmentedIS.CFRDAugmentedCISWrapper;
 import com.ggp.utils.PlayerHelpers;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class SubgameMap {
@@ -101,4 +104,16 @@ public class SubgameMap {
         if (s != null) return s.states;
         return null;
     }
+
+    /**
+     * Get states of all subgames.
+     * @return states of each subgame, every subgame is listed once
+     */
+    public Collection<Set<ICompleteInformationState>> getSubgames() {
+        ArrayList<Set<ICompleteInformationState>> ret = new ArrayList<>();
+        for (SubgameSet s: new LinkedHashSet<>(isToSubgame.values())) {
+            ret.add(s.states);
+        }
+        return ret;
+    }
 }
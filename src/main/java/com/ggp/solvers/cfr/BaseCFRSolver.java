@@ -4,18 +4,22 @@ import com.ggp.IInfoSetStrategy;
 import com.ggp.IInformationSet;
 import com.ggp.IStrategy;
 import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
-import com.ggp.solvers.cfr.is_info.BaseCFRISInfo;
+import com.ggp.solvers.cfr.is_info.IInfoSetStorage;
+import com.ggp.solvers.cfr.is_info.InfoSetStore;
 import com.ggp.utils.strategy.InfoSetStrategy;
 import com.ggp.utils.strategy.Strategy;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
 
 public abstract class BaseCFRSolver {
     public static abstract class Factory {
         protected IRegretMatching.IFactory rmFactory;
+        protected IInfoSetStorage.IFactory storageFactory = null;
 
         public Factory(IRegretMatching.IFactory rmFactory) {
             if (rmFactory == null) {
@@ -26,6 +30,25 @@ public abstract class BaseCFRSolver {
 
         public abstract BaseCFRSolver create(IStrategyAccumulationFilter accumulationFilter);
         public abstract String getConfigString();
+
+        /**
+         * Set storage of created solvers' IS data.
+         * @param storageFactory storage factory or null for the default on-heap storage
+         * @return this factory
+         */
+        public Factory setStorageFactory(IInfoSetStorage.IFactory storageFactory) {
+            this.storageFactory = storageFactory;
+            return this;
+        }
+
+        protected BaseCFRSolver initStorage(BaseCFRSolver solver) {
+            if (storageFactory != null) solver.isInfos.setStorage(storageFactory.create());
+            return solver;
+        }
+
+        protected String getStorageConfigString() {
+            return (storageFactory == null) ? "" : ",st=" + storageFactory.getConfigString();
+        }
     }
 
     public static class Info {
@@ -39,9 +62,42 @@ public abstract class BaseCFRSolver {
         }
     }
 
+    /**
+     * Listener of solver's traversal.
+     *
+     * Solvers which traverse the game in parallel serialize the calls unless all listeners are thread-safe, the order
+     * of the calls isn't deterministic.
+     * Solvers only build the {@link Info} when some listener observes the state, so listeners should
+     * narrow down the states they need.
+     */
     public interface IListener {
         void enteringState(IGameTraversalTracker tracker, DepthLimitedCFRSolver.Info info);
         void leavingState(IGameTraversalTracker tracker, DepthLimitedCFRSolver.Info info, double p1Utility);
+
+        /**
+         * Whether {@link #enteringState} should be called at all.
+         * @return
+         */
+        default boolean needsEnteringState() {
+            return true;
+        }
+
+        /**
+         * Whether the listener should be notified about given state.
+         * @param tracker
+         * @return
+         */
+        default boolean isObservedState(IGameTraversalTracker tracker) {
+            return true;
+        }
+
+        /**
+         * Whether the listener can be notified from multiple threads at once.
+         * @return
+         */
+        default boolean isThreadSafe() {
+            return false;
+        }
     }
 
     public interface IStrategyAccumulationFilter {
@@ -50,26 +106,40 @@ public abstract class BaseCFRSolver {
     }
 
     protected IRegretMatching.IFactory rmFactory;
-    protected HashMap<IInformationSet, BaseCFRISInfo> isInfos = new HashMap<>();
+    protected InfoSetStore isInfos;
     protected IStrategyAccumulationFilter accumulationFilter;
     protected List<DepthLimitedCFRSolver.IListener> listeners = new ArrayList<>();
+    private boolean hasEnteringListeners = false;
+    private boolean hasThreadUnsafeListeners = false;
     protected long visitedStates = 0;
     private double totalRegret = 0;
+    private DoubleAdder concurrentTotalRegret = null;
 
     protected BaseCFRSolver(BaseCFRSolver solver, IStrategyAccumulationFilter accumulationFilter) {
         this.rmFactory = solver.rmFactory;
-        for (Map.Entry<IInformationSet, BaseCFRISInfo> entry: solver.isInfos.entrySet()) {
-            isInfos.put(entry.getKey(), entry.getValue().copy());
-        }
+        this.isInfos = solver.isInfos.copy();
         if (accumulationFilter == null) accumulationFilter = getDefaultStrategyAccumulationFilter();
         this.accumulationFilter = accumulationFilter;
         this.listeners = new ArrayList<>(solver.listeners);
+        this.hasEnteringListeners = solver.hasEnteringListeners;
+        this.hasThreadUnsafeListeners = solver.hasThreadUnsafeListeners;
         this.visitedStates = solver.visitedStates;
-        this.totalRegret = solver.totalRegret;
+        this.totalRegret = solver.getTotalRegret();
     }
 
     public BaseCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter) {
+        this(rmFactory, accumulationFilter, 0);
+    }
+
+    /**
+     * Constructor
+     * @param rmFactory
+     * @param accumulationFilter
+     * @param baselineCount number of baselines stored for each IS
+     */
+    protected BaseCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter, int baselineCount) {
         this.rmFactory = rmFactory;
+        this.isInfos = new InfoSetStore(rmFactory.create(), baselineCount);
         if (accumulationFilter == null) accumulationFilter = getDefaultStrategyAccumulationFilter();
         this.accumulationFilter = accumulationFilter;
     }
@@ -80,31 +150,128 @@ public abstract class BaseCFRSolver {
      */
     public abstract void runIteration(IGameTraversalTracker tracker);
 
+    /**
+     * Get number of iterations done by single call of {@link #runIteration}.
+     * @return
+     */
+    public int getIterationsPerRun() {
+        return 1;
+    }
+
+    /**
+     * Makes IS infos safe to be created and updated from multiple threads.
+     *
+     * Regret updates through {@link #addRegret} are synchronized on the respective IS lock, other updates
+     * have to be synchronized by the caller.
+     */
+    protected void enableConcurrentAccess() {
+        if (concurrentTotalRegret != null) return;
+        isInfos.enableConcurrentAccess();
+        concurrentTotalRegret = new DoubleAdder();
+    }
+
+    protected boolean isConcurrent() {
+        return concurrentTotalRegret != null;
+    }
+
     protected boolean isInMemory(IInformationSet is) {
-        return isInfos.containsKey(is);
+        return isInfos.getId(is) >= 0;
     }
 
-    protected BaseCFRISInfo initIsInfo(IInformationSet is) {
-        return new BaseCFRISInfo(rmFactory, is.getLegalActions().size());
+    /**
+     * Get id of IS's record in the IS store, the record is created if necessary.
+     * @param is
+     * @return
+     */
+    protected int getIsId(IInformationSet is) {
+        return isInfos.getOrCreateId(is);
     }
 
-    protected BaseCFRISInfo getIsInfo(IInformationSet is) {
-        return isInfos.computeIfAbsent(is, k -> initIsInfo(is));
+    protected void addRegret(int isId, int actionIdx, double regretDiff) {
+        if (concurrentTotalRegret == null) {
+            totalRegret += isInfos.addRegret(isId, actionIdx, regretDiff);
+            return;
+        }
+        double diff;
+        synchronized (isInfos.getLock(isId)) {
+            diff = isInfos.addRegret(isId, actionIdx, regretDiff);
+        }
+        concurrentTotalRegret.add(diff);
     }
 
-    protected void addRegret(BaseCFRISInfo isInfo, int actionIdx, double regretDiff) {
-        IRegretMatching rm = isInfo.getRegretMatching();
-        totalRegret -= Math.max(0, rm.getRegret(actionIdx));
-        rm.addActionRegret(actionIdx, regretDiff);
-        totalRegret += Math.max(0, rm.getRegret(actionIdx));
+    /**
+     * Check whether {@link #notifyEnteringState} would notify any listener about given state.
+     *
+     * Lets solvers skip building the {@link Info} when there is no one to notify.
+     * @param tracker
+     * @return
+     */
+    protected boolean isEnteringObserved(IGameTraversalTracker tracker) {
+        if (!hasEnteringListeners) return false;
+        for (int i = 0; i < listeners.size(); ++i) {
+            IListener listener = listeners.get(i);
+            if (listener.needsEnteringState() && listener.isObservedState(tracker)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check whether {@link #notifyLeavingState} would notify any listener about given state.
+     * @param tracker
+     * @return
+     */
+    protected boolean isLeavingObserved(IGameTraversalTracker tracker) {
+        for (int i = 0; i < listeners.size(); ++i) {
+            if (listeners.get(i).isObservedState(tracker)) return true;
+        }
+        return false;
+    }
+
+    protected void notifyEnteringState(IGameTraversalTracker tracker, Info info) {
+        if (!isConcurrent() || !hasThreadUnsafeListeners) {
+            doNotifyEnteringState(tracker, info);
+            return;
+        }
+        synchronized (listeners) {
+            doNotifyEnteringState(tracker, info);
+        }
+    }
+
+    private void doNotifyEnteringState(IGameTraversalTracker tracker, Info info) {
+        for (int i = 0; i < listeners.size(); ++i) {
+            IListener listener = listeners.get(i);
+            if (listener.needsEnteringState() && listener.isObservedState(tracker)) listener.enteringState(tracker, info);
+        }
+    }
+
+    protected void notifyLeavingState(IGameTraversalTracker tracker, Info info, double p1Utility) {
+        if (!isConcurrent() || !hasThreadUnsafeListeners) {
+            doNotifyLeavingState(tracker, info, p1Utility);
+            return;
+        }
+        synchronized (listeners) {
+            doNotifyLeavingState(tracker, info, p1Utility);
+        }
+    }
+
+    private void doNotifyLeavingState(IGameTraversalTracker tracker, Info info, double p1Utility) {
+        for (int i = 0; i < listeners.size(); ++i) {
+            IListener listener = listeners.get(i);
+            if (listener.isObservedState(tracker)) listener.leavingState(tracker, info, p1Utility);
+        }
     }
 
     public void registerListener(DepthLimitedCFRSolver.IListener listener) {
-        if (listener != null) listeners.add(listener);
+        if (listener == null) return;
+        listeners.add(listener);
+        hasEnteringListeners |= listener.needsEnteringState();
+        hasThreadUnsafeListeners |= !listener.isThreadSafe();
     }
 
     public void clearListeners() {
         listeners.clear();
+        hasEnteringListeners = false;
+        hasThreadUnsafeListeners = false;
     }
 
     /**
@@ -128,14 +295,13 @@ public abstract class BaseCFRSolver {
             @Override
             public IInfoSetStrategy getInfoSetStrategy(IInformationSet is) {
                 int actionSize = is.getLegalActions().size();
-                BaseCFRISInfo info = isInfos.getOrDefault(is, null);
-                double[] probs = (info == null ? null : info.getCumulativeStrat());
+                int isId = isInfos.getId(is);
                 return new IInfoSetStrategy() {
                     @Override
                     public double getProbability(int actionIdx) {
                         if (actionIdx < 0 || actionIdx >= actionSize) return 0;
-                        if (probs == null) return 1d/actionSize;
-                        return probs[actionIdx];
+                        if (isId < 0) return 1d/actionSize;
+                        return isInfos.getCumulativeStrat(isId, actionIdx);
                     }
 
                     @Override
@@ -155,8 +321,14 @@ public abstract class BaseCFRSolver {
      */
     public Strategy getFinalCumulativeStrat() {
         Strategy ret = new Strategy();
-        accumulationFilter.getAccumulated().forEach(is ->
-                ret.setInfoSetStrategy(is, InfoSetStrategy.fromArrayReference(getIsInfo(is).getCumulativeStrat())));
+        accumulationFilter.getAccumulated().forEach(is -> {
+            int isId = getIsId(is);
+            double[] probs = new double[isInfos.getActionSize(isId)];
+            for (int a = 0; a < probs.length; ++a) {
+                probs[a] = isInfos.getCumulativeStrat(isId, a);
+            }
+            ret.setInfoSetStrategy(is, InfoSetStrategy.fromArrayReference(probs));
+        });
         return ret;
     }
 
@@ -164,12 +336,12 @@ public abstract class BaseCFRSolver {
         return new IStrategyAccumulationFilter() {
             @Override
             public boolean isAccumulated(IInformationSet is) {
-                return isInfos.containsKey(is);
+                return isInfos.getId(is) >= 0;
             }
 
             @Override
             public Iterable<IInformationSet> getAccumulated() {
-                return isInfos.keySet();
+                return isInfos.getInfoSets();
             }
         };
     }
@@ -179,15 +351,51 @@ public abstract class BaseCFRSolver {
     }
 
     public double getTotalRegret() {
-        return totalRegret;
+        if (concurrentTotalRegret == null) return totalRegret;
+        return totalRegret + concurrentTotalRegret.sum();
     }
 
     public abstract BaseCFRSolver copy(IStrategyAccumulationFilter accumulationFilter);
 
+    /**
+     * Write solver's state, so that it can be restored by {@link #readState(ObjectInput)}.
+     *
+     * Must not be called concurrently with {@link #runIteration}.
+     * @param out
+     * @throws IOException
+     */
+    public void writeState(ObjectOutput out) throws IOException {
+        out.writeLong(getVisitedStates());
+        out.writeDouble(getTotalRegret());
+        isInfos.write(out);
+    }
+
+    /**
+     * Restore state written by {@link #writeState(ObjectOutput)} of a solver with the same configuration.
+     *
+     * Can only be called before the first iteration.
+     * @param in
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public void readState(ObjectInput in) throws IOException, ClassNotFoundException {
+        visitedStates = in.readLong();
+        totalRegret = in.readDouble();
+        isInfos.read(in);
+    }
+
     public BaseCFRSolver copy() {
         return copy(accumulationFilter);
     }
 
+    /**
+     * Release resources held by the solver's IS storage, e.g. mapped files. The solver and its strategies must not
+     * be used afterwards, copies aren't affected.
+     */
+    public void close() {
+        isInfos.close();
+    }
+
     public void clearVisitedStates() {
         visitedStates = 0;
     }
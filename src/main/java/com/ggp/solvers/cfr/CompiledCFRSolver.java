@@ -0,0 +1,206 @@
+package com.ggp.solvers.cfr;
+
+import com.ggp.IInformationSet;
+import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
+import com.ggp.solvers.cfr.utils.CompiledGameTree;
+import com.ggp.utils.PlayerHelpers;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Full-traversal CFR which enumerates the game tree once and then iterates over its flat representation.
+ *
+ * The tree is compiled from the tracker passed to the first iteration, therefore it's only suitable for games
+ * which fit in memory. Iterations don't allocate unless listeners are registered.
+ */
+public class CompiledCFRSolver extends BaseCFRSolver {
+    public static class Factory extends BaseCFRSolver.Factory {
+        private final boolean alternatingUpdates;
+        private final double cumulativeStratExp;
+
+        public Factory(IRegretMatching.IFactory rmFactory, boolean alternatingUpdates, double cumulativeStratExp) {
+            super(rmFactory);
+            this.alternatingUpdates = alternatingUpdates;
+            this.cumulativeStratExp = cumulativeStratExp;
+        }
+
+        @Override
+        public BaseCFRSolver create(IStrategyAccumulationFilter accumulationFilter) {
+            return initStorage(new CompiledCFRSolver(rmFactory, accumulationFilter, alternatingUpdates, cumulativeStratExp));
+        }
+
+        @Override
+        public String getConfigString() {
+            return "CompiledCFR{" +
+                    "rm=" + rmFactory.getConfigString() +
+                    ",au=" + alternatingUpdates +
+                    ",cse=" + cumulativeStratExp +
+                    getStorageConfigString() +
+                    '}';
+        }
+    }
+
+    private final boolean alternatingUpdates;
+    private final double cumulativeStratExp;
+    private long iterationCounter = 0;
+    private boolean[] updatePlayer = new boolean[]{false, true, true};
+    private double cumulativeStratMul = 1;
+
+    private CompiledGameTree tree;
+    private IGameTraversalTracker compiledTracker;
+    private int[] treeIsIds;
+    private boolean[] isAccumulated;
+    private double[][] actionUtilities;
+
+    public CompiledCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter,
+                             boolean alternatingUpdates, double cumulativeStratExp) {
+        super(rmFactory, accumulationFilter);
+        this.alternatingUpdates = alternatingUpdates;
+        this.cumulativeStratExp = cumulativeStratExp;
+    }
+
+    protected CompiledCFRSolver(CompiledCFRSolver solver, IStrategyAccumulationFilter accumulationFilter) {
+        super(solver, accumulationFilter);
+        this.alternatingUpdates = solver.alternatingUpdates;
+        this.cumulativeStratExp = solver.cumulativeStratExp;
+        this.iterationCounter = solver.iterationCounter;
+        this.updatePlayer = solver.updatePlayer.clone();
+        // the tree is immutable, only IS infos have to be re-bound to the copies
+        this.tree = solver.tree;
+        this.compiledTracker = solver.compiledTracker;
+        if (tree != null) bindTree();
+    }
+
+    @Override
+    public void writeState(ObjectOutput out) throws IOException {
+        super.writeState(out);
+        out.writeLong(iterationCounter);
+    }
+
+    @Override
+    public void readState(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readState(in);
+        iterationCounter = in.readLong();
+    }
+
+    @Override
+    public BaseCFRSolver copy(IStrategyAccumulationFilter accumulationFilter) {
+        return new CompiledCFRSolver(this, accumulationFilter);
+    }
+
+    @Override
+    public void registerListener(IListener listener) {
+        super.registerListener(listener);
+        // listeners need trackers, which aren't kept when there are no listeners
+        if (listener != null && tree != null && !tree.hasTrackers()) tree = null;
+    }
+
+    private void ensureCompiled(IGameTraversalTracker tracker) {
+        if (tree != null && (tracker == compiledTracker || tracker.getCurrentState().equals(tree.getRootState()))) return;
+        tree = CompiledGameTree.compile(tracker, !listeners.isEmpty());
+        compiledTracker = tracker;
+        bindTree();
+    }
+
+    private void bindTree() {
+        int isCount = tree.getInfoSetCount();
+        treeIsIds = new int[isCount];
+        isAccumulated = new boolean[isCount];
+        for (int i = 0; i < isCount; ++i) {
+            IInformationSet is = tree.getInfoSet(i);
+            treeIsIds[i] = getIsId(is);
+            isAccumulated[i] = accumulationFilter.isAccumulated(is);
+        }
+        actionUtilities = new double[tree.getMaxDepth() + 1][tree.getMaxChildCount()];
+    }
+
+    /**
+     * Run CFR
+     * @param node
+     * @param depth
+     * @param reachProb1
+     * @param reachProb2
+     * @return 1st player utility of given node under current strategy
+     */
+    private double cfr(int node, int depth, double reachProb1, double reachProb2) {
+        visitedStates++;
+        boolean hasTrackers = tree.hasTrackers();
+        Info info = null;
+        if (hasTrackers && isEnteringObserved(tree.getTracker(node))) {
+            info = new Info(reachProb1, reachProb2, tree.getRndProb(node), 1);
+            notifyEnteringState(tree.getTracker(node), info);
+        }
+
+        int pid = tree.getActingPlayer(node);
+        if (pid == CompiledGameTree.TERMINAL) {
+            return tree.getPayoff(node);
+        }
+        int firstChild = tree.getFirstChild(node);
+        int childCount = tree.getChildCount(node);
+
+        if (pid == 0) {
+            double ret = 0;
+            for (int child = firstChild; child < firstChild + childCount; ++child) {
+                ret += tree.getRandomActionProb(child) * cfr(child, depth+1, reachProb1, reachProb2);
+            }
+            return ret;
+        }
+
+        int isIdx = tree.getInfoSetIdx(node);
+        int isId = treeIsIds[isIdx];
+        double[] actionUtility = actionUtilities[depth];
+        double utility = 0;
+        for (int a = 0; a < childCount; ++a) {
+            double actionProb = isInfos.getStrat(isId, a);
+            double np1 = reachProb1, np2 = reachProb2;
+            if (pid == 1) {
+                np1 *= actionProb;
+            } else {
+                np2 *= actionProb;
+            }
+            actionUtility[a] = cfr(firstChild + a, depth+1, np1, np2);
+            utility = utility + actionProb*actionUtility[a];
+        }
+        if (hasTrackers && isLeavingObserved(tree.getTracker(node))) {
+            if (info == null) info = new Info(reachProb1, reachProb2, tree.getRndProb(node), 1);
+            notifyLeavingState(tree.getTracker(node), info, utility);
+        }
+
+        if (updatePlayer[pid]) {
+            double rndProb = tree.getRndProb(node);
+            // PlayerHelpers.selectByPlayerId would box the values
+            double probWithoutActingPlayer = rndProb * (pid == 1 ? reachProb2 : reachProb1); // reachProb_{-i}
+            double playerMul = (pid == 1 ? 1 : -1);
+            for (int a = 0; a < childCount; ++a) {
+                addRegret(isId, a, probWithoutActingPlayer * playerMul * (actionUtility[a] - utility));
+            }
+
+            if (isAccumulated[isIdx]) {
+                double playerReachProb = rndProb * (pid == 1 ? reachProb1 : reachProb2);
+                for (int a = 0; a < childCount; ++a) {
+                    isInfos.setCumulativeStrat(isId, a, cumulativeStratMul * isInfos.getCumulativeStrat(isId, a) + playerReachProb * isInfos.getStrat(isId, a));
+                }
+            }
+        }
+        return utility;
+    }
+
+    @Override
+    public void runIteration(IGameTraversalTracker tracker) {
+        ensureCompiled(tracker);
+        iterationCounter++;
+        int player = (int)(iterationCounter % 2) + 1;
+        if (alternatingUpdates) {
+            updatePlayer[player] = true;
+            updatePlayer[PlayerHelpers.getOpponentId(player)] = false;
+        }
+        cumulativeStratMul = Math.pow(((double) iterationCounter) / (iterationCounter + 1), cumulativeStratExp);
+
+        cfr(0, 0, 1, 1);
+        for (int i = 0; i < treeIsIds.length; ++i) {
+            if (updatePlayer[tree.getInfoSet(i).getOwnerId()]) isInfos.doRegretMatching(treeIsIds[i]);
+        }
+    }
+}
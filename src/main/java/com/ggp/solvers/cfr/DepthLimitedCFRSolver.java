@@ -1,12 +1,20 @@
 package com.ggp.solvers.cfr;
 
 import com.ggp.*;
-import com.ggp.solvers.cfr.is_info.BaseCFRISInfo;
 import com.ggp.utils.IUtilityEstimator;
 import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
+import com.ggp.utils.ForkJoinPools;
 import com.ggp.utils.PlayerHelpers;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DepthLimitedCFRSolver extends BaseCFRSolver {
     public static class Factory extends BaseCFRSolver.Factory {
@@ -14,20 +22,38 @@ public class DepthLimitedCFRSolver extends BaseCFRSolver {
         private boolean alternatingUpdates;
         private IUtilityEstimator.IFactory ueFactory;
         private final double cumulativeStratExp;
+        private final int parallelism;
+        private final boolean regretPruning;
 
         public Factory(IRegretMatching.IFactory rmFactory, int depthLimit, IUtilityEstimator.IFactory ueFactory,
                        boolean alternatingUpdates, double cumulativeStratExp) {
+            this(rmFactory, depthLimit, ueFactory, alternatingUpdates, cumulativeStratExp, 1);
+        }
+
+        public Factory(IRegretMatching.IFactory rmFactory, int depthLimit, IUtilityEstimator.IFactory ueFactory,
+                       boolean alternatingUpdates, double cumulativeStratExp, int parallelism) {
+            this(rmFactory, depthLimit, ueFactory, alternatingUpdates, cumulativeStratExp, parallelism, false);
+        }
+
+        public Factory(IRegretMatching.IFactory rmFactory, int depthLimit, IUtilityEstimator.IFactory ueFactory,
+                       boolean alternatingUpdates, double cumulativeStratExp, int parallelism, boolean regretPruning) {
             super(rmFactory);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive!");
+            }
             this.depthLimit = depthLimit;
             this.ueFactory = ueFactory;
             this.alternatingUpdates = alternatingUpdates;
             this.cumulativeStratExp = cumulativeStratExp;
+            this.parallelism = parallelism;
+            this.regretPruning = regretPruning;
         }
 
         @Override
         public BaseCFRSolver create(IStrategyAccumulationFilter accumulationFilter) {
-            return new DepthLimitedCFRSolver(rmFactory, accumulationFilter, depthLimit,
-                    (ueFactory == null ? null : ueFactory.create()), alternatingUpdates, cumulativeStratExp);
+            return initStorage(new DepthLimitedCFRSolver(rmFactory, accumulationFilter, depthLimit,
+                    (ueFactory == null ? null : ueFactory.create()), alternatingUpdates, cumulativeStratExp, parallelism,
+                    regretPruning));
         }
 
         @Override
@@ -38,6 +64,9 @@ public class DepthLimitedCFRSolver extends BaseCFRSolver {
                     ",rm=" + rmFactory.getConfigString() +
                     ",au=" + alternatingUpdates +
                     ",cse=" + cumulativeStratExp +
+                    (parallelism > 1 ? ",par=" + parallelism : "") +
+                    (regretPruning ? ",rbp=true" : "") +
+                    getStorageConfigString() +
                     '}';
         }
     }
@@ -48,6 +77,36 @@ public class DepthLimitedCFRSolver extends BaseCFRSolver {
     private final boolean alternatingUpdates;
     private final double cumulativeStratExp;
     private boolean[] updatePlayer = new boolean[]{false, true, true};
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final LongAdder concurrentVisitedStates;
+    private long skippedRegretMatchings = 0;
+    private final boolean regretPruning;
+    /**
+     * Largest absolute utility seen so far, it bounds the regret an action can gain in one iteration.
+     */
+    private volatile double maxAbsUtility = 0;
+
+    private class SubtreeTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+        private final IGameTraversalTracker tracker;
+        private final int depth;
+        private final double reachProb1, reachProb2;
+        private final boolean fork;
+
+        public SubtreeTask(IGameTraversalTracker tracker, int depth, double reachProb1, double reachProb2, boolean fork) {
+            this.tracker = tracker;
+            this.depth = depth;
+            this.reachProb1 = reachProb1;
+            this.reachProb2 = reachProb2;
+            this.fork = fork;
+        }
+
+        @Override
+        protected Double compute() {
+            return cfr(tracker, depth, reachProb1, reachProb2, fork);
+        }
+    }
 
     protected DepthLimitedCFRSolver(DepthLimitedCFRSolver solver, IStrategyAccumulationFilter accumulationFilter) {
         super(solver, accumulationFilter);
@@ -55,17 +114,83 @@ public class DepthLimitedCFRSolver extends BaseCFRSolver {
         this.utilityEstimator = solver.utilityEstimator;
         if (this.utilityEstimator != null) this.utilityEstimator = this.utilityEstimator.copy();
         this.iterationCounter = solver.iterationCounter;
+        this.skippedRegretMatchings = solver.skippedRegretMatchings;
+        this.regretPruning = solver.regretPruning;
+        this.maxAbsUtility = solver.maxAbsUtility;
         this.alternatingUpdates = solver.alternatingUpdates;
         this.cumulativeStratExp = solver.cumulativeStratExp;
+        this.parallelism = solver.parallelism;
+        this.pool = solver.pool;
+        this.concurrentVisitedStates = (pool == null ? null : new LongAdder());
+        if (pool != null) enableConcurrentAccess();
+        isInfos.enableDirtyTracking();
     }
 
     public DepthLimitedCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter,
                                  int depthLimit, IUtilityEstimator utilityEstimator, boolean alternatingUpdates, double cumulativeStratExp) {
+        this(rmFactory, accumulationFilter, depthLimit, utilityEstimator, alternatingUpdates, cumulativeStratExp, 1);
+    }
+
+    /**
+     * Constructor
+     * @param rmFactory
+     * @param accumulationFilter
+     * @param depthLimit
+     * @param utilityEstimator must be thread-safe if parallelism > 1
+     * @param alternatingUpdates
+     * @param cumulativeStratExp
+     * @param parallelism number of threads used to traverse the game tree, 1 means serial traversal
+     */
+    public DepthLimitedCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter,
+                                 int depthLimit, IUtilityEstimator utilityEstimator, boolean alternatingUpdates,
+                                 double cumulativeStratExp, int parallelism) {
+        this(rmFactory, accumulationFilter, depthLimit, utilityEstimator, alternatingUpdates, cumulativeStratExp, parallelism, false);
+    }
+
+    /**
+     * Constructor
+     * @param rmFactory
+     * @param accumulationFilter
+     * @param depthLimit
+     * @param utilityEstimator must be thread-safe if parallelism > 1
+     * @param alternatingUpdates
+     * @param cumulativeStratExp
+     * @param parallelism number of threads used to traverse the game tree, 1 means serial traversal
+     * @param regretPruning whether to skip subtrees of updated player's actions with negative regret, only
+     *                      applied with alternating updates
+     */
+    public DepthLimitedCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter,
+                                 int depthLimit, IUtilityEstimator utilityEstimator, boolean alternatingUpdates,
+                                 double cumulativeStratExp, int parallelism, boolean regretPruning) {
         super(rmFactory, accumulationFilter);
         this.depthLimit = depthLimit;
         this.utilityEstimator = utilityEstimator;
         this.alternatingUpdates = alternatingUpdates;
         this.cumulativeStratExp = cumulativeStratExp;
+        this.parallelism = parallelism;
+        this.regretPruning = regretPruning;
+        this.pool = (parallelism > 1 ? ForkJoinPools.get(parallelism) : null);
+        this.concurrentVisitedStates = (pool == null ? null : new LongAdder());
+        if (pool != null) enableConcurrentAccess();
+        isInfos.enableDirtyTracking();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public void writeState(ObjectOutput out) throws IOException {
+        super.writeState(out);
+        out.writeLong(iterationCounter);
+        out.writeDouble(maxAbsUtility);
+    }
+
+    @Override
+    public void readState(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readState(in);
+        iterationCounter = in.readLong();
+        maxAbsUtility = in.readDouble();
     }
 
     @Override
@@ -73,29 +198,44 @@ public class DepthLimitedCFRSolver extends BaseCFRSolver {
         return new DepthLimitedCFRSolver(this, accumulationFilter);
     }
 
+    private void addVisitedStates(long count) {
+        if (concurrentVisitedStates == null) {
+            visitedStates += count;
+        } else {
+            concurrentVisitedStates.add(count);
+        }
+    }
+
     /**
      * Run CFR
      * @param tracker
      * @param depth
      * @param reachProb1
      * @param reachProb2
+     * @param fork whether child subtrees should be solved in parallel
      * @return 1st player utility of root state under current strategy
      */
-    private double cfr(IGameTraversalTracker tracker, int depth, double reachProb1, double reachProb2) {
+    private double cfr(IGameTraversalTracker tracker, int depth, double reachProb1, double reachProb2, boolean fork) {
         // CVF_i(h) = reachProb_{-i}(h) * utility_i(H)
         // this method passes reachProb from top and returns player 1's utility
         ICompleteInformationState s = tracker.getCurrentState();
-        Info info = new Info(reachProb1, reachProb2, tracker.getRndProb(), 1);
-        visitedStates++;
-        listeners.forEach(listener -> listener.enteringState(tracker, info));
+        Info info = null;
+        addVisitedStates(1);
+        if (isEnteringObserved(tracker)) {
+            info = new Info(reachProb1, reachProb2, tracker.getRndProb(), 1);
+            notifyEnteringState(tracker, info);
+        }
 
         if (s.isTerminal()) {
-            return tracker.getPayoff(1);
+            double payoff = tracker.getPayoff(1);
+            if (regretPruning) updateMaxAbsUtility(payoff);
+            return payoff;
         }
 
         if (depth > depthLimit && utilityEstimator != null && utilityEstimator.canEstimate(tracker)) {
             IUtilityEstimator.UtilityEstimate res = utilityEstimator.estimate(tracker);
-            visitedStates += res.visitedStates;
+            addVisitedStates(res.visitedStates);
+            if (regretPruning) updateMaxAbsUtility(res.p1Utility);
             return res.p1Utility;
         }
         List<IAction> legalActions = s.getLegalActions();
@@ -104,51 +244,100 @@ public class DepthLimitedCFRSolver extends BaseCFRSolver {
         if (s.isRandomNode()) {
             IRandomNode rndNode = s.getRandomNode();
             double ret = 0;
+            if (fork) {
+                // chance nodes above the first player's decision are split as well
+                List<SubtreeTask> tasks = new ArrayList<>();
+                for (IRandomNode.IRandomNodeAction rndAction: rndNode) {
+                    tasks.add(new SubtreeTask(tracker.next(rndAction.getAction()), depth+1, reachProb1, reachProb2, true));
+                }
+                ForkJoinTask.invokeAll(tasks);
+                int taskIdx = 0;
+                for (IRandomNode.IRandomNodeAction rndAction: rndNode) {
+                    ret += rndAction.getProb() * tasks.get(taskIdx++).join();
+                }
+                return ret;
+            }
             for (IRandomNode.IRandomNodeAction rndAction: rndNode) {
                 double actionProb = rndAction.getProb();
-                ret += actionProb * cfr(tracker.next(rndAction.getAction()), depth+1, reachProb1, reachProb2);
+                ret += actionProb * cfr(tracker.next(rndAction.getAction()), depth+1, reachProb1, reachProb2, false);
             }
             return ret;
         }
 
         IInformationSet is = s.getInfoSetForActingPlayer();
-        BaseCFRISInfo isInfo = getIsInfo(is);
+        int isId = getIsId(is);
+        int pid = s.getActingPlayerId();
         double utility = 0;
         double[] actionUtility = new double[legalActions.size()];
+        SubtreeTask[] tasks = (fork ? new SubtreeTask[legalActions.size()] : null);
+        double probWithoutActingPlayer = rndProb * PlayerHelpers.selectByPlayerId(pid, reachProb2, reachProb1); // reachProb_{-i}
+        // regret of an action can grow by at most (reachProb_{-i} * utility range) in one iteration
+        double regretBound = probWithoutActingPlayer * 2 * maxAbsUtility;
+        boolean canPrune = regretPruning && updatePlayer[pid] && !updatePlayer[PlayerHelpers.getOpponentId(pid)];
+        boolean[] pruned = null;
 
         int actionIdx = 0;
         for (IAction a: legalActions) {
-            double actionProb = isInfo.getStrat()[actionIdx];
+            double actionProb = isInfos.getStrat(isId, actionIdx);
+            if (canPrune && actionProb == 0 && isInfos.getRegret(isId, actionIdx) + regretBound < 0) {
+                // the action keeps zero probability even if its regret grows by the bound
+                if (pruned == null) pruned = new boolean[legalActions.size()];
+                pruned[actionIdx] = true;
+                actionIdx++;
+                continue;
+            }
             double np1 = reachProb1, np2 = reachProb2;
-            if (s.getActingPlayerId() == 1) {
+            if (pid == 1) {
                 np1 *= actionProb;
-            } else if (s.getActingPlayerId() == 2) {
+            } else if (pid == 2) {
                 np2 *= actionProb;
             }
-            actionUtility[actionIdx] = cfr(tracker.next(a), depth+1, np1, np2);
-            utility = utility + actionProb*actionUtility[actionIdx];
+            if (fork) {
+                tasks[actionIdx] = new SubtreeTask(tracker.next(a), depth+1, np1, np2, false);
+            } else {
+                actionUtility[actionIdx] = cfr(tracker.next(a), depth+1, np1, np2, false);
+            }
             actionIdx++;
         }
-        final double finUtility =  utility;
-        listeners.forEach(listener -> listener.leavingState(tracker, info, finUtility));
+        if (fork) {
+            List<SubtreeTask> forked = new ArrayList<>(tasks.length);
+            for (SubtreeTask task: tasks) {
+                if (task != null) forked.add(task);
+            }
+            ForkJoinTask.invokeAll(forked);
+            for (actionIdx = 0; actionIdx < actionUtility.length; ++actionIdx) {
+                if (tasks[actionIdx] != null) actionUtility[actionIdx] = tasks[actionIdx].join();
+            }
+        }
+        for (actionIdx = 0; actionIdx < actionUtility.length; ++actionIdx) {
+            utility = utility + isInfos.getStrat(isId, actionIdx)*actionUtility[actionIdx];
+        }
+        if (isLeavingObserved(tracker)) {
+            if (info == null) info = new Info(reachProb1, reachProb2, rndProb, 1);
+            notifyLeavingState(tracker, info, utility);
+        }
 
         actionIdx = 0;
-        double probWithoutActingPlayer = rndProb * PlayerHelpers.selectByPlayerId(s.getActingPlayerId(), reachProb2, reachProb1); // reachProb_{-i}
-        int pid = s.getActingPlayerId();
         if (updatePlayer[pid]) {
             for (IAction a: legalActions) {
-                double playerMul = PlayerHelpers.selectByPlayerId(pid, 1, -1);
-                addRegret(isInfo, actionIdx, probWithoutActingPlayer * playerMul * (actionUtility[actionIdx] - utility));
+                if (pruned != null && pruned[actionIdx]) {
+                    // catch up with the largest possible regret, so that the action is traversed again
+                    // no later than it could get a positive probability
+                    addRegret(isId, actionIdx, regretBound);
+                } else {
+                    double playerMul = PlayerHelpers.selectByPlayerId(pid, 1, -1);
+                    addRegret(isId, actionIdx, probWithoutActingPlayer * playerMul * (actionUtility[actionIdx] - utility));
+                }
                 actionIdx++;
             }
 
             if (accumulationFilter.isAccumulated(is)) {
-                double playerReachProb = rndProb * PlayerHelpers.selectByPlayerId(s.getActingPlayerId(), reachProb1, reachProb2);
-                double[] strat = isInfo.getStrat();
-                double[] cumulativeStrat = isInfo.getCumulativeStrat();
-                double mul = Math.pow(((double) iterationCounter) / (iterationCounter + 1), cumulativeStratExp);
-                for (int a = 0; a < strat.length; ++a) {
-                    cumulativeStrat[a] = mul * cumulativeStrat[a] + playerReachProb * strat[a];
+                if (pool == null) {
+                    accumulateStrategy(isId, reachProb1, reachProb2, rndProb, pid);
+                } else {
+                    synchronized (isInfos.getLock(isId)) {
+                        accumulateStrategy(isId, reachProb1, reachProb2, rndProb, pid);
+                    }
                 }
             }
         }
@@ -157,6 +346,23 @@ public class DepthLimitedCFRSolver extends BaseCFRSolver {
         return utility;
     }
 
+    private void updateMaxAbsUtility(double utility) {
+        double abs = Math.abs(utility);
+        if (abs <= maxAbsUtility) return;
+        synchronized (this) {
+            if (abs > maxAbsUtility) maxAbsUtility = abs;
+        }
+    }
+
+    private void accumulateStrategy(int isId, double reachProb1, double reachProb2, double rndProb, int pid) {
+        double playerReachProb = rndProb * PlayerHelpers.selectByPlayerId(pid, reachProb1, reachProb2);
+        double mul = Math.pow(((double) iterationCounter) / (iterationCounter + 1), cumulativeStratExp);
+        int actionSize = isInfos.getActionSize(isId);
+        for (int a = 0; a < actionSize; ++a) {
+            isInfos.setCumulativeStrat(isId, a, mul * isInfos.getCumulativeStrat(isId, a) + playerReachProb * isInfos.getStrat(isId, a));
+        }
+    }
+
     @Override
     public void runIteration(IGameTraversalTracker tracker) {
         iterationCounter++;
@@ -166,7 +372,25 @@ public class DepthLimitedCFRSolver extends BaseCFRSolver {
             updatePlayer[PlayerHelpers.getOpponentId(player)] = false;
         }
 
-        cfr(tracker, 0, 1, 1);
-        isInfos.forEach((is, isInfo) -> {if (updatePlayer[is.getOwnerId()]) isInfo.doRegretMatching();});
+        if (pool == null) {
+            cfr(tracker, 0, 1, 1, false);
+        } else {
+            pool.invoke(new SubtreeTask(tracker, 0, 1, 1, true));
+            visitedStates += concurrentVisitedStates.sumThenReset();
+        }
+        int updatedIsCount = 0;
+        for (int pid = 1; pid <= 2; ++pid) {
+            if (updatePlayer[pid]) updatedIsCount += isInfos.size(pid);
+        }
+        // only IS whose regrets changed during the traversal need a new strategy
+        skippedRegretMatchings += updatedIsCount - isInfos.doDirtyRegretMatching();
+    }
+
+    /**
+     * Get number of regret matchings that were skipped, because the IS's regrets didn't change in the iteration.
+     * @return
+     */
+    public long getSkippedRegretMatchings() {
+        return skippedRegretMatchings;
     }
 }
@@ -0,0 +1,203 @@
+package com.ggp.solvers.cfr;
+
+import com.ggp.IAction;
+import com.ggp.ICompleteInformationState;
+import com.ggp.IInformationSet;
+import com.ggp.IRandomNode;
+import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
+import com.ggp.utils.random.RandomSampler;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * External-sampling MCCFR
+ *
+ * Each iteration updates one player (alternately), whose actions are enumerated, while random and opponent's
+ * actions are sampled according to their probabilities. Strategies of IS with updated regrets are recomputed
+ * after the iteration, therefore they don't change during traversal.
+ */
+public class ExternalSamplingMCCFRSolver extends BaseCFRSolver {
+    public static class Factory extends BaseCFRSolver.Factory {
+        private final double cumulativeStratExp;
+
+        public Factory(IRegretMatching.IFactory rmFactory, double cumulativeStratExp) {
+            super(rmFactory);
+            this.cumulativeStratExp = cumulativeStratExp;
+        }
+
+        @Override
+        public BaseCFRSolver create(IStrategyAccumulationFilter accumulationFilter) {
+            return initStorage(new ExternalSamplingMCCFRSolver(rmFactory, accumulationFilter, cumulativeStratExp));
+        }
+
+        @Override
+        public String getConfigString() {
+            return "ES-MCCFR{" +
+                    "rm=" + rmFactory.getConfigString() +
+                    ",cse=" + cumulativeStratExp +
+                    getStorageConfigString() +
+                    '}';
+        }
+    }
+
+    private final double cumulativeStratExp;
+    private final RandomSampler sampler = new RandomSampler();
+    private long iterationCounter = 0;
+    private double[][] depthBuffers = new double[0][];
+
+    public ExternalSamplingMCCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter,
+                                       double cumulativeStratExp) {
+        super(rmFactory, accumulationFilter);
+        this.cumulativeStratExp = cumulativeStratExp;
+        isInfos.enableDirtyTracking();
+    }
+
+    protected ExternalSamplingMCCFRSolver(ExternalSamplingMCCFRSolver solver, IStrategyAccumulationFilter accumulationFilter) {
+        super(solver, accumulationFilter);
+        this.cumulativeStratExp = solver.cumulativeStratExp;
+        this.iterationCounter = solver.iterationCounter;
+        isInfos.enableDirtyTracking();
+    }
+
+    private double[] getDepthBuffer(int depth, int size) {
+        if (depth >= depthBuffers.length) {
+            depthBuffers = Arrays.copyOf(depthBuffers, Math.max(2*depthBuffers.length, depth + 1));
+        }
+        double[] ret = depthBuffers[depth];
+        if (ret == null || ret.length < size) {
+            ret = new double[size];
+            depthBuffers[depth] = ret;
+        }
+        return ret;
+    }
+
+    private int sampleRandom(ICompleteInformationState s, int depth) {
+        List<IAction> legalActions = s.getLegalActions();
+        IRandomNode rndNode = s.getRandomNode();
+        double[] probs = getDepthBuffer(depth, legalActions.size());
+        for (int a = 0; a < legalActions.size(); ++a) {
+            probs[a] = rndNode.getActionProb(legalActions.get(a));
+        }
+        return sampler.selectIdx(probs, legalActions.size());
+    }
+
+    private int sampleStrategy(int isId, int size, int depth) {
+        double[] strat = getDepthBuffer(depth, size);
+        isInfos.getStrat(isId, strat);
+        return sampler.selectIdx(strat, size);
+    }
+
+    private static Info createInfo(IGameTraversalTracker tracker, double playerProb, double opponentProb,
+                                   double sampleProb, int player) {
+        return (player == 1) ? new Info(playerProb, opponentProb, tracker.getRndProb(), sampleProb)
+                : new Info(opponentProb, playerProb, tracker.getRndProb(), sampleProb);
+    }
+
+    /**
+     * Run external-sampling CFR
+     * @param tracker
+     * @param playerProb reach probability of updated player
+     * @param opponentProb reach probability of opponent
+     * @param sampleProb probability of sampling the current state
+     * @param player updated player
+     * @param depth
+     * @return sampled utility of the current state for updated player
+     */
+    private double cfr(IGameTraversalTracker tracker, double playerProb, double opponentProb, double sampleProb,
+                       int player, int depth) {
+        ICompleteInformationState s = tracker.getCurrentState();
+        visitedStates++;
+        Info info = null;
+        if (isEnteringObserved(tracker)) {
+            info = createInfo(tracker, playerProb, opponentProb, sampleProb, player);
+            notifyEnteringState(tracker, info);
+        }
+
+        if (s.isTerminal()) {
+            return tracker.getPayoff(player);
+        }
+        List<IAction> legalActions = s.getLegalActions();
+        if (s.isRandomNode()) {
+            int actionIdx = sampleRandom(s, depth);
+            IAction action = legalActions.get(actionIdx);
+            return cfr(tracker.next(action), playerProb, opponentProb,
+                    sampleProb * s.getRandomNode().getActionProb(action), player, depth+1);
+        }
+
+        IInformationSet actingPlayerInfoSet = s.getInfoSetForActingPlayer();
+        int isId = getIsId(actingPlayerInfoSet);
+        int actionSize = legalActions.size();
+        // opponent's reach is sampled, therefore this is 1 unless the tracker's random probabilities differ from sampling
+        double probWithoutPlayer = opponentProb * tracker.getRndProb() / sampleProb;
+        double utility = 0;
+        if (s.getActingPlayerId() == player) {
+            double[] actionUtility = getDepthBuffer(depth, actionSize);
+            for (int a = 0; a < actionSize; ++a) {
+                double actionProb = isInfos.getStrat(isId, a);
+                actionUtility[a] = cfr(tracker.next(legalActions.get(a)), playerProb * actionProb, opponentProb,
+                        sampleProb, player, depth+1);
+                utility += actionProb * actionUtility[a];
+            }
+            for (int a = 0; a < actionSize; ++a) {
+                addRegret(isId, a, probWithoutPlayer * (actionUtility[a] - utility));
+            }
+        } else {
+            if (accumulationFilter.isAccumulated(actingPlayerInfoSet)) {
+                double mul = getCumulativeStratMul(isId);
+                for (int a = 0; a < actionSize; ++a) {
+                    // player != actingPlayer therefore probWithoutPlayer == acting player's prob
+                    isInfos.setCumulativeStrat(isId, a, mul * isInfos.getCumulativeStrat(isId, a) + probWithoutPlayer * isInfos.getStrat(isId, a));
+                }
+                isInfos.setLastVisitedAtIteration(isId, iterationCounter);
+            }
+            int actionIdx = sampleStrategy(isId, actionSize, depth);
+            double actionProb = isInfos.getStrat(isId, actionIdx);
+            utility = cfr(tracker.next(legalActions.get(actionIdx)), playerProb, opponentProb * actionProb,
+                    sampleProb * actionProb, player, depth+1);
+        }
+
+        if (isLeavingObserved(tracker)) {
+            if (info == null) info = createInfo(tracker, playerProb, opponentProb, sampleProb, player);
+            notifyLeavingState(tracker, info, (player == 1 ? 1 : -1) * utility / sampleProb);
+        }
+        return utility;
+    }
+
+    /**
+     * Get discount of IS's cumulative strategy since its last accumulation.
+     * @param isId
+     * @return
+     */
+    private double getCumulativeStratMul(int isId) {
+        return Math.pow(((double) isInfos.getLastVisitedAtIteration(isId)) / iterationCounter, cumulativeStratExp);
+    }
+
+    @Override
+    public void runIteration(IGameTraversalTracker tracker) {
+        iterationCounter++;
+        int player = (int)(iterationCounter % 2) + 1;
+        cfr(tracker, 1, 1, 1, player, 0);
+        isInfos.doDirtyRegretMatching();
+    }
+
+    @Override
+    public void writeState(ObjectOutput out) throws IOException {
+        super.writeState(out);
+        out.writeLong(iterationCounter);
+    }
+
+    @Override
+    public void readState(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readState(in);
+        iterationCounter = in.readLong();
+    }
+
+    @Override
+    public BaseCFRSolver copy(IStrategyAccumulationFilter accumulationFilter) {
+        return new ExternalSamplingMCCFRSolver(this, accumulationFilter);
+    }
+}
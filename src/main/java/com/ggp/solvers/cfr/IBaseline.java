@@ -1,12 +1,27 @@
 package com.ggp.solvers.cfr;
 
+/**
+ * Baseline update rule.
+ *
+ * Baseline values of all actions start at 0 and are kept by the solver's IS store.
+ */
 public interface IBaseline {
     interface IFactory {
-        IBaseline create(int actionSize);
+        IBaseline create();
         String getConfigString();
     }
 
-    double getValue(int actionIdx);
-    void update(int actionIdx, double utilityEstimate);
-    IBaseline copy();
+    /**
+     * Compute new baseline value of an action.
+     * @param value
+     * @param utilityEstimate
+     * @return
+     */
+    double update(double value, double utilityEstimate);
+
+    /**
+     * Whether the baseline is constant, i.e. no values have to be stored.
+     * @return
+     */
+    boolean isConstant();
 }
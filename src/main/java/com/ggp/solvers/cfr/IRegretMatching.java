@@ -1,14 +1,30 @@
 package com.ggp.solvers.cfr;
 
-
+/**
+ * Regret matching rule.
+ *
+ * Implementations don't hold per-IS state, regrets are kept by the solver's IS store.
+ */
 public interface IRegretMatching {
     interface IFactory {
-        IRegretMatching create(int actionSize);
+        IRegretMatching create();
         String getConfigString();
     }
 
-    void addActionRegret(int actionIdx, double regretDiff);
-    void getRegretMatchedStrategy(double[] probabilities);
-    double getRegret(int actionIdx);
-    IRegretMatching copy();
+    /**
+     * Compute new cumulative regret of an action.
+     * @param oldRegret
+     * @param regretDiff
+     * @param iteration 1-based number of the IS's regret matching round
+     * @return
+     */
+    double sumRegrets(double oldRegret, double regretDiff, long iteration);
+
+    /**
+     * Compute regret-matched strategy.
+     * @param regrets cumulative regrets of IS's actions
+     * @param probabilities output array
+     * @param size number of IS's actions
+     */
+    void getRegretMatchedStrategy(double[] regrets, double[] probabilities, int size);
 }
@@ -6,22 +6,32 @@ import com.ggp.players.continual_resolving.cfrd.actions.FollowAction;
 import com.ggp.players.continual_resolving.cfrd.actions.TerminateAction;
 import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
 import com.ggp.solvers.cfr.baselines.NoBaseline;
-import com.ggp.solvers.cfr.is_info.BaseCFRISInfo;
-import com.ggp.solvers.cfr.is_info.MCCFRISInfo;
-import com.ggp.solvers.cfr.utils.RandomNodeIS;
-import com.ggp.utils.PlayerHelpers;
+import com.ggp.solvers.cfr.utils.ChanceBaselineTable;
+import com.ggp.utils.ForkJoinPools;
 import com.ggp.utils.random.RandomSampler;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.function.Function;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
 public class MCCFRSolver extends BaseCFRSolver implements ITargetableSolver {
     public static class Factory extends BaseCFRSolver.Factory {
         protected final double explorationProb;
         protected final double targetingProb;
         protected final double cumulativeStratExp;
+        protected final int parallelism;
 
         public Factory(IRegretMatching.IFactory rmFactory, double explorationProb, double targetingProb, double cumulativeStratExp) {
+            this(rmFactory, explorationProb, targetingProb, cumulativeStratExp, 1);
+        }
+
+        public Factory(IRegretMatching.IFactory rmFactory, double explorationProb, double targetingProb, double cumulativeStratExp,
+                       int parallelism) {
             super(rmFactory);
             if (explorationProb < 0 || explorationProb > 1) {
                 throw new IllegalArgumentException("Exploration probability has to be from [0,1]!");
@@ -29,14 +39,19 @@ public class MCCFRSolver extends BaseCFRSolver implements ITargetableSolver {
             if (targetingProb < 0 || targetingProb > 1) {
                 throw new IllegalArgumentException("Targeting probability has to be from [0,1]");
             }
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive!");
+            }
             this.explorationProb = explorationProb;
             this.targetingProb = targetingProb;
             this.cumulativeStratExp = cumulativeStratExp;
+            this.parallelism = parallelism;
         }
 
         @Override
         public BaseCFRSolver create(IStrategyAccumulationFilter accumulationFilter) {
-            return new MCCFRSolver(rmFactory, accumulationFilter, explorationProb, targetingProb, cumulativeStratExp);
+            return initStorage(new MCCFRSolver(rmFactory, accumulationFilter, explorationProb, targetingProb, cumulativeStratExp,
+                    new NoBaseline.Factory(), parallelism));
         }
 
 
@@ -47,18 +62,71 @@ public class MCCFRSolver extends BaseCFRSolver implements ITargetableSolver {
                     ",e=" + explorationProb +
                     ",rm=" + rmFactory.getConfigString() +
                     ",cse=" + cumulativeStratExp +
+                    (parallelism > 1 ? ",par=" + parallelism : "") +
+                    getStorageConfigString() +
                     '}';
         }
     }
 
+    /**
+     * Number of sampled iterations each worker runs in one call of runIteration, so that the fork-join
+     * overhead is amortized.
+     */
+    private static final int WORKER_BATCH_SIZE = 16;
+
     private final double explorationProb;
     private final double targetingProb;
-    private RandomSampler sampler = new RandomSampler();
     private long iterationCounter = 0;
     private IBaseline.IFactory baselineFactory;
+    private final IBaseline baseline;
+    /**
+     * Baselines of chance nodes, null when the baseline is constant.
+     */
+    private final ChanceBaselineTable chanceBaselines;
     private final double cumulativeStratExp;
     private ISearchTargeting rootTargeting;
-    private boolean isTargetedIteration = false;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private Worker[] workers;
+
+    /**
+     * Scratch arrays indexed by depth, which are reused by all iterations.
+     */
+    private static class DepthBuffers {
+        private double[][] buffers = new double[0][];
+
+        public double[] get(int depth, int size) {
+            if (depth >= buffers.length) {
+                buffers = Arrays.copyOf(buffers, Math.max(2*buffers.length, depth + 1));
+            }
+            double[] ret = buffers[depth];
+            if (ret == null || ret.length < size) {
+                ret = new double[Math.max(size, 2)];
+                buffers[depth] = ret;
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * State of one sampling thread.
+     *
+     * Holds all scratch data of the traversal, so that steady-state iterations don't allocate.
+     */
+    private static class Worker {
+        private final RandomSampler sampler = new RandomSampler();
+        private final CFRResult result = new CFRResult();
+        private final DepthBuffers strats = new DepthBuffers();
+        private final DepthBuffers sampleProbs = new DepthBuffers();
+        private final DepthBuffers targetedProbs = new DepthBuffers();
+        private boolean isTargetedIteration = false;
+        private long iteration = 0;
+        private long visitedStates = 0;
+        // result of the last sample
+        private int sampledIdx;
+        private double sampledTargetedProb;
+        private double sampledUntargetedProb;
+    }
 
     public MCCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter,
                        double explorationProb, double targetingProb, double cumulativeStratExp) {
@@ -67,11 +135,38 @@ public class MCCFRSolver extends BaseCFRSolver implements ITargetableSolver {
 
     public MCCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter, double explorationProb,
                        double targetingProb, double cumulativeStratExp, IBaseline.IFactory baselineFactory) {
-        super(rmFactory, accumulationFilter);
+        this(rmFactory, accumulationFilter, explorationProb, targetingProb, cumulativeStratExp, baselineFactory, 1);
+    }
+
+    /**
+     * Constructor
+     * @param rmFactory
+     * @param accumulationFilter
+     * @param explorationProb
+     * @param targetingProb
+     * @param cumulativeStratExp
+     * @param baselineFactory
+     * @param parallelism number of workers which sample iterations concurrently, 1 means serial sampling
+     */
+    public MCCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter, double explorationProb,
+                       double targetingProb, double cumulativeStratExp, IBaseline.IFactory baselineFactory, int parallelism) {
+        this(rmFactory, accumulationFilter, explorationProb, targetingProb, cumulativeStratExp, baselineFactory,
+                baselineFactory.create(), parallelism);
+    }
+
+    private MCCFRSolver(IRegretMatching.IFactory rmFactory, IStrategyAccumulationFilter accumulationFilter, double explorationProb,
+                        double targetingProb, double cumulativeStratExp, IBaseline.IFactory baselineFactory, IBaseline baseline,
+                        int parallelism) {
+        super(rmFactory, accumulationFilter, baseline.isConstant() ? 0 : 2);
         this.explorationProb = explorationProb;
         this.targetingProb = targetingProb;
         this.cumulativeStratExp = cumulativeStratExp;
         this.baselineFactory = baselineFactory;
+        this.baseline = baseline;
+        this.chanceBaselines = baseline.isConstant() ? null : new ChanceBaselineTable();
+        this.parallelism = parallelism;
+        this.pool = (parallelism > 1 ? ForkJoinPools.get(parallelism) : null);
+        initWorkers();
     }
 
     protected MCCFRSolver(MCCFRSolver solver, IStrategyAccumulationFilter accumulationFilter) {
@@ -80,8 +175,24 @@ public class MCCFRSolver extends BaseCFRSolver implements ITargetableSolver {
         this.targetingProb = solver.targetingProb;
         this.iterationCounter = solver.iterationCounter;
         this.baselineFactory = solver.baselineFactory;
+        this.baseline = solver.baseline;
+        this.chanceBaselines = (solver.chanceBaselines != null) ? solver.chanceBaselines.copy() : null;
         this.cumulativeStratExp = solver.cumulativeStratExp;
         this.rootTargeting = solver.rootTargeting;
+        this.parallelism = solver.parallelism;
+        this.pool = solver.pool;
+        initWorkers();
+    }
+
+    private void initWorkers() {
+        workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; ++i) {
+            workers[i] = new Worker();
+        }
+        if (pool != null) {
+            enableConcurrentAccess();
+            if (chanceBaselines != null) chanceBaselines.enableConcurrentAccess();
+        }
     }
 
     private static class CFRResult {
@@ -89,22 +200,11 @@ public class MCCFRSolver extends BaseCFRSolver implements ITargetableSolver {
         public double sampleProb;
         public double utility;
 
-        public CFRResult(double suffixReachProb, double sampleProb, double utility) {
+        public CFRResult set(double suffixReachProb, double sampleProb, double utility) {
             this.suffixReachProb = suffixReachProb;
             this.sampleProb = sampleProb;
             this.utility = utility;
-        }
-    }
-
-    private static class SampleResult {
-        public int actionIdx;
-        public double targetedProb;
-        public double untargetedProb;
-
-        public SampleResult(int actionIdx, double targetedProb, double untargetedProb) {
-            this.actionIdx = actionIdx;
-            this.targetedProb = targetedProb;
-            this.untargetedProb = untargetedProb;
+            return this;
         }
     }
 
@@ -113,103 +213,160 @@ public class MCCFRSolver extends BaseCFRSolver implements ITargetableSolver {
         rootTargeting = targeting;
     }
 
-    private SampleResult sample(ICompleteInformationState s, ISearchTargeting targeting, Function<Integer, Double> probMap, int size) {
-        Function<Integer, Double> targetedProbMap = probMap;
+    /**
+     * Sample action index from given probabilities, the result is stored in the worker.
+     * @param w
+     * @param s
+     * @param targeting
+     * @param probs
+     * @param size
+     * @param depth
+     */
+    private void sample(Worker w, ICompleteInformationState s, ISearchTargeting targeting, double[] probs, int size, int depth) {
         if (targeting != null) {
             List<Integer> targetedActions = targeting.target(s);
             if (targetedActions != null && !targetedActions.isEmpty()) {
-                Function<Integer, Double> normalizedTargetedProbs = sampler.normalize(targetedActions, probMap);
-                if (isTargetedIteration) {
-                    RandomSampler.SampleResult<Integer> res = sampler.select(targetedActions, normalizedTargetedProbs);
-                    return new SampleResult(res.getResult(), res.getSampleProb(), probMap.apply(res.getResult()));
-                } else {
-                    targetedProbMap = a -> targetedActions.contains(a) ? normalizedTargetedProbs.apply(a) : 0d;
+                int targetedCount = targetedActions.size();
+                double[] normalizedTargetedProbs = w.targetedProbs.get(depth, targetedCount);
+                double norm = 0;
+                for (int i = 0; i < targetedCount; ++i) {
+                    norm += probs[targetedActions.get(i)];
+                }
+                for (int i = 0; i < targetedCount; ++i) {
+                    normalizedTargetedProbs[i] = (norm > 0) ? probs[targetedActions.get(i)]/norm : 1d/targetedCount;
+                }
+                if (w.isTargetedIteration) {
+                    int i = w.sampler.selectIdx(normalizedTargetedProbs, targetedCount);
+                    w.sampledIdx = targetedActions.get(i);
+                    w.sampledTargetedProb = normalizedTargetedProbs[i];
+                    w.sampledUntargetedProb = probs[w.sampledIdx];
+                    return;
                 }
+                w.sampledIdx = w.sampler.selectIdx(probs, size);
+                w.sampledUntargetedProb = probs[w.sampledIdx];
+                w.sampledTargetedProb = 0;
+                for (int i = 0; i < targetedCount; ++i) {
+                    if (targetedActions.get(i) == w.sampledIdx) {
+                        w.sampledTargetedProb = normalizedTargetedProbs[i];
+                        break;
+                    }
+                }
+                return;
             }
         }
-        RandomSampler.SampleResult<Integer> res = sampler.selectIdx(size, probMap);
-        return new SampleResult(res.getResult(), targetedProbMap.apply(res.getResult()), res.getSampleProb());
+        w.sampledIdx = w.sampler.selectIdx(probs, size);
+        w.sampledUntargetedProb = probs[w.sampledIdx];
+        w.sampledTargetedProb = w.sampledUntargetedProb;
     }
 
-    private SampleResult sampleRandom(ICompleteInformationState s, ISearchTargeting targeting) {
-        List<IAction> legalActions = s.getLegalActions();
+    /**
+     * Fill random node's action probabilities into given array.
+     * @param s
+     * @param legalActions
+     * @param probs
+     */
+    private static void getRandomProbs(ICompleteInformationState s, List<IAction> legalActions, double[] probs) {
         IRandomNode rndNode = s.getRandomNode();
-        Function<Integer, Double> probMap  = actionIdx -> rndNode.getActionProb(legalActions.get(actionIdx));
-        return sample(s, targeting, probMap, legalActions.size());
+        for (int a = 0; a < legalActions.size(); ++a) {
+            probs[a] = rndNode.getActionProb(legalActions.get(a));
+        }
+    }
+
+    private void sampleRandom(Worker w, ICompleteInformationState s, ISearchTargeting targeting, int depth) {
+        List<IAction> legalActions = s.getLegalActions();
+        double[] probs = w.sampleProbs.get(depth, legalActions.size());
+        getRandomProbs(s, legalActions, probs);
+        sample(w, s, targeting, probs, legalActions.size(), depth);
     }
 
-    private SampleResult samplePlayerAction(ICompleteInformationState s, double[] strat, int player, ISearchTargeting targeting) {
-        double unifPart = explorationProb * 1d/strat.length;
-        Function<Integer, Double> probMap;
+    private void samplePlayerAction(Worker w, ICompleteInformationState s, double[] strat, int size, int player,
+                                    ISearchTargeting targeting, int depth) {
+        double[] probs = w.sampleProbs.get(depth, size);
         if (s.getActingPlayerId() == player) {
-            probMap = actionIdx -> unifPart + (1-explorationProb) * strat[actionIdx];
+            double unifPart = explorationProb * 1d/size;
+            for (int a = 0; a < size; ++a) {
+                probs[a] = unifPart + (1-explorationProb) * strat[a];
+            }
         } else {
-            probMap = actionIdx -> strat[actionIdx];
+            System.arraycopy(strat, 0, probs, 0, size);
         }
-        return sample(s, targeting, probMap, strat.length);
+        sample(w, s, targeting, probs, size, depth);
     }
 
-    private CFRResult playout(IGameTraversalTracker tracker, double prefixProb, int player) {
+    private CFRResult playout(Worker w, IGameTraversalTracker tracker, double prefixProb, int player, int depth) {
         double suffixProb = 1;
         ICompleteInformationState s = tracker.getCurrentState();
         while (!s.isTerminal()) {
-            visitedStates++;
-            SampleResult res;
+            w.visitedStates++;
+            List<IAction> legalActions = s.getLegalActions();
+            int actionIdx;
             if (s.isRandomNode()) {
-                res = sampleRandom(s, null);
+                sampleRandom(w, s, null, depth);
+                actionIdx = w.sampledIdx;
+                suffixProb *= w.sampledUntargetedProb;
             } else {
-                List<IAction> legalActions = s.getLegalActions();
-                res = new SampleResult(sampler.selectIdx(legalActions),
-                        1d/legalActions.size(), 1d/legalActions.size());
+                actionIdx = w.sampler.selectIdx(legalActions.size());
+                suffixProb *= 1d/legalActions.size();
             }
-
-            suffixProb *= res.untargetedProb;
-            tracker = tracker.next(s.getLegalActions().get(res.actionIdx));
+            tracker = tracker.next(legalActions.get(actionIdx));
             s = tracker.getCurrentState();
         }
-        return new CFRResult(suffixProb, prefixProb * suffixProb, tracker.getPayoff(player)/suffixProb);
+        return w.result.set(suffixProb, prefixProb * suffixProb, tracker.getPayoff(player)/suffixProb);
+    }
+
+    private static Info createInfo(IGameTraversalTracker tracker, double playerProb, double opponentProb,
+                                   double sampleProb, int player) {
+        return (player == 1) ? new Info(playerProb, opponentProb, tracker.getRndProb(), sampleProb)
+                : new Info(opponentProb, playerProb, tracker.getRndProb(), sampleProb);
     }
 
-    private CFRResult cfr(IGameTraversalTracker tracker, double playerProb, double opponentProb,
+    private CFRResult cfr(Worker w, IGameTraversalTracker tracker, double playerProb, double opponentProb,
                           double targetedSampleProb, double untargetedSampleProb, int player, int depth, ISearchTargeting targeting) {
         ICompleteInformationState s = tracker.getCurrentState();
         double totalSampleProb = targetingProb * targetedSampleProb + (1-targetingProb) * untargetedSampleProb;
-        Info info = PlayerHelpers.callWithOrderedParams(player, playerProb, opponentProb, (prob1, prob2) -> new Info(prob1, prob2, tracker.getRndProb(), totalSampleProb));
-        visitedStates++;
-        listeners.forEach(listener -> listener.enteringState(tracker, info));
-
+        Info info = null;
+        w.visitedStates++;
+        if (isEnteringObserved(tracker)) {
+            info = createInfo(tracker, playerProb, opponentProb, totalSampleProb, player);
+            notifyEnteringState(tracker, info);
+        }
 
         if (s.isTerminal()) {
-            return new CFRResult(1,
-                    totalSampleProb,
-                    tracker.getPayoff(player));
+            return w.result.set(1, totalSampleProb, tracker.getPayoff(player));
         }
         List<IAction> legalActions = s.getLegalActions();
         if (legalActions == null || legalActions.isEmpty()) return null;
         if (s.isRandomNode()) {
-            MCCFRISInfo isInfo = (MCCFRISInfo) getIsInfo(new RandomNodeIS(depth, legalActions));
-            IBaseline baseline = isInfo.getBaseline(player);
-            SampleResult sample = sampleRandom(s, targeting);
-            final double sampleProb = targetingProb * sample.targetedProb + (1-targetingProb) * sample.untargetedProb;
-            IAction action = legalActions.get(sample.actionIdx);
-            CFRResult res = cfr(tracker.next(action), playerProb, opponentProb,
-                    sample.targetedProb * targetedSampleProb, sample.untargetedProb * untargetedSampleProb,
-                    player, depth+1, (targeting != null) ? targeting.next(action, sample.actionIdx) : null);
-            res.suffixReachProb *= sample.untargetedProb; // action prob == untargeted sampling prob for random node
+            sampleRandom(w, s, targeting, depth);
+            final int sampledIdx = w.sampledIdx;
+            final double sampledTargetedProb = w.sampledTargetedProb, sampledUntargetedProb = w.sampledUntargetedProb;
+            final double sampleProb = targetingProb * sampledTargetedProb + (1-targetingProb) * sampledUntargetedProb;
+            IAction action = legalActions.get(sampledIdx);
+            CFRResult res = cfr(w, tracker.next(action), playerProb, opponentProb,
+                    sampledTargetedProb * targetedSampleProb, sampledUntargetedProb * untargetedSampleProb,
+                    player, depth+1, (targeting != null) ? targeting.next(action, sampledIdx) : null);
+            res.suffixReachProb *= sampledUntargetedProb; // action prob == untargeted sampling prob for random node
+            if (baseline.isConstant()) {
+                // constant baselines are 0, so only the sampled action contributes
+                res.utility = sampledUntargetedProb * res.utility / sampleProb;
+                return res;
+            }
+            // deeper nodes use their own buffers, so the probabilities are still there
+            double[] probs = w.sampleProbs.get(depth, legalActions.size());
             double utility = 0;
-            int actionIdx = 0;
-            for (IRandomNode.IRandomNodeAction rna: s.getRandomNode()) {
-                IAction a = rna.getAction();
-                double actionProb = rna.getProb();
-                double baselineValue = baseline.getValue(actionIdx);
-                if (actionIdx == sample.actionIdx) {
-                    double actionUtil = (baselineValue + (res.utility - baselineValue)/sampleProb);
-                    utility += actionProb * actionUtil;
-                    baseline.update(actionIdx, res.utility);
-                } else {
-                    utility += actionProb * baselineValue;
+            int nodeId = chanceBaselines.getOrCreateId(ChanceBaselineTable.key(depth, legalActions.size()), legalActions.size());
+            synchronized (chanceBaselines.getLock(nodeId)) {
+                for (int actionIdx = 0; actionIdx < legalActions.size(); ++actionIdx) {
+                    double actionProb = probs[actionIdx];
+                    double baselineValue = chanceBaselines.get(nodeId, player, actionIdx);
+                    if (actionIdx == sampledIdx) {
+                        double actionUtil = (baselineValue + (res.utility - baselineValue)/sampleProb);
+                        utility += actionProb * actionUtil;
+                        chanceBaselines.set(nodeId, player, actionIdx, baseline.update(baselineValue, res.utility));
+                    } else {
+                        utility += actionProb * baselineValue;
+                    }
                 }
-                actionIdx++;
             }
 
             res.utility = utility;
@@ -217,149 +374,228 @@ public class MCCFRSolver extends BaseCFRSolver implements ITargetableSolver {
         }
         IInformationSet actingPlayerInfoSet = s.getInfoSetForActingPlayer();
         boolean isInMemory = isInMemory(actingPlayerInfoSet);
-        MCCFRISInfo isInfo = (MCCFRISInfo) getIsInfo(actingPlayerInfoSet);
-        IBaseline baseline = isInfo.getBaseline(player);
+        int isId = getIsId(actingPlayerInfoSet);
         int actingPlayer = s.getActingPlayerId();
+        int actionSize = legalActions.size();
 
-        isInfo.doRegretMatching();
-        SampleResult sampledAction = samplePlayerAction(s, isInfo.getStrat(), player, targeting);
-        final double actionSampleProb = targetingProb * sampledAction.targetedProb + (1-targetingProb) * sampledAction.untargetedProb;
+        // other workers may change the strategy while this one is deeper in the tree
+        double[] strat = w.strats.get(depth, actionSize);
+        synchronized (isInfos.getLock(isId)) {
+            isInfos.doRegretMatching(isId);
+            isInfos.getStrat(isId, strat);
+        }
+        samplePlayerAction(w, s, strat, actionSize, player, targeting, depth);
+        final int sampledIdx = w.sampledIdx;
+        final double actionSampleProb = targetingProb * w.sampledTargetedProb + (1-targetingProb) * w.sampledUntargetedProb;
         CFRResult ret;
-        double actionProb = isInfo.getStrat()[sampledAction.actionIdx];
+        double actionProb = strat[sampledIdx];
         if (isInMemory) {
             double newPlayerProb = playerProb;
             double newOpponentProb = opponentProb;
-            if (s.getActingPlayerId() == player) {
+            if (actingPlayer == player) {
                 newPlayerProb *= actionProb;
             } else {
                 newOpponentProb *= actionProb;
             }
-            IAction action = legalActions.get(sampledAction.actionIdx);
-            ret = cfr(tracker.next(action), newPlayerProb, newOpponentProb,
-                    sampledAction.targetedProb * targetedSampleProb,
-                    sampledAction.untargetedProb * untargetedSampleProb, player,
-                    depth+1, (targeting != null) ? targeting.next(action, sampledAction.actionIdx) : null);
+            IAction action = legalActions.get(sampledIdx);
+            ret = cfr(w, tracker.next(action), newPlayerProb, newOpponentProb,
+                    w.sampledTargetedProb * targetedSampleProb,
+                    w.sampledUntargetedProb * untargetedSampleProb, player,
+                    depth+1, (targeting != null) ? targeting.next(action, sampledIdx) : null);
         } else {
-            ret = playout(tracker.next(legalActions.get(sampledAction.actionIdx)), (totalSampleProb)/legalActions.size(), player);
+            ret = playout(w, tracker.next(legalActions.get(sampledIdx)), (totalSampleProb)/actionSize, player, depth+1);
         }
         double utility = 0;
-        int actionIdx = 0;
-        for (IAction a: legalActions) {
-            double prob = isInfo.getStrat()[actionIdx];
-            double baselineValue = baseline.getValue(actionIdx);
-            double actionUtil = baselineValue;
-            if (actionIdx == sampledAction.actionIdx) {
-                actionUtil = (baselineValue + (ret.utility - baselineValue) / actionSampleProb);
-            }
-            utility += prob * actionUtil;
-            actionIdx++;
-        }
-
         double probWithoutPlayer = opponentProb * tracker.getRndProb();
         double newSuffixReachProb = actionProb * ret.suffixReachProb;
-        double cfv = probWithoutPlayer * utility / totalSampleProb;
-
-        final double p1Utility = PlayerHelpers.selectByPlayerId(player, 1, -1) * utility / totalSampleProb;
-        listeners.forEach(listener -> listener.leavingState(tracker, info, p1Utility));
-
-        if (actingPlayer == player) {
-            actionIdx = 0;
-            for (IAction a: legalActions) {
-                double baselineValue = baseline.getValue(actionIdx);
-                double actionUtil;
-                if (actionIdx == sampledAction.actionIdx) {
-                    actionUtil = baselineValue + (ret.utility - baselineValue)/actionSampleProb;
-                } else {
-                    actionUtil = baselineValue;
+        synchronized (isInfos.getLock(isId)) {
+            for (int actionIdx = 0; actionIdx < actionSize; ++actionIdx) {
+                double prob = strat[actionIdx];
+                double baselineValue = isInfos.getBaseline(isId, player, actionIdx);
+                double actionUtil = baselineValue;
+                if (actionIdx == sampledIdx) {
+                    actionUtil = (baselineValue + (ret.utility - baselineValue) / actionSampleProb);
                 }
-                double actionCFV = probWithoutPlayer * actionUtil / totalSampleProb;
-                addRegret(isInfo, actionIdx, actionCFV - cfv);
-                actionIdx++;
+                utility += prob * actionUtil;
             }
-        } else {
-            if (accumulationFilter.isAccumulated(actingPlayerInfoSet)) {
-                double[] strat = isInfo.getStrat();
-                double[] cumulativeStrat = isInfo.getCumulativeStrat();
-                double mul = Math.pow(((double) isInfo.getLastVisitedAtIteration()) / iterationCounter, cumulativeStratExp);
-                for (int a = 0; a < legalActions.size(); ++a) {
-                    // player != actingPlayer therefore probWithoutPlayer == acting player's prob
-                    cumulativeStrat[a] = mul * cumulativeStrat[a] + probWithoutPlayer*strat[a]/totalSampleProb;
+
+            double cfv = probWithoutPlayer * utility / totalSampleProb;
+
+            if (actingPlayer == player) {
+                for (int actionIdx = 0; actionIdx < actionSize; ++actionIdx) {
+                    double baselineValue = isInfos.getBaseline(isId, player, actionIdx);
+                    double actionUtil;
+                    if (actionIdx == sampledIdx) {
+                        actionUtil = baselineValue + (ret.utility - baselineValue)/actionSampleProb;
+                    } else {
+                        actionUtil = baselineValue;
+                    }
+                    double actionCFV = probWithoutPlayer * actionUtil / totalSampleProb;
+                    addRegret(isId, actionIdx, actionCFV - cfv);
+                }
+            } else {
+                if (accumulationFilter.isAccumulated(actingPlayerInfoSet)) {
+                    double mul = getCumulativeStratMul(isId, w.iteration);
+                    for (int a = 0; a < actionSize; ++a) {
+                        // player != actingPlayer therefore probWithoutPlayer == acting player's prob
+                        isInfos.setCumulativeStrat(isId, a, mul * isInfos.getCumulativeStrat(isId, a) + probWithoutPlayer*strat[a]/totalSampleProb);
+                    }
                 }
             }
+            isInfos.setBaseline(isId, player, sampledIdx, baseline.update(isInfos.getBaseline(isId, player, sampledIdx), ret.utility));
+            setLastVisited(isId, w.iteration);
         }
-        baseline.update(sampledAction.actionIdx, ret.utility);
-        isInfo.setLastVisitedAtIteration(iterationCounter);
+
+        if (isLeavingObserved(tracker)) {
+            if (info == null) info = createInfo(tracker, playerProb, opponentProb, totalSampleProb, player);
+            final double p1Utility = (player == 1 ? 1 : -1) * utility / totalSampleProb;
+            notifyLeavingState(tracker, info, p1Utility);
+        }
+
         ret.suffixReachProb = newSuffixReachProb;
         ret.utility = utility;
         return ret;
     }
 
-    private double handleCFRDStart(IGameTraversalTracker tracker, double targetedSampleProb, double untargetedSampleProb, int player, ISearchTargeting targeting) {
+    /**
+     * Get discount of IS's cumulative strategy since its last visit. Must be called with the IS locked.
+     * @param isId
+     * @param iteration
+     * @return
+     */
+    private double getCumulativeStratMul(int isId, long iteration) {
+        // concurrent workers may have already visited the IS in a later iteration
+        double lastVisited = Math.min(isInfos.getLastVisitedAtIteration(isId), iteration);
+        return Math.pow(lastVisited / iteration, cumulativeStratExp);
+    }
+
+    private void setLastVisited(int isId, long iteration) {
+        isInfos.setLastVisitedAtIteration(isId, Math.max(isInfos.getLastVisitedAtIteration(isId), iteration));
+    }
+
+    private double handleCFRDStart(Worker w, IGameTraversalTracker tracker, double targetedSampleProb, double untargetedSampleProb, int player, int depth, ISearchTargeting targeting) {
         ICompleteInformationState s = tracker.getCurrentState();
         final double totalSampleProb = targetingProb * targetedSampleProb + (1-targetingProb) * untargetedSampleProb;
-        Info info = new Info(1,1, tracker.getRndProb(), totalSampleProb);
-        visitedStates++;
-        listeners.forEach(listener -> listener.enteringState(tracker, info));
+        Info info = null;
+        w.visitedStates++;
+        if (isEnteringObserved(tracker)) {
+            info = new Info(1,1, tracker.getRndProb(), totalSampleProb);
+            notifyEnteringState(tracker, info);
+        }
         double util = 0;
         if (s.getClass().equals(CFRDGadgetRoot.class)) {
             List<IAction> legalActions = s.getLegalActions();
-            SampleResult sample = sampleRandom(s, targeting);
-            IAction a = legalActions.get(sample.actionIdx);
-            util = handleCFRDStart(tracker.next(a),
-                    sample.targetedProb * targetedSampleProb,
-                    sample.untargetedProb * untargetedSampleProb, player,
-                    targeting != null ? targeting.next(a, sample.actionIdx) : null);
+            sampleRandom(w, s, targeting, depth);
+            final int sampledIdx = w.sampledIdx;
+            IAction a = legalActions.get(sampledIdx);
+            util = handleCFRDStart(w, tracker.next(a),
+                    w.sampledTargetedProb * targetedSampleProb,
+                    w.sampledUntargetedProb * untargetedSampleProb, player, depth+1,
+                    targeting != null ? targeting.next(a, sampledIdx) : null);
         } else {
             IInformationSet actingPlayerInfoSet = s.getInfoSetForActingPlayer();
-            MCCFRISInfo isInfo = (MCCFRISInfo) getIsInfo(actingPlayerInfoSet);
+            int isId = getIsId(actingPlayerInfoSet);
             final int actingPlayer = s.getActingPlayerId();
-            double actionUtil[] = new double[2];
+            double[] strat = w.strats.get(depth, 2);
+            synchronized (isInfos.getLock(isId)) {
+                isInfos.getStrat(isId, strat);
+            }
             // since both actions are always "sampled" we leave sampling probs as they are
-            CFRResult followRes = cfr(tracker.next(FollowAction.instance), (actingPlayer == player) ? isInfo.getStrat()[0] : 1,
-                    (actingPlayer != player) ? isInfo.getStrat()[0] : 1,
-                    targetedSampleProb, untargetedSampleProb, player, 2, targeting != null ? targeting.next(FollowAction.instance, 0) : null);
-            actionUtil[0] = followRes.utility / totalSampleProb;
-            actionUtil[1] = tracker.next(TerminateAction.instance).getPayoff(player) / totalSampleProb;
-
-            util = (isInfo.getStrat()[0] * actionUtil[0] + isInfo.getStrat()[1] * actionUtil[1]);
-
-            if (actingPlayer == player) {
-                for (int a = 0; a < 2; a++) {
-                    addRegret(isInfo, a, tracker.getRndProb() * (actionUtil[a] - util));
-                }
-                isInfo.doRegretMatching();
-            } else if (accumulationFilter.isAccumulated(actingPlayerInfoSet)) {
-                double[] strat = isInfo.getStrat();
-                double[] cumulativeStrat = isInfo.getCumulativeStrat();
-                double mul = Math.pow(((double) isInfo.getLastVisitedAtIteration()) / iterationCounter, cumulativeStratExp);
-                for (int a = 0; a < 2; ++a) {
-                    cumulativeStrat[a] = mul * cumulativeStrat[a] + tracker.getRndProb()*strat[a]/totalSampleProb;
+            CFRResult followRes = cfr(w, tracker.next(FollowAction.instance), (actingPlayer == player) ? strat[0] : 1,
+                    (actingPlayer != player) ? strat[0] : 1,
+                    targetedSampleProb, untargetedSampleProb, player, depth+1, targeting != null ? targeting.next(FollowAction.instance, 0) : null);
+            final double followUtil = followRes.utility / totalSampleProb;
+            final double terminateUtil = tracker.next(TerminateAction.instance).getPayoff(player) / totalSampleProb;
+
+            util = (strat[0] * followUtil + strat[1] * terminateUtil);
+
+            synchronized (isInfos.getLock(isId)) {
+                if (actingPlayer == player) {
+                    addRegret(isId, 0, tracker.getRndProb() * (followUtil - util));
+                    addRegret(isId, 1, tracker.getRndProb() * (terminateUtil - util));
+                    isInfos.doRegretMatching(isId);
+                } else if (accumulationFilter.isAccumulated(actingPlayerInfoSet)) {
+                    double mul = getCumulativeStratMul(isId, w.iteration);
+                    for (int a = 0; a < 2; ++a) {
+                        isInfos.setCumulativeStrat(isId, a, mul * isInfos.getCumulativeStrat(isId, a) + tracker.getRndProb()*strat[a]/totalSampleProb);
+                    }
                 }
+                setLastVisited(isId, w.iteration);
             }
-            isInfo.setLastVisitedAtIteration(iterationCounter);
         }
 
-        final double p1Utility = PlayerHelpers.selectByPlayerId(player, 1, -1) * util;
-        listeners.forEach(listener -> listener.leavingState(tracker, info, p1Utility));
+        if (isLeavingObserved(tracker)) {
+            if (info == null) info = new Info(1,1, tracker.getRndProb(), totalSampleProb);
+            final double p1Utility = (player == 1 ? 1 : -1) * util;
+            notifyLeavingState(tracker, info, p1Utility);
+        }
         return util;
     }
 
-    @Override
-    public void runIteration(IGameTraversalTracker tracker) {
-        iterationCounter++;
-        isTargetedIteration = sampler.choose(targetingProb);
-        int player = (int)(iterationCounter % 2) + 1;
+    private void runIteration(Worker w, IGameTraversalTracker tracker, long iteration) {
+        w.iteration = iteration;
+        w.isTargetedIteration = w.sampler.choose(targetingProb);
+        int player = (int)(iteration % 2) + 1;
         if (tracker.getCurrentState().getClass().equals(CFRDGadgetRoot.class)) {
-            handleCFRDStart(tracker, 1, 1, player, rootTargeting);
+            handleCFRDStart(w, tracker, 1, 1, player, 0, rootTargeting);
         } else {
-            cfr(tracker, 1, 1, 1, 1, player, 0, rootTargeting);
+            cfr(w, tracker, 1, 1, 1, 1, player, 0, rootTargeting);
+        }
+    }
+
+    /**
+     * Run iteration(s) of MCCFR
+     *
+     * With parallelism > 1 every worker runs a batch of sampled iterations concurrently with the others.
+     * @param tracker
+     */
+    @Override
+    public void runIteration(IGameTraversalTracker tracker) {
+        if (pool == null) {
+            Worker w = workers[0];
+            runIteration(w, tracker, ++iterationCounter);
+            visitedStates += w.visitedStates;
+            w.visitedStates = 0;
+            return;
+        }
+        final long firstIteration = iterationCounter + 1;
+        List<Callable<Void>> tasks = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; ++i) {
+            final Worker w = workers[i];
+            final int workerIdx = i;
+            tasks.add(() -> {
+                for (int j = 0; j < WORKER_BATCH_SIZE; ++j) {
+                    // consecutive iterations alternate the updated player, so every worker updates both players
+                    runIteration(w, tracker, firstIteration + workerIdx*WORKER_BATCH_SIZE + j);
+                }
+                return null;
+            });
         }
+        pool.invokeAll(tasks);
+        iterationCounter += getIterationsPerRun();
+        for (Worker w: workers) {
+            visitedStates += w.visitedStates;
+            w.visitedStates = 0;
+        }
+    }
+
+    @Override
+    public int getIterationsPerRun() {
+        return (pool == null) ? 1 : parallelism * WORKER_BATCH_SIZE;
+    }
+
+    @Override
+    public void writeState(ObjectOutput out) throws IOException {
+        super.writeState(out);
+        out.writeLong(iterationCounter);
+        if (chanceBaselines != null) chanceBaselines.write(out);
     }
 
     @Override
-    protected BaseCFRISInfo initIsInfo(IInformationSet is) {
-        int actionSize = is.getLegalActions().size();
-        return new MCCFRISInfo(rmFactory, actionSize, baselineFactory);
+    public void readState(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readState(in);
+        iterationCounter = in.readLong();
+        if (chanceBaselines != null) chanceBaselines.read(in);
     }
 
     @Override
@@ -5,7 +5,12 @@ public class VRMCCFRSolverFactory extends MCCFRSolver.Factory {
 
     public VRMCCFRSolverFactory(IRegretMatching.IFactory rmFactory, double explorationProb, double targetingProb,
                                 double cumulativeStratExp, IBaseline.IFactory baselineFactory) {
-        super(rmFactory, explorationProb, targetingProb, cumulativeStratExp);
+        this(rmFactory, explorationProb, targetingProb, cumulativeStratExp, baselineFactory, 1);
+    }
+
+    public VRMCCFRSolverFactory(IRegretMatching.IFactory rmFactory, double explorationProb, double targetingProb,
+                                double cumulativeStratExp, IBaseline.IFactory baselineFactory, int parallelism) {
+        super(rmFactory, explorationProb, targetingProb, cumulativeStratExp, parallelism);
         if (baselineFactory == null) {
             throw new IllegalArgumentException("Baseline factory can't be null!");
         }
@@ -14,7 +19,7 @@ public class VRMCCFRSolverFactory extends MCCFRSolver.Factory {
 
     @Override
     public BaseCFRSolver create(BaseCFRSolver.IStrategyAccumulationFilter accumulationFilter) {
-        return new MCCFRSolver(rmFactory, accumulationFilter, explorationProb, targetingProb, cumulativeStratExp, baselineFactory);
+        return initStorage(new MCCFRSolver(rmFactory, accumulationFilter, explorationProb, targetingProb, cumulativeStratExp, baselineFactory, parallelism));
     }
 
     @Override
@@ -25,6 +30,8 @@ public class VRMCCFRSolverFactory extends MCCFRSolver.Factory {
                 ",rm=" + rmFactory.getConfigString() +
                 ",cse=" + cumulativeStratExp +
                 ",bl=" + baselineFactory.getConfigString() +
+                (parallelism > 1 ? ",par=" + parallelism : "") +
+                getStorageConfigString() +
                 '}';
     }
 
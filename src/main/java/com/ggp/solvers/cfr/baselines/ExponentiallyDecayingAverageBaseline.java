@@ -2,8 +2,6 @@ package com.ggp.solvers.cfr.baselines;
 
 import com.ggp.solvers.cfr.IBaseline;
 
-import java.util.Arrays;
-
 public class ExponentiallyDecayingAverageBaseline implements IBaseline {
     public static class Factory implements IFactory {
         private final double alpha;
@@ -16,8 +14,8 @@ public class ExponentiallyDecayingAverageBaseline implements IBaseline {
         }
 
         @Override
-        public IBaseline create(int actionSize) {
-            return new ExponentiallyDecayingAverageBaseline(alpha, actionSize);
+        public IBaseline create() {
+            return new ExponentiallyDecayingAverageBaseline(alpha);
         }
 
         @Override
@@ -33,31 +31,18 @@ public class ExponentiallyDecayingAverageBaseline implements IBaseline {
         }
     }
     private final double alpha;
-    private double[] baselineValues;
-
-    private ExponentiallyDecayingAverageBaseline(ExponentiallyDecayingAverageBaseline bl) {
-        this.alpha = bl.alpha;
-        this.baselineValues = Arrays.copyOf(bl.baselineValues, bl.baselineValues.length);
-    }
 
-    public ExponentiallyDecayingAverageBaseline(double alpha, int actionSize) {
+    public ExponentiallyDecayingAverageBaseline(double alpha) {
         this.alpha = alpha;
-        this.baselineValues = new double[actionSize];
-    }
-
-    @Override
-    public double getValue(int actionIdx) {
-        if (actionIdx < 0 || actionIdx >= baselineValues.length) return 0;
-        return baselineValues[actionIdx];
     }
 
     @Override
-    public void update(int actionIdx, double utilityEstimate) {
-        baselineValues[actionIdx] = (1-alpha)*baselineValues[actionIdx] + alpha * utilityEstimate;
+    public double update(double value, double utilityEstimate) {
+        return (1-alpha)*value + alpha * utilityEstimate;
     }
 
     @Override
-    public IBaseline copy() {
-        return new ExponentiallyDecayingAverageBaseline(this);
+    public boolean isConstant() {
+        return false;
     }
 }
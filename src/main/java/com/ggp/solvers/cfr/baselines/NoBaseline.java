@@ -5,7 +5,7 @@ import com.ggp.solvers.cfr.IBaseline;
 public class NoBaseline implements IBaseline {
     public static class Factory implements IFactory {
         @Override
-        public IBaseline create(int actionSize) {
+        public IBaseline create() {
             return new NoBaseline();
         }
 
@@ -16,16 +16,12 @@ public class NoBaseline implements IBaseline {
     }
 
     @Override
-    public double getValue(int actionIdx) {
+    public double update(double value, double utilityEstimate) {
         return 0;
     }
 
     @Override
-    public void update(int actionIdx, double utilityEstimate) {
-    }
-
-    @Override
-    public IBaseline copy() {
-        return this;
+    public boolean isConstant() {
+        return true;
     }
 }
@@ -0,0 +1,97 @@
+package com.ggp.solvers.cfr.is_info;
+
+/**
+ * On-heap storage split into fixed-size chunks.
+ *
+ * Copies share the chunks, a chunk is duplicated when it's first written to by a store which doesn't own it.
+ */
+public class HeapInfoSetStorage implements IInfoSetStorage {
+    public static class Factory implements IInfoSetStorage.IFactory {
+        @Override
+        public IInfoSetStorage create() {
+            return new HeapInfoSetStorage();
+        }
+
+        @Override
+        public String getConfigString() {
+            return "Heap{}";
+        }
+    }
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final class Chunk {
+        final double[] values;
+        final Object owner;
+
+        Chunk(double[] values, Object owner) {
+            this.values = values;
+            this.owner = owner;
+        }
+    }
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private int chunkCount = 0;
+    /**
+     * Chunks are writable in place only when they are owned by the current token, it's replaced whenever the
+     * chunks become shared with a copy.
+     */
+    private Object ownerToken = new Object();
+
+    public HeapInfoSetStorage() {
+    }
+
+    private HeapInfoSetStorage(HeapInfoSetStorage storage) {
+        this.chunks = storage.chunks.clone();
+        this.chunkCount = storage.chunkCount;
+    }
+
+    @Override
+    public synchronized void ensureCapacity(long size) {
+        int neededChunks = (int) ((size + CHUNK_MASK) >>> CHUNK_BITS);
+        if (neededChunks <= chunkCount) return;
+        Chunk[] current = chunks;
+        if (neededChunks > current.length) {
+            Chunk[] grown = new Chunk[Math.max(neededChunks, 2*current.length)];
+            System.arraycopy(current, 0, grown, 0, chunkCount);
+            current = grown;
+        }
+        for (int i = chunkCount; i < neededChunks; ++i) {
+            current[i] = new Chunk(new double[CHUNK_SIZE], ownerToken);
+        }
+        chunkCount = neededChunks;
+        chunks = current;
+    }
+
+    @Override
+    public double get(long idx) {
+        return chunks[(int) (idx >>> CHUNK_BITS)].values[(int) idx & CHUNK_MASK];
+    }
+
+    @Override
+    public void set(long idx, double value) {
+        int chunkIdx = (int) (idx >>> CHUNK_BITS);
+        Chunk chunk = chunks[chunkIdx];
+        if (chunk.owner != ownerToken) chunk = own(chunkIdx);
+        chunk.values[(int) idx & CHUNK_MASK] = value;
+    }
+
+    private synchronized Chunk own(int chunkIdx) {
+        Chunk[] current = chunks;
+        Chunk chunk = current[chunkIdx];
+        if (chunk.owner == ownerToken) return chunk;
+        chunk = new Chunk(chunk.values.clone(), ownerToken);
+        current[chunkIdx] = chunk;
+        return chunk;
+    }
+
+    @Override
+    public IInfoSetStorage copy() {
+        HeapInfoSetStorage copy = new HeapInfoSetStorage(this);
+        // neither of the storages may write to the shared chunks from now on
+        ownerToken = new Object();
+        return copy;
+    }
+}
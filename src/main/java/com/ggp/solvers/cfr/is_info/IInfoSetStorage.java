@@ -0,0 +1,35 @@
+package com.ggp.solvers.cfr.is_info;
+
+/**
+ * Growable array of doubles which backs {@link InfoSetStore}.
+ *
+ * Values must not move when the storage grows, so that they can be updated concurrently with the growth.
+ */
+public interface IInfoSetStorage {
+    interface IFactory {
+        IInfoSetStorage create();
+        String getConfigString();
+    }
+
+    /**
+     * Make sure that indices lower than size are accessible. Calls must be synchronized.
+     * @param size
+     */
+    void ensureCapacity(long size);
+
+    double get(long idx);
+
+    void set(long idx, double value);
+
+    /**
+     * Create an independent copy of the storage.
+     * @return
+     */
+    IInfoSetStorage copy();
+
+    /**
+     * Release resources held by the storage, it must not be used afterwards.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,516 @@
+package com.ggp.solvers.cfr.is_info;
+
+import com.ggp.IInformationSet;
+import com.ggp.solvers.cfr.IRegretMatching;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Storage of solver's IS data.
+ *
+ * Every IS gets a dense integer id from an open-addressing table. Its data are kept as a single record in a slab
+ * of doubles ({@link IInfoSetStorage}): header (action count, number of regret matching rounds, last visited iteration,
+ * dirty flag), regrets,
+ * current strategy, cumulative strategy and optionally baseline values for each player.
+ */
+public class InfoSetStore {
+    private static final int ACTION_SIZE = 0;
+    private static final int RM_ITERATIONS = 1;
+    private static final int LAST_VISITED = 2;
+    private static final int DIRTY = 3;
+    private static final int HEADER_SIZE = 4;
+    private static final int STRIPE_COUNT = 64;
+
+    private static final class Table {
+        final IInformationSet[] keys;
+        final int[] hashes;
+        final int[] ids;
+
+        Table(int capacity) {
+            keys = new IInformationSet[capacity];
+            hashes = new int[capacity];
+            ids = new int[capacity];
+        }
+    }
+
+    private static final class Stripe {
+        double[] regrets = new double[0];
+        double[] probabilities = new double[0];
+    }
+
+    private final IRegretMatching regretMatching;
+    private final int baselineCount;
+    private IInfoSetStorage slab;
+    private long slabSize = 0;
+    private volatile Table table;
+    private volatile IInformationSet[] infoSets;
+    private volatile long[] offsets;
+    private volatile int size = 0;
+    /**
+     * Whether the id table and arrays are shared with a copy, in which case they have to be duplicated before
+     * the first new IS is added.
+     */
+    private boolean indexShared = false;
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+    private StampedLock lock = null;
+    private int[] ownerCounts = new int[3];
+    private int[] dirtyIds = null;
+    private int dirtyCount = 0;
+
+    /**
+     * Constructor
+     * @param regretMatching
+     * @param baselineCount number of baselines kept for each IS (0 or 2)
+     */
+    public InfoSetStore(IRegretMatching regretMatching, int baselineCount) {
+        this.regretMatching = regretMatching;
+        this.baselineCount = baselineCount;
+        this.slab = new HeapInfoSetStorage();
+        this.table = new Table(64);
+        this.infoSets = new IInformationSet[16];
+        this.offsets = new long[16];
+        initStripes();
+    }
+
+    private InfoSetStore(InfoSetStore store) {
+        this.regretMatching = store.regretMatching;
+        this.baselineCount = store.baselineCount;
+        this.slab = store.slab.copy();
+        this.slabSize = store.slabSize;
+        this.table = store.table;
+        this.infoSets = store.infoSets;
+        this.offsets = store.offsets;
+        this.size = store.size;
+        this.indexShared = true;
+        store.indexShared = true;
+        this.ownerCounts = store.ownerCounts.clone();
+        if (store.dirtyIds != null) {
+            this.dirtyIds = store.dirtyIds.clone();
+            this.dirtyCount = store.dirtyCount;
+        }
+        initStripes();
+    }
+
+    private void initStripes() {
+        for (int i = 0; i < STRIPE_COUNT; ++i) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Replace the storage of IS records.
+     * @param storage
+     * @throws IllegalStateException if some records were already created
+     */
+    public void setStorage(IInfoSetStorage storage) {
+        if (storage == null) {
+            throw new IllegalArgumentException("Storage can't be null!");
+        }
+        if (size > 0) {
+            throw new IllegalStateException("Storage can only be replaced while the store is empty!");
+        }
+        this.slab = storage;
+    }
+
+    /**
+     * Create a copy of the store.
+     *
+     * The copy shares the id table with this store until either of them adds a new IS. Records are shared too
+     * when the storage supports it ({@link HeapInfoSetStorage}), so the copy only costs time proportional to
+     * the number of storage chunks and the chunks are duplicated when they are first modified.
+     * @return
+     */
+    public InfoSetStore copy() {
+        return new InfoSetStore(this);
+    }
+
+    /**
+     * Release resources held by the storage of IS records, the store must not be used afterwards.
+     *
+     * Copies of the store aren't affected.
+     */
+    public void close() {
+        slab.close();
+    }
+
+    /**
+     * Allow ids to be created and looked up from multiple threads.
+     *
+     * Updates of IS records must be synchronized on {@link #getLock(int)}.
+     */
+    public void enableConcurrentAccess() {
+        if (lock == null) lock = new StampedLock();
+    }
+
+    /**
+     * Get lock guarding given IS's record.
+     * @param id
+     * @return
+     */
+    public Object getLock(int id) {
+        return stripes[id & (STRIPE_COUNT - 1)];
+    }
+
+    private static int hash(IInformationSet is) {
+        int h = is.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int find(Table t, IInformationSet is, int hash) {
+        int mask = t.keys.length - 1;
+        int slot = hash & mask;
+        for (int i = 0; i <= mask; ++i) {
+            IInformationSet key = t.keys[slot];
+            if (key == null) return -1;
+            if (t.hashes[slot] == hash && (key == is || key.equals(is))) return t.ids[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static void insert(Table t, IInformationSet is, int hash, int id) {
+        int mask = t.keys.length - 1;
+        int slot = hash & mask;
+        while (t.keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        t.hashes[slot] = hash;
+        t.ids[slot] = id;
+        t.keys[slot] = is;
+    }
+
+    /**
+     * Get id of given IS.
+     * @param is
+     * @return id or -1 if the IS isn't stored
+     */
+    public int getId(IInformationSet is) {
+        int hash = hash(is);
+        if (lock == null) return find(table, is, hash);
+        long stamp = lock.tryOptimisticRead();
+        int id = find(table, is, hash);
+        if (lock.validate(stamp)) return id;
+        stamp = lock.readLock();
+        try {
+            return find(table, is, hash);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get id of given IS, its record is initialized if necessary.
+     * @param is
+     * @return
+     */
+    public int getOrCreateId(IInformationSet is) {
+        int id = getId(is);
+        if (id >= 0) return id;
+        if (lock == null) return create(is);
+        long stamp = lock.writeLock();
+        try {
+            id = find(table, is, hash(is));
+            if (id >= 0) return id;
+            return create(is);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private int create(IInformationSet is) {
+        int actionSize = is.getLegalActions().size();
+        int id = size;
+        long offset = slabSize;
+        slabSize += getRecordSize(actionSize);
+        slab.ensureCapacity(slabSize);
+        slab.set(offset + ACTION_SIZE, actionSize);
+        for (int a = 0; a < actionSize; ++a) {
+            slab.set(offset + HEADER_SIZE + actionSize + a, 1d/actionSize);
+            slab.set(offset + HEADER_SIZE + 2*actionSize + a, 1d/actionSize);
+        }
+
+        if (id == offsets.length || indexShared) {
+            int capacity = (id == offsets.length) ? 2*id : offsets.length;
+            offsets = Arrays.copyOf(offsets, capacity);
+            infoSets = Arrays.copyOf(infoSets, capacity);
+        }
+        offsets[id] = offset;
+        infoSets[id] = is;
+        int owner = is.getOwnerId();
+        if (owner >= ownerCounts.length) ownerCounts = Arrays.copyOf(ownerCounts, owner + 1);
+        ownerCounts[owner]++;
+
+        Table t = table;
+        if (4*(id + 1) > 3*t.keys.length) {
+            Table grown = new Table(2*t.keys.length);
+            for (int slot = 0; slot < t.keys.length; ++slot) {
+                if (t.keys[slot] != null) insert(grown, t.keys[slot], t.hashes[slot], t.ids[slot]);
+            }
+            t = grown;
+        } else if (indexShared) {
+            Table copy = new Table(t.keys.length);
+            System.arraycopy(t.keys, 0, copy.keys, 0, t.keys.length);
+            System.arraycopy(t.hashes, 0, copy.hashes, 0, t.hashes.length);
+            System.arraycopy(t.ids, 0, copy.ids, 0, t.ids.length);
+            t = copy;
+        }
+        indexShared = false;
+        insert(t, is, hash(is), id);
+        table = t;
+        size = id + 1;
+        return id;
+    }
+
+    /**
+     * Get number of stored information sets.
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get number of stored information sets of given player.
+     * @param player
+     * @return
+     */
+    public int size(int player) {
+        return (player < ownerCounts.length) ? ownerCounts[player] : 0;
+    }
+
+    public IInformationSet getInfoSet(int id) {
+        return infoSets[id];
+    }
+
+    /**
+     * Get stored information sets in the order of their ids.
+     * @return
+     */
+    public Iterable<IInformationSet> getInfoSets() {
+        return () -> new Iterator<IInformationSet>() {
+            private final int end = size;
+            private int id = 0;
+
+            @Override
+            public boolean hasNext() {
+                return id < end;
+            }
+
+            @Override
+            public IInformationSet next() {
+                if (id >= end) throw new NoSuchElementException();
+                return infoSets[id++];
+            }
+        };
+    }
+
+    public int getActionSize(int id) {
+        return (int) slab.get(offsets[id] + ACTION_SIZE);
+    }
+
+    public double getRegret(int id, int actionIdx) {
+        return slab.get(offsets[id] + HEADER_SIZE + actionIdx);
+    }
+
+    /**
+     * Add regret to IS's action.
+     * @param id
+     * @param actionIdx
+     * @param regretDiff
+     * @return change of action's positive regret
+     */
+    public double addRegret(int id, int actionIdx, double regretDiff) {
+        long offset = offsets[id];
+        long idx = offset + HEADER_SIZE + actionIdx;
+        double oldRegret = slab.get(idx);
+        double newRegret = regretMatching.sumRegrets(oldRegret, regretDiff, (long) slab.get(offset + RM_ITERATIONS) + 1);
+        slab.set(idx, newRegret);
+        if (dirtyIds != null && slab.get(offset + DIRTY) == 0) markDirty(id, offset);
+        return Math.max(0, newRegret) - Math.max(0, oldRegret);
+    }
+
+    public double getStrat(int id, int actionIdx) {
+        long offset = offsets[id];
+        return slab.get(offset + HEADER_SIZE + (long) slab.get(offset + ACTION_SIZE) + actionIdx);
+    }
+
+    /**
+     * Copy current strategy of given IS.
+     * @param id
+     * @param strat output array
+     */
+    public void getStrat(int id, double[] strat) {
+        long offset = offsets[id];
+        int actionSize = (int) slab.get(offset + ACTION_SIZE);
+        long stratOffset = offset + HEADER_SIZE + actionSize;
+        for (int a = 0; a < actionSize; ++a) {
+            strat[a] = slab.get(stratOffset + a);
+        }
+    }
+
+    /**
+     * Recompute current strategy of given IS from its regrets.
+     *
+     * Must be called with the IS's lock held in concurrent mode.
+     * @param id
+     */
+    public void doRegretMatching(int id) {
+        long offset = offsets[id];
+        int actionSize = (int) slab.get(offset + ACTION_SIZE);
+        Stripe stripe = stripes[id & (STRIPE_COUNT - 1)];
+        if (stripe.regrets.length < actionSize) {
+            stripe.regrets = new double[actionSize];
+            stripe.probabilities = new double[actionSize];
+        }
+        long regretOffset = offset + HEADER_SIZE;
+        for (int a = 0; a < actionSize; ++a) {
+            stripe.regrets[a] = slab.get(regretOffset + a);
+        }
+        regretMatching.getRegretMatchedStrategy(stripe.regrets, stripe.probabilities, actionSize);
+        long stratOffset = regretOffset + actionSize;
+        for (int a = 0; a < actionSize; ++a) {
+            slab.set(stratOffset + a, stripe.probabilities[a]);
+        }
+        slab.set(offset + RM_ITERATIONS, slab.get(offset + RM_ITERATIONS) + 1);
+    }
+
+    /**
+     * Keep track of IS whose regrets changed, so that {@link #doDirtyRegretMatching()} can recompute only
+     * their strategies.
+     */
+    public void enableDirtyTracking() {
+        if (dirtyIds == null) dirtyIds = new int[16];
+    }
+
+    private void markDirty(int id, long offset) {
+        if (lock == null) {
+            addDirty(id, offset);
+            return;
+        }
+        // the record itself is guarded by the caller, the list is shared by all records
+        synchronized (this) {
+            addDirty(id, offset);
+        }
+    }
+
+    private void addDirty(int id, long offset) {
+        slab.set(offset + DIRTY, 1);
+        if (dirtyCount == dirtyIds.length) dirtyIds = Arrays.copyOf(dirtyIds, 2*dirtyCount);
+        dirtyIds[dirtyCount++] = id;
+    }
+
+    /**
+     * Recompute strategies of IS whose regrets changed since the last call.
+     *
+     * Requires {@link #enableDirtyTracking()} and must not be called concurrently with regret updates.
+     * @return number of recomputed strategies
+     */
+    public int doDirtyRegretMatching() {
+        int count = dirtyCount;
+        for (int i = 0; i < count; ++i) {
+            int id = dirtyIds[i];
+            doRegretMatching(id);
+            slab.set(offsets[id] + DIRTY, 0);
+        }
+        dirtyCount = 0;
+        return count;
+    }
+
+    public double getCumulativeStrat(int id, int actionIdx) {
+        long offset = offsets[id];
+        return slab.get(offset + HEADER_SIZE + 2 * (long) slab.get(offset + ACTION_SIZE) + actionIdx);
+    }
+
+    public void setCumulativeStrat(int id, int actionIdx, double value) {
+        long offset = offsets[id];
+        slab.set(offset + HEADER_SIZE + 2 * (long) slab.get(offset + ACTION_SIZE) + actionIdx, value);
+    }
+
+    /**
+     * Get baseline value of given action.
+     * @param id
+     * @param player
+     * @param actionIdx
+     * @return value or 0 if no baselines are stored
+     */
+    public double getBaseline(int id, int player, int actionIdx) {
+        if (baselineCount == 0) return 0;
+        long offset = offsets[id];
+        long actionSize = (long) slab.get(offset + ACTION_SIZE);
+        return slab.get(offset + HEADER_SIZE + (2 + player) * actionSize + actionIdx);
+    }
+
+    public void setBaseline(int id, int player, int actionIdx, double value) {
+        if (baselineCount == 0) return;
+        long offset = offsets[id];
+        long actionSize = (long) slab.get(offset + ACTION_SIZE);
+        slab.set(offset + HEADER_SIZE + (2 + player) * actionSize + actionIdx, value);
+    }
+
+    public long getLastVisitedAtIteration(int id) {
+        return (long) slab.get(offsets[id] + LAST_VISITED);
+    }
+
+    public void setLastVisitedAtIteration(int id, long iteration) {
+        slab.set(offsets[id] + LAST_VISITED, iteration);
+    }
+
+    private int getRecordSize(int actionSize) {
+        return HEADER_SIZE + (3 + baselineCount) * actionSize;
+    }
+
+    /**
+     * Write all IS records in the order of their ids.
+     *
+     * Must not be called concurrently with updates of the store.
+     * @param out
+     * @throws IOException
+     */
+    public void write(ObjectOutput out) throws IOException {
+        int count = size;
+        out.writeInt(baselineCount);
+        out.writeInt(count);
+        for (int id = 0; id < count; ++id) {
+            out.writeObject(infoSets[id]);
+            long offset = offsets[id];
+            int recordSize = getRecordSize(getActionSize(id));
+            for (int i = 0; i < recordSize; ++i) {
+                out.writeDouble(slab.get(offset + i));
+            }
+        }
+    }
+
+    /**
+     * Read IS records written by {@link #write(ObjectOutput)} into an empty store.
+     * @param in
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public void read(ObjectInput in) throws IOException, ClassNotFoundException {
+        if (size > 0) {
+            throw new IllegalStateException("Records can only be read into an empty store!");
+        }
+        if (in.readInt() != baselineCount) {
+            throw new IOException("Stored records have a different number of baselines!");
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; ++i) {
+            IInformationSet is = (IInformationSet) in.readObject();
+            int id = getOrCreateId(is);
+            long offset = offsets[id];
+            int recordSize = getRecordSize(getActionSize(id));
+            for (int j = 0; j < recordSize; ++j) {
+                slab.set(offset + j, in.readDouble());
+            }
+            if (getActionSize(id) != is.getLegalActions().size()) {
+                throw new IOException("Stored record doesn't match its IS!");
+            }
+        }
+    }
+}
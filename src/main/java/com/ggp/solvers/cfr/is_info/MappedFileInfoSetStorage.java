@@ -0,0 +1,152 @@
+package com.ggp.solvers.cfr.is_info;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Off-heap storage backed by a memory-mapped temporary file.
+ *
+ * The file is mapped in fixed-size chunks as the storage grows, so the IS data don't have to fit into the heap
+ * or the RAM and the page cache keeps the frequently visited part in memory. The file is removed as soon as it
+ * is opened (or on exit where that isn't possible). Its descriptor, mappings and space are released by
+ * {@link #close()}, or when the storage is garbage collected if it isn't closed.
+ *
+ * Copying the storage copies the whole file on the calling thread.
+ */
+public class MappedFileInfoSetStorage implements IInfoSetStorage {
+    public static class Factory implements IInfoSetStorage.IFactory {
+        private final String directory;
+
+        public Factory(String directory) {
+            if (directory == null) {
+                throw new IllegalArgumentException("Directory can't be null!");
+            }
+            this.directory = directory;
+        }
+
+        @Override
+        public IInfoSetStorage create() {
+            return new MappedFileInfoSetStorage(Paths.get(directory));
+        }
+
+        @Override
+        public String getConfigString() {
+            return "MMap{\"" + directory + "\"}";
+        }
+    }
+
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final long CHUNK_BYTES = ((long) CHUNK_SIZE) * Double.BYTES;
+
+    private final Path directory;
+    private final FileChannel channel;
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    public MappedFileInfoSetStorage(Path directory) {
+        this.directory = directory;
+        try {
+            Path file = Files.createTempFile(directory, "is-store-", ".bin");
+            this.channel = new RandomAccessFile(file.toFile(), "rw").getChannel();
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create IS storage file in " + directory, e);
+        }
+    }
+
+    @Override
+    public void ensureCapacity(long size) {
+        MappedByteBuffer[] current = chunks;
+        int neededChunks = (int) ((size + CHUNK_MASK) >>> CHUNK_BITS);
+        if (neededChunks <= current.length) return;
+        MappedByteBuffer[] grown = new MappedByteBuffer[neededChunks];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        try {
+            for (int i = current.length; i < neededChunks; ++i) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * CHUNK_BYTES, CHUNK_BYTES);
+                grown[i].order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow IS storage", e);
+        }
+        chunks = grown;
+    }
+
+    @Override
+    public double get(long idx) {
+        return chunks[(int) (idx >>> CHUNK_BITS)].getDouble(((int) idx & CHUNK_MASK) << 3);
+    }
+
+    @Override
+    public void set(long idx, double value) {
+        chunks[(int) (idx >>> CHUNK_BITS)].putDouble(((int) idx & CHUNK_MASK) << 3, value);
+    }
+
+    /**
+     * Unmap the buffer right away instead of waiting for the garbage collector, if the JVM allows it.
+     * @param buffer
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            try {
+                // Java 9+
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException e) {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the mapping is released when the buffer is garbage collected
+        }
+    }
+
+    @Override
+    public void close() {
+        MappedByteBuffer[] current = chunks;
+        chunks = new MappedByteBuffer[0];
+        for (MappedByteBuffer chunk: current) {
+            unmap(chunk);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close IS storage", e);
+        }
+    }
+
+    @Override
+    public IInfoSetStorage copy() {
+        MappedFileInfoSetStorage copy = new MappedFileInfoSetStorage(directory);
+        MappedByteBuffer[] source = chunks;
+        copy.ensureCapacity(((long) source.length) << CHUNK_BITS);
+        for (int i = 0; i < source.length; ++i) {
+            ByteBuffer from = source[i].duplicate(), to = copy.chunks[i].duplicate();
+            from.clear();
+            to.clear();
+            to.put(from);
+        }
+        return copy;
+    }
+}
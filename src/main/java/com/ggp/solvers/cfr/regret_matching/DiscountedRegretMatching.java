@@ -2,8 +2,6 @@ package com.ggp.solvers.cfr.regret_matching;
 
 import com.ggp.solvers.cfr.IRegretMatching;
 
-import java.util.Arrays;
-
 public class DiscountedRegretMatching extends BaseRegretMatching {
     public static class Factory implements IRegretMatching.IFactory {
         private final double posExp;
@@ -15,8 +13,8 @@ public class DiscountedRegretMatching extends BaseRegretMatching {
         }
 
         @Override
-        public IRegretMatching create(int actionSize) {
-            return new DiscountedRegretMatching(actionSize, posExp, negExp);
+        public IRegretMatching create() {
+            return new DiscountedRegretMatching(posExp, negExp);
         }
 
         @Override
@@ -35,23 +33,14 @@ public class DiscountedRegretMatching extends BaseRegretMatching {
 
     private final double posExp;
     private final double negExp;
-    private long iteration = 1;
-
-    private DiscountedRegretMatching(DiscountedRegretMatching rm) {
-        super(rm);
-        this.posExp = rm.posExp;
-        this.negExp = rm.negExp;
-        this.iteration = rm.iteration;
-    }
 
-    public DiscountedRegretMatching(int actionSize, double posExp, double negExp) {
-        super(actionSize);
+    public DiscountedRegretMatching(double posExp, double negExp) {
         this.posExp = posExp;
         this.negExp = negExp;
     }
 
     @Override
-    protected double sumRegrets(double oldRegret, double regretDiff) {
+    public double sumRegrets(double oldRegret, double regretDiff, long iteration) {
         double exp = posExp;
         if (oldRegret < 0) {
             exp = negExp;
@@ -72,15 +61,4 @@ public class DiscountedRegretMatching extends BaseRegretMatching {
 
         return oldRegret * mul + regretDiff;
     }
-
-    @Override
-    public void getRegretMatchedStrategy(double[] probabilities) {
-        super.getRegretMatchedStrategy(probabilities);
-        iteration++;
-    }
-
-    @Override
-    public IRegretMatching copy() {
-        return new DiscountedRegretMatching(this);
-    }
 }
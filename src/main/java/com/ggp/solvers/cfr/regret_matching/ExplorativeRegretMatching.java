@@ -16,8 +16,8 @@ public class ExplorativeRegretMatching implements IRegretMatching {
         }
 
         @Override
-        public IRegretMatching create(int actionSize) {
-            return new ExplorativeRegretMatching(rmFactory.create(actionSize), gamma);
+        public IRegretMatching create() {
+            return new ExplorativeRegretMatching(rmFactory.create(), gamma);
         }
 
         @Override
@@ -43,26 +43,16 @@ public class ExplorativeRegretMatching implements IRegretMatching {
     }
 
     @Override
-    public void addActionRegret(int actionIdx, double regretDiff) {
-        rm.addActionRegret(actionIdx, regretDiff);
+    public double sumRegrets(double oldRegret, double regretDiff, long iteration) {
+        return rm.sumRegrets(oldRegret, regretDiff, iteration);
     }
 
     @Override
-    public void getRegretMatchedStrategy(double[] probabilities) {
-        rm.getRegretMatchedStrategy(probabilities);
-        final double unif = gamma/probabilities.length;
-        for (int i = 0; i < probabilities.length; ++i) {
+    public void getRegretMatchedStrategy(double[] regrets, double[] probabilities, int size) {
+        rm.getRegretMatchedStrategy(regrets, probabilities, size);
+        final double unif = gamma/size;
+        for (int i = 0; i < size; ++i) {
             probabilities[i] = unif + probabilities[i] * (1 - gamma);
         }
     }
-
-    @Override
-    public double getRegret(int actionIdx) {
-        return rm.getRegret(actionIdx);
-    }
-
-    @Override
-    public IRegretMatching copy() {
-        return new ExplorativeRegretMatching(rm.copy(), gamma);
-    }
 }
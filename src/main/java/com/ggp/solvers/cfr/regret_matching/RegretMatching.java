@@ -5,8 +5,8 @@ import com.ggp.solvers.cfr.IRegretMatching;
 public class RegretMatching extends BaseRegretMatching {
     public static class Factory implements IFactory {
         @Override
-        public IRegretMatching create(int actionSize) {
-            return new RegretMatching(actionSize);
+        public IRegretMatching create() {
+            return new RegretMatching();
         }
 
         @Override
@@ -15,21 +15,8 @@ public class RegretMatching extends BaseRegretMatching {
         }
     }
 
-    private RegretMatching(RegretMatching rm) {
-        super(rm);
-    }
-
-    public RegretMatching(int actionSize) {
-        super(actionSize);
-    }
-
     @Override
-    protected double sumRegrets(double r1, double r2) {
+    public double sumRegrets(double r1, double r2, long iteration) {
         return r1 + r2;
     }
-
-    @Override
-    public IRegretMatching copy() {
-        return new RegretMatching(this);
-    }
 }
@@ -1,13 +1,12 @@
 package com.ggp.solvers.cfr.regret_matching;
 
-
 import com.ggp.solvers.cfr.IRegretMatching;
 
 public class RegretMatchingPlus extends BaseRegretMatching {
     public static class Factory implements IFactory {
         @Override
-        public IRegretMatching create(int actionSize) {
-            return new RegretMatchingPlus(actionSize);
+        public IRegretMatching create() {
+            return new RegretMatchingPlus();
         }
 
         @Override
@@ -16,21 +15,8 @@ public class RegretMatchingPlus extends BaseRegretMatching {
         }
     }
 
-    private RegretMatchingPlus(RegretMatchingPlus rm) {
-        super(rm);
-    }
-
-    public RegretMatchingPlus(int actionSize) {
-        super(actionSize);
-    }
-
     @Override
-    protected double sumRegrets(double r1, double r2) {
+    public double sumRegrets(double r1, double r2, long iteration) {
         return Math.max(0, r1 + r2);
     }
-
-    @Override
-    public IRegretMatching copy() {
-        return new RegretMatchingPlus(this);
-    }
 }
@@ -0,0 +1,227 @@
+package com.ggp.solvers.cfr.utils;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Baseline values of chance nodes for both players.
+ *
+ * Chance nodes are identified by a long key (see {@link #key(int, int)}), which maps to a dense id in
+ * an open-addressing table. Values of each node are kept in a single primitive array. After
+ * {@link #enableConcurrentAccess()} ids can be created and looked up from multiple threads, values must
+ * be accessed with the node's lock ({@link #getLock(int)}) held.
+ */
+public class ChanceBaselineTable {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int STRIPE_COUNT = 64;
+
+    private static final class Table {
+        final long[] keys;
+        final int[] ids;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            ids = new int[capacity];
+            Arrays.fill(ids, -1);
+        }
+    }
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    /**
+     * Values of each node, growing the outer array keeps the node arrays, so concurrent updates aren't lost.
+     */
+    private volatile double[][] values = new double[INITIAL_CAPACITY][];
+    private volatile int size = 0;
+    private final Object[] stripes = new Object[STRIPE_COUNT];
+    private StampedLock lock = null;
+
+    public ChanceBaselineTable() {
+        initStripes();
+    }
+
+    private ChanceBaselineTable(ChanceBaselineTable table) {
+        Table t = new Table(table.table.keys.length);
+        System.arraycopy(table.table.keys, 0, t.keys, 0, t.keys.length);
+        System.arraycopy(table.table.ids, 0, t.ids, 0, t.ids.length);
+        this.table = t;
+        double[][] values = new double[table.values.length][];
+        for (int i = 0; i < table.size; ++i) {
+            values[i] = table.values[i].clone();
+        }
+        this.values = values;
+        this.size = table.size;
+        initStripes();
+    }
+
+    private void initStripes() {
+        for (int i = 0; i < STRIPE_COUNT; ++i) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Get key of chance nodes with given depth and number of actions, which share their baselines.
+     * @param depth
+     * @param actionSize
+     * @return
+     */
+    public static long key(int depth, int actionSize) {
+        return ((long) depth << 32) | (actionSize & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int find(Table t, long key) {
+        int mask = t.keys.length - 1;
+        int slot = slot(key, mask);
+        while (t.ids[slot] >= 0) {
+            if (t.keys[slot] == key) return t.ids[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static void insert(Table t, long key, int id) {
+        int mask = t.keys.length - 1;
+        int slot = slot(key, mask);
+        while (t.ids[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        t.keys[slot] = key;
+        t.ids[slot] = id;
+    }
+
+    /**
+     * Allow ids to be created and looked up from multiple threads.
+     *
+     * Values must then be accessed with {@link #getLock(int)} held.
+     */
+    public void enableConcurrentAccess() {
+        if (lock == null) lock = new StampedLock();
+    }
+
+    /**
+     * Get lock guarding given node's values.
+     * @param id
+     * @return
+     */
+    public Object getLock(int id) {
+        return stripes[id & (STRIPE_COUNT - 1)];
+    }
+
+    private int getId(long key) {
+        if (lock == null) return find(table, key);
+        long stamp = lock.tryOptimisticRead();
+        int id = find(table, key);
+        if (lock.validate(stamp)) return id;
+        stamp = lock.readLock();
+        try {
+            return find(table, key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get id of chance node with given key, its values are initialized to 0 if necessary.
+     * @param key
+     * @param actionSize
+     * @return
+     */
+    public int getOrCreateId(long key, int actionSize) {
+        int id = getId(key);
+        if (id < 0) {
+            if (lock == null) {
+                id = create(key, actionSize);
+            } else {
+                long stamp = lock.writeLock();
+                try {
+                    id = find(table, key);
+                    if (id < 0) id = create(key, actionSize);
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        }
+        if (values[id].length != 2 * actionSize) {
+            throw new IllegalStateException("Chance node key " + key + " was created with different number of actions!");
+        }
+        return id;
+    }
+
+    private int create(long key, int actionSize) {
+        int id = size;
+        if (id == values.length) values = Arrays.copyOf(values, 2 * id);
+        values[id] = new double[2 * actionSize];
+        Table t = table;
+        if (2 * (id + 1) > t.keys.length) {
+            Table newTable = new Table(2 * t.keys.length);
+            for (int i = 0; i < t.ids.length; ++i) {
+                if (t.ids[i] >= 0) insert(newTable, t.keys[i], t.ids[i]);
+            }
+            insert(newTable, key, id);
+            table = newTable;
+        } else {
+            insert(t, key, id);
+        }
+        size = id + 1;
+        return id;
+    }
+
+    public double get(int id, int player, int actionIdx) {
+        double[] nodeValues = values[id];
+        return nodeValues[(player - 1) * (nodeValues.length / 2) + actionIdx];
+    }
+
+    public void set(int id, int player, int actionIdx, double value) {
+        double[] nodeValues = values[id];
+        nodeValues[(player - 1) * (nodeValues.length / 2) + actionIdx] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ChanceBaselineTable copy() {
+        return new ChanceBaselineTable(this);
+    }
+
+    public void write(ObjectOutput out) throws IOException {
+        Table t = table;
+        out.writeInt(size);
+        for (int i = 0; i < t.ids.length; ++i) {
+            int id = t.ids[i];
+            if (id < 0) continue;
+            double[] nodeValues = values[id];
+            out.writeLong(t.keys[i]);
+            out.writeInt(nodeValues.length / 2);
+            for (double v: nodeValues) {
+                out.writeDouble(v);
+            }
+        }
+    }
+
+    /**
+     * Read values written by {@link #write(ObjectOutput)}, the table must be empty.
+     * @param in
+     * @throws IOException
+     */
+    public void read(ObjectInput in) throws IOException {
+        if (size != 0) throw new IllegalStateException("Chance baselines can only be read into an empty table!");
+        int count = in.readInt();
+        for (int i = 0; i < count; ++i) {
+            long key = in.readLong();
+            int actionSize = in.readInt();
+            double[] nodeValues = values[getOrCreateId(key, actionSize)];
+            for (int v = 0; v < nodeValues.length; ++v) {
+                nodeValues[v] = in.readDouble();
+            }
+        }
+    }
+}
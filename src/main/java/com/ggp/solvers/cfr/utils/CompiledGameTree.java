@@ -0,0 +1,290 @@
+package com.ggp.solvers.cfr.utils;
+
+import com.ggp.IAction;
+import com.ggp.ICompactGame;
+import com.ggp.ICompleteInformationState;
+import com.ggp.IInformationSet;
+import com.ggp.IRandomNode;
+import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Game tree enumerated once into flat primitive arrays.
+ *
+ * Children of every node are stored next to each other, in the order of state's legal actions. Games which provide
+ * {@link ICompactGame} are enumerated through their compact representation when trackers aren't needed.
+ */
+public class CompiledGameTree {
+    /**
+     * Acting player id of terminal nodes.
+     */
+    public static final int TERMINAL = -1;
+
+    private final ICompleteInformationState rootState;
+    private int nodeCount = 0;
+    private int[] actingPlayer = new int[16];
+    private int[] firstChild = new int[16];
+    private int[] childCount = new int[16];
+    private int[] isIdx = new int[16];
+    private double[] rndProb = new double[16];
+    private double[] payoff = new double[16];
+    private double[] rndActionProb = new double[16];
+    private IGameTraversalTracker[] trackers;
+    private final ArrayList<IInformationSet> infoSets = new ArrayList<>();
+    private int maxDepth = 0;
+    private int maxChildCount = 0;
+
+    private CompiledGameTree(ICompleteInformationState rootState, boolean keepTrackers) {
+        this.rootState = rootState;
+        if (keepTrackers) trackers = new IGameTraversalTracker[16];
+    }
+
+    /**
+     * Enumerate the whole game tree under given tracker.
+     * @param root
+     * @param keepTrackers whether trackers of all nodes should be kept (e.g. for solver's listeners)
+     * @return
+     */
+    public static CompiledGameTree compile(IGameTraversalTracker root, boolean keepTrackers) {
+        ICompleteInformationState rootState = root.getCurrentState();
+        if (!keepTrackers && root.getClass() == SimpleTracker.class && rootState instanceof ICompactGame.IProvider) {
+            ICompactGame game = ((ICompactGame.IProvider) rootState).getCompactGame();
+            if (game != null) return compile(game, game.fromState(rootState), root.getRndProb());
+        }
+        CompiledGameTree tree = new CompiledGameTree(rootState, keepTrackers);
+        HashMap<IInformationSet, Integer> isIndices = new HashMap<>();
+        int rootIdx = tree.allocate(1);
+        tree.compileNode(root, rootIdx, 0, isIndices);
+        return tree;
+    }
+
+    /**
+     * Enumerate the whole game tree under given compact state.
+     *
+     * Only information sets are converted to objects, once per information set.
+     * @param game
+     * @param root
+     * @param rndProb probability of random actions leading to the root
+     * @return
+     */
+    public static CompiledGameTree compile(ICompactGame game, long root, double rndProb) {
+        CompiledGameTree tree = new CompiledGameTree(game.toState(root), false);
+        int rootIdx = tree.allocate(1);
+        tree.compileCompactNode(game, root, rootIdx, 0, rndProb, new InfoSetKeyTable());
+        return tree;
+    }
+
+    private int allocate(int count) {
+        int first = nodeCount;
+        nodeCount += count;
+        if (nodeCount > actingPlayer.length) {
+            int capacity = Math.max(nodeCount, 2*actingPlayer.length);
+            actingPlayer = Arrays.copyOf(actingPlayer, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+            isIdx = Arrays.copyOf(isIdx, capacity);
+            rndProb = Arrays.copyOf(rndProb, capacity);
+            payoff = Arrays.copyOf(payoff, capacity);
+            rndActionProb = Arrays.copyOf(rndActionProb, capacity);
+            if (trackers != null) trackers = Arrays.copyOf(trackers, capacity);
+        }
+        return first;
+    }
+
+    private void compileNode(IGameTraversalTracker tracker, int node, int depth, HashMap<IInformationSet, Integer> isIndices) {
+        ICompleteInformationState s = tracker.getCurrentState();
+        maxDepth = Math.max(maxDepth, depth);
+        rndProb[node] = tracker.getRndProb();
+        isIdx[node] = -1;
+        if (trackers != null) trackers[node] = tracker;
+        if (s.isTerminal()) {
+            actingPlayer[node] = TERMINAL;
+            payoff[node] = tracker.getPayoff(1);
+            return;
+        }
+        List<IAction> legalActions = s.getLegalActions();
+        actingPlayer[node] = s.getActingPlayerId();
+        if (!s.isRandomNode()) {
+            isIdx[node] = isIndices.computeIfAbsent(s.getInfoSetForActingPlayer(), is -> {
+                infoSets.add(is);
+                return infoSets.size() - 1;
+            });
+        }
+        int first = allocate(legalActions.size());
+        firstChild[node] = first;
+        childCount[node] = legalActions.size();
+        maxChildCount = Math.max(maxChildCount, legalActions.size());
+        IRandomNode rndNode = s.isRandomNode() ? s.getRandomNode() : null;
+        int child = first;
+        for (IAction a: legalActions) {
+            rndActionProb[child] = (rndNode == null) ? 1 : rndNode.getActionProb(a);
+            compileNode(tracker.next(a), child, depth + 1, isIndices);
+            child++;
+        }
+    }
+
+    private void compileCompactNode(ICompactGame game, long s, int node, int depth, double nodeRndProb, InfoSetKeyTable isIndices) {
+        maxDepth = Math.max(maxDepth, depth);
+        rndProb[node] = nodeRndProb;
+        isIdx[node] = -1;
+        if (game.isTerminal(s)) {
+            actingPlayer[node] = TERMINAL;
+            payoff[node] = game.getPayoff(s, 1);
+            return;
+        }
+        int pid = game.getActingPlayerId(s);
+        int actionCount = game.getActionCount(s);
+        actingPlayer[node] = pid;
+        if (pid != 0) {
+            long key = game.getInfoSetKey(s, pid);
+            int idx = isIndices.get(key);
+            if (idx < 0) {
+                idx = infoSets.size();
+                infoSets.add(game.getInfoSet(s, pid));
+                isIndices.put(key, idx);
+            }
+            isIdx[node] = idx;
+        }
+        int first = allocate(actionCount);
+        firstChild[node] = first;
+        childCount[node] = actionCount;
+        maxChildCount = Math.max(maxChildCount, actionCount);
+        for (int a = 0; a < actionCount; ++a) {
+            double actionProb = (pid == 0) ? game.getRandomActionProb(s, a) : 1;
+            rndActionProb[first + a] = actionProb;
+            compileCompactNode(game, game.next(s, a), first + a, depth + 1, nodeRndProb * actionProb, isIndices);
+        }
+    }
+
+    /**
+     * Open-addressing map from information set keys of a compact game to their indices.
+     */
+    private static class InfoSetKeyTable {
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private int size = 0;
+
+        InfoSetKeyTable() {
+            Arrays.fill(values, -1);
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[2 * oldKeys.length];
+                values = new int[2 * oldValues.length];
+                Arrays.fill(values, -1);
+                size = 0;
+                for (int i = 0; i < oldKeys.length; ++i) {
+                    if (oldValues[i] >= 0) put(oldKeys[i], oldValues[i]);
+                }
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (values[slot] >= 0) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+    }
+
+    public ICompleteInformationState getRootState() {
+        return rootState;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get acting player of given node.
+     * @param node
+     * @return player id, 0 for random nodes or {@link #TERMINAL}
+     */
+    public int getActingPlayer(int node) {
+        return actingPlayer[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int getChildCount(int node) {
+        return childCount[node];
+    }
+
+    /**
+     * Get index of acting player's information set.
+     * @param node
+     * @return index or -1 for random and terminal nodes
+     */
+    public int getInfoSetIdx(int node) {
+        return isIdx[node];
+    }
+
+    public double getRndProb(int node) {
+        return rndProb[node];
+    }
+
+    /**
+     * Get 1st player's payoff of a terminal node.
+     * @param node
+     * @return
+     */
+    public double getPayoff(int node) {
+        return payoff[node];
+    }
+
+    /**
+     * Get probability of the random action which leads to given node.
+     * @param node child of a random node
+     * @return
+     */
+    public double getRandomActionProb(int node) {
+        return rndActionProb[node];
+    }
+
+    public IGameTraversalTracker getTracker(int node) {
+        if (trackers == null) return null;
+        return trackers[node];
+    }
+
+    public boolean hasTrackers() {
+        return trackers != null;
+    }
+
+    public int getInfoSetCount() {
+        return infoSets.size();
+    }
+
+    public IInformationSet getInfoSet(int isIdx) {
+        return infoSets.get(isIdx);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMaxChildCount() {
+        return maxChildCount;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ggp.solvers.cfr.utils;
+
+import com.ggp.solvers.cfr.BaseCFRSolver;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Checkpoint of solver's state, which allows long solving runs to be resumed.
+ *
+ * The checkpoint is a single object stream: magic number, format version, solver's config string, number of
+ * iterations and solving time followed by the solver's state ({@link BaseCFRSolver#writeState}).
+ */
+public class SolverCheckpoint {
+    private static final int MAGIC = 0x47444350;
+    private static final int VERSION = 5;
+
+    private final long iterations;
+    private final long timeMs;
+
+    private SolverCheckpoint(long iterations, long timeMs) {
+        this.iterations = iterations;
+        this.timeMs = timeMs;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    /**
+     * Write checkpoint of given solver.
+     *
+     * The checkpoint is first written to a temporary file, so that the previous checkpoint isn't lost if writing fails.
+     * @param file
+     * @param solverConfig config string of solver's factory
+     * @param solver solver, which must not be running iterations
+     * @param iterations
+     * @param timeMs
+     * @throws IOException
+     */
+    public static void write(File file, String solverConfig, BaseCFRSolver solver, long iterations, long timeMs) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(solverConfig);
+            out.writeLong(iterations);
+            out.writeLong(timeMs);
+            solver.writeState(out);
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restore solver's state from a checkpoint.
+     * @param file
+     * @param solverConfig config string of solver's factory, must match the one of the checkpoint
+     * @param solver newly created solver
+     * @return checkpoint info
+     * @throws IOException
+     */
+    public static SolverCheckpoint read(File file, String solverConfig, BaseCFRSolver solver) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a solver checkpoint!");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + "!");
+            }
+            String storedConfig = in.readUTF();
+            if (!storedConfig.equals(solverConfig)) {
+                throw new IOException("Checkpoint of " + storedConfig + " can't be used for " + solverConfig + "!");
+            }
+            long iterations = in.readLong();
+            long timeMs = in.readLong();
+            solver.readState(in);
+            return new SolverCheckpoint(iterations, timeMs);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Checkpoint contains unknown classes!", e);
+        }
+    }
+}
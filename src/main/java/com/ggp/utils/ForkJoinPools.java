@@ -0,0 +1,25 @@
+package com.ggp.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Fork-join pools shared by parallel solvers.
+ *
+ * Solvers get copied frequently (e.g. by evaluators), so they can't own their threads.
+ */
+public class ForkJoinPools {
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Get shared pool with given parallelism.
+     * @param parallelism
+     * @return
+     */
+    public static ForkJoinPool get(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive!");
+        }
+        return pools.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+}
@@ -0,0 +1,219 @@
+package com.ggp.utils.exploitability;
+
+import com.ggp.ICompleteInformationState;
+import com.ggp.IGameDescription;
+import com.ggp.IInfoSetStrategy;
+import com.ggp.IInformationSet;
+import com.ggp.IStrategy;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.solvers.cfr.utils.CompiledGameTree;
+import com.ggp.utils.InformationSetWrapper;
+import com.ggp.utils.recall.PerfectRecallGame;
+import com.ggp.utils.recall.PerfectRecallGameDescriptionWrapper;
+import com.ggp.utils.strategy.Strategy;
+
+import java.util.Arrays;
+
+/**
+ * Computes exploitability of many strategies in the same game.
+ *
+ * The game tree and the structure of best-response computation (to which action of which information set each
+ * terminal and information set belongs) are enumerated once into arrays. Evaluation of a strategy then consists of
+ * a single pass over the nodes which computes reach probabilities and a single pass over the information sets which
+ * chooses the best responses.
+ *
+ * Payoffs are taken from {@link CompiledGameTree}, so the game must be zero-sum as for the CFR solvers.
+ * Imperfect-recall games are transformed to perfect-recall games as in {@link ImperfectRecallExploitability}.
+ * Instances are not thread-safe.
+ */
+public class ExploitabilityEvaluator {
+    private final CompiledGameTree tree;
+    /**
+     * Information sets used to query evaluated strategies, differ from tree's information sets in imperfect-recall games.
+     */
+    private final IInformationSet[] strategyInfoSets;
+    private final int[] actionOffset;
+    private final int[] actionCount;
+    /**
+     * For each information set: action slot (of the same player) its nodes lie under or -1 for the root.
+     */
+    private final int[] parentSlot;
+    private final int[] terminals;
+    /**
+     * For each terminal and player: action slot the terminal lies under or -1 for the root.
+     */
+    private final int[] p1TerminalSlot, p2TerminalSlot;
+
+    private final double[] actionProbs;
+    private final double[] p1Reach, p2Reach;
+    private final double[] slotValues;
+    private final boolean[] isReached;
+
+    /**
+     * Prepare evaluator for given game.
+     *
+     * Avoids unnecessary perfect-recall wrapping if the game already has perfect-recall.
+     * @param gameDescription
+     */
+    public ExploitabilityEvaluator(IGameDescription gameDescription) {
+        this(gameDescription.getInitialState(), gameDescription.getClass().isAnnotationPresent(PerfectRecallGame.class));
+    }
+
+    /**
+     * Prepare evaluator for game starting in given state.
+     * @param initialState
+     * @param perfectRecall whether the game has perfect recall, otherwise it is transformed to a perfect-recall game
+     */
+    public ExploitabilityEvaluator(ICompleteInformationState initialState, boolean perfectRecall) {
+        if (initialState == null) {
+            throw new IllegalArgumentException("Initial state can't be null!");
+        }
+        ICompleteInformationState root = perfectRecall ? initialState : PerfectRecallGameDescriptionWrapper.wrapInitialState(initialState);
+        tree = CompiledGameTree.compile(SimpleTracker.createRoot(root), false);
+
+        final int nodeCount = tree.getNodeCount(), isCount = tree.getInfoSetCount();
+        strategyInfoSets = new IInformationSet[isCount];
+        for (int i = 0; i < isCount; ++i) {
+            IInformationSet is = tree.getInfoSet(i);
+            strategyInfoSets[i] = perfectRecall ? is : ((InformationSetWrapper) is).getOrigInfoSet();
+        }
+        actionOffset = new int[isCount];
+        actionCount = new int[isCount];
+        parentSlot = new int[isCount];
+        Arrays.fill(actionCount, -1);
+        int terminalCount = 0;
+        for (int node = 0; node < nodeCount; ++node) {
+            if (tree.getActingPlayer(node) == CompiledGameTree.TERMINAL) terminalCount++;
+        }
+        terminals = new int[terminalCount];
+        p1TerminalSlot = new int[terminalCount];
+        p2TerminalSlot = new int[terminalCount];
+
+        // last action slot of each player above the node, parents always have lower index than their children
+        int[] p1Slot = new int[nodeCount], p2Slot = new int[nodeCount];
+        p1Slot[0] = p2Slot[0] = -1;
+        int slotCount = 0;
+        terminalCount = 0;
+        for (int node = 0; node < nodeCount; ++node) {
+            int player = tree.getActingPlayer(node);
+            if (player == CompiledGameTree.TERMINAL) {
+                terminals[terminalCount] = node;
+                p1TerminalSlot[terminalCount] = p1Slot[node];
+                p2TerminalSlot[terminalCount] = p2Slot[node];
+                terminalCount++;
+                continue;
+            }
+            int first = tree.getFirstChild(node), children = tree.getChildCount(node);
+            int isIdx = tree.getInfoSetIdx(node);
+            if (isIdx >= 0 && actionCount[isIdx] < 0) {
+                actionOffset[isIdx] = slotCount;
+                actionCount[isIdx] = children;
+                parentSlot[isIdx] = (player == 1) ? p1Slot[node] : p2Slot[node];
+                slotCount += children;
+            }
+            for (int a = 0; a < children; ++a) {
+                p1Slot[first + a] = (player == 1) ? actionOffset[isIdx] + a : p1Slot[node];
+                p2Slot[first + a] = (player == 2) ? actionOffset[isIdx] + a : p2Slot[node];
+            }
+        }
+
+        actionProbs = new double[slotCount];
+        slotValues = new double[slotCount];
+        isReached = new boolean[isCount];
+        p1Reach = new double[nodeCount];
+        p2Reach = new double[nodeCount];
+    }
+
+    /**
+     * Computes exploitability.
+     * @param normalizedStratForBothPlayers
+     * @return exploitability
+     */
+    public double computeExploitability(IStrategy normalizedStratForBothPlayers) {
+        return computeExploitability(normalizedStratForBothPlayers, null);
+    }
+
+    /**
+     * Computes exploitability and best response strategy.
+     * @param normalizedStratForBothPlayers
+     * @param outBestResponseStrategy strategy into which best response will be written (for perfect-recall wrapper of
+     *                                imperfect-recall games), can be null
+     * @return exploitability
+     */
+    public double computeExploitability(IStrategy normalizedStratForBothPlayers, Strategy outBestResponseStrategy) {
+        final int isCount = strategyInfoSets.length;
+        for (int i = 0; i < isCount; ++i) {
+            IInfoSetStrategy isStrat = normalizedStratForBothPlayers.getInfoSetStrategy(strategyInfoSets[i]);
+            int offset = actionOffset[i];
+            for (int a = 0; a < actionCount[i]; ++a) {
+                actionProbs[offset + a] = isStrat.getProbability(a);
+            }
+        }
+
+        // reach probabilities of both players including random actions
+        final int nodeCount = tree.getNodeCount();
+        Arrays.fill(isReached, false);
+        p1Reach[0] = p2Reach[0] = tree.getRndProb(0);
+        for (int node = 0; node < nodeCount; ++node) {
+            int player = tree.getActingPlayer(node);
+            if (player == CompiledGameTree.TERMINAL) continue;
+            double r1 = p1Reach[node], r2 = p2Reach[node];
+            int first = tree.getFirstChild(node), children = tree.getChildCount(node);
+            if (player == 0) {
+                for (int a = 0; a < children; ++a) {
+                    double prob = tree.getRandomActionProb(first + a);
+                    p1Reach[first + a] = r1 * prob;
+                    p2Reach[first + a] = r2 * prob;
+                }
+                continue;
+            }
+            int isIdx = tree.getInfoSetIdx(node);
+            if (r1 != 0 || r2 != 0) isReached[isIdx] = true;
+            int offset = actionOffset[isIdx];
+            for (int a = 0; a < children; ++a) {
+                double prob = actionProbs[offset + a];
+                p1Reach[first + a] = (player == 1) ? r1 * prob : r1;
+                p2Reach[first + a] = (player == 2) ? r2 * prob : r2;
+            }
+        }
+
+        // best response value of each player is weighted by the opponent's reach
+        Arrays.fill(slotValues, 0);
+        double p1Root = 0, p2Root = 0;
+        for (int t = 0; t < terminals.length; ++t) {
+            int node = terminals[t];
+            double payoff = tree.getPayoff(node);
+            double p1Value = payoff * p2Reach[node], p2Value = -payoff * p1Reach[node];
+            int s1 = p1TerminalSlot[t], s2 = p2TerminalSlot[t];
+            if (s1 < 0) p1Root += p1Value; else slotValues[s1] += p1Value;
+            if (s2 < 0) p2Root += p2Value; else slotValues[s2] += p2Value;
+        }
+
+        // information sets under an action always have higher index than the information set of the action
+        for (int i = isCount - 1; i >= 0; --i) {
+            int offset = actionOffset[i];
+            double max = slotValues[offset];
+            int maxIdx = 0;
+            for (int a = 1; a < actionCount[i]; ++a) {
+                double val = slotValues[offset + a];
+                if (PerfectRecallExploitability.isBetterValue(val, max)) {
+                    max = val;
+                    maxIdx = a;
+                }
+            }
+            if (outBestResponseStrategy != null && isReached[i]) {
+                final int bestAction = maxIdx;
+                outBestResponseStrategy.setProbabilities(tree.getInfoSet(i), a -> a == bestAction ? 1d : 0d);
+            }
+            int parent = parentSlot[i];
+            if (parent >= 0) {
+                slotValues[parent] += max;
+            } else if (tree.getInfoSet(i).getOwnerId() == 1) {
+                p1Root += max;
+            } else {
+                p2Root += max;
+            }
+        }
+        return p1Root + p2Root;
+    }
+}
@@ -28,10 +28,37 @@ public class ExploitabilityUtils {
      * @return exploitability
      */
     public static double computeExploitability(IStrategy normalizedStratForBothPlayers, IGameDescription gameDescription, Strategy outBestResponseStrategy) {
+        return computeExploitability(normalizedStratForBothPlayers, gameDescription, outBestResponseStrategy, 1);
+    }
+
+    /**
+     * Helper method for exploitability computation which uses multiple threads.
+     *
+     * Avoids unnecessary perfect-recall wrapping if the game already has perfect-recall.
+     * @param normalizedStratForBothPlayers normalized strategy for both players, which supports concurrent access
+     * @param gameDescription target game
+     * @param parallelism number of threads
+     * @return exploitability
+     */
+    public static double computeExploitability(IStrategy normalizedStratForBothPlayers, IGameDescription gameDescription, int parallelism) {
+        return computeExploitability(normalizedStratForBothPlayers, gameDescription, null, parallelism);
+    }
+
+    /**
+     * Helper method for exploitability computation which uses multiple threads and also returns best-response strategy.
+     *
+     * Avoids unnecessary perfect-recall wrapping if the game already has perfect-recall.
+     * @param normalizedStratForBothPlayers normalized strategy for both players, which supports concurrent access
+     * @param gameDescription target game
+     * @param outBestResponseStrategy output argument which will be filled with  perfect-recall best response strategy for both players
+     * @param parallelism number of threads
+     * @return exploitability
+     */
+    public static double computeExploitability(IStrategy normalizedStratForBothPlayers, IGameDescription gameDescription, Strategy outBestResponseStrategy, int parallelism) {
         if (gameDescription.getClass().isAnnotationPresent(PerfectRecallGame.class)) {
-            return PerfectRecallExploitability.computeExploitability(normalizedStratForBothPlayers, gameDescription, outBestResponseStrategy);
+            return PerfectRecallExploitability.computeExploitability(normalizedStratForBothPlayers, gameDescription.getInitialState(), outBestResponseStrategy, parallelism);
         } else {
-            return ImperfectRecallExploitability.computeExploitability(normalizedStratForBothPlayers, gameDescription, outBestResponseStrategy);
+            return ImperfectRecallExploitability.computeExploitability(normalizedStratForBothPlayers, gameDescription.getInitialState(), outBestResponseStrategy, parallelism);
         }
     }
 }
@@ -48,6 +48,18 @@ public class ImperfectRecallExploitability {
      * @return exploitability
      */
     public static double computeExploitability(IStrategy normalizedStratForBothPlayers, ICompleteInformationState initialState, Strategy outBestResponseStrategy) {
+        return computeExploitability(normalizedStratForBothPlayers, initialState, outBestResponseStrategy, 1);
+    }
+
+    /**
+     * Computes exploitability and best response strategy using multiple threads.
+     * @param normalizedStratForBothPlayers strategy which supports concurrent access
+     * @param initialState
+     * @param outBestResponseStrategy strategy into which best response will be written (strategy will be for perfect-recall wrapper of the orginal game)
+     * @param parallelism number of threads
+     * @return exploitability
+     */
+    public static double computeExploitability(IStrategy normalizedStratForBothPlayers, ICompleteInformationState initialState, Strategy outBestResponseStrategy, int parallelism) {
         IStrategy perfRecallStrategy = new IStrategy() {
             private IInformationSet getOrigInfoSet(IInformationSet is) {
                 InformationSetWrapper pris = (InformationSetWrapper) is;
@@ -69,6 +81,6 @@ public class ImperfectRecallExploitability {
                 return normalizedStratForBothPlayers.getInfoSetStrategy(getOrigInfoSet(is));
             }
         };
-        return PerfectRecallExploitability.computeExploitability(perfRecallStrategy, PerfectRecallGameDescriptionWrapper.wrapInitialState(initialState), outBestResponseStrategy);
+        return PerfectRecallExploitability.computeExploitability(perfRecallStrategy, PerfectRecallGameDescriptionWrapper.wrapInitialState(initialState), outBestResponseStrategy, parallelism);
     }
 }
@@ -0,0 +1,259 @@
+package com.ggp.utils.exploitability;
+
+import com.ggp.*;
+import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.utils.random.RandomSampler;
+import com.ggp.utils.strategy.Strategy;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Estimates exploitability by sampling, for games which are too large to be enumerated.
+ *
+ * For each player an approximate best response against the other player's strategy is first learned by Monte-Carlo
+ * control: games are sampled with the responder playing epsilon-greedily w.r.t. average returns of its actions.
+ * Value of the resulting pure strategy is then estimated from independently sampled games. Any response can do at
+ * most as well as the best response, so the estimate is a lower bound on exploitability (in expectation).
+ *
+ * Imperfect-recall games don't need to be transformed, the learned response is just weaker. Instances are not
+ * thread-safe.
+ */
+public class MonteCarloExploitability {
+    /**
+     * Result of the estimation.
+     */
+    public static class Estimate {
+        private final double exploitability;
+        private final double confidenceInterval;
+        private final long samples;
+
+        public Estimate(double exploitability, double confidenceInterval, long samples) {
+            this.exploitability = exploitability;
+            this.confidenceInterval = confidenceInterval;
+            this.samples = samples;
+        }
+
+        /**
+         * Get exploitability estimate
+         * @return
+         */
+        public double getExploitability() {
+            return exploitability;
+        }
+
+        /**
+         * Get half-width of 95% confidence interval of the estimate
+         * @return
+         */
+        public double getConfidenceInterval() {
+            return confidenceInterval;
+        }
+
+        /**
+         * Get number of sampled games used for the estimate (excluding learning)
+         * @return
+         */
+        public long getSamples() {
+            return samples;
+        }
+
+        /**
+         * Get lower end of the confidence interval
+         * @return
+         */
+        public double getLowerBound() {
+            return exploitability - confidenceInterval;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.4g +- %.2g", exploitability, confidenceInterval);
+        }
+    }
+
+    private static final double Z_95 = 1.959963984540054;
+    /**
+     * Fraction of the time limit used to estimate value of the learned responses.
+     */
+    private static final double EVALUATION_SHARE = 0.25;
+    private static final double EXPLORATION = 0.1;
+
+    private final ICompleteInformationState initialState;
+    private final RandomSampler sampler;
+    private double[] probs = new double[0];
+
+    /**
+     * Constructor
+     * @param initialState
+     * @param sampler
+     */
+    public MonteCarloExploitability(ICompleteInformationState initialState, RandomSampler sampler) {
+        if (initialState == null) {
+            throw new IllegalArgumentException("Initial state can't be null!");
+        }
+        if (sampler == null) {
+            throw new IllegalArgumentException("Sampler can't be null!");
+        }
+        this.initialState = initialState;
+        this.sampler = sampler;
+    }
+
+    public MonteCarloExploitability(IGameDescription gameDescription) {
+        this(gameDescription.getInitialState(), new RandomSampler());
+    }
+
+    /**
+     * Sum and count of returns of each action of responder's IS.
+     */
+    private static class ActionValues {
+        final double[] returnSums;
+        final long[] counts;
+
+        ActionValues(int actionCount) {
+            returnSums = new double[actionCount];
+            counts = new long[actionCount];
+        }
+
+        /**
+         * @return action with the highest average return, unvisited actions are ignored
+         */
+        int getGreedyAction() {
+            int best = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int a = 0; a < counts.length; ++a) {
+                if (counts[a] == 0) continue;
+                double value = returnSums[a] / counts[a];
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = a;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * @return first unvisited action or -1
+         */
+        int getUnvisitedAction() {
+            for (int a = 0; a < counts.length; ++a) {
+                if (counts[a] == 0) return a;
+            }
+            return -1;
+        }
+    }
+
+    private int sampleStrategyAction(IStrategy strategy, ICompleteInformationState s) {
+        IInformationSet is = s.getInfoSetForActingPlayer();
+        IInfoSetStrategy isStrat = strategy.getInfoSetStrategy(is);
+        int size = s.getLegalActions().size();
+        if (probs.length < size) probs = new double[size];
+        for (int a = 0; a < size; ++a) {
+            probs[a] = isStrat.getProbability(a);
+        }
+        return sampler.selectIdx(probs, size);
+    }
+
+    private IAction sampleRandomAction(ICompleteInformationState s) {
+        return sampler.select(s.getRandomNode(), IRandomNode.IRandomNodeAction::getProb).getResult().getAction();
+    }
+
+    /**
+     * Sample one game and update responder's action values along its path.
+     * @return responder's payoff
+     */
+    private double learn(IStrategy strategy, IGameTraversalTracker tracker, int responder, HashMap<IInformationSet, ActionValues> values) {
+        ICompleteInformationState s = tracker.getCurrentState();
+        if (s.isTerminal()) return tracker.getPayoff(responder);
+        if (s.isRandomNode()) return learn(strategy, tracker.next(sampleRandomAction(s)), responder, values);
+        List<IAction> legalActions = s.getLegalActions();
+        if (s.getActingPlayerId() != responder) {
+            return learn(strategy, tracker.next(legalActions.get(sampleStrategyAction(strategy, s))), responder, values);
+        }
+        ActionValues isValues = values.computeIfAbsent(s.getInfoSetForActingPlayer(), is -> new ActionValues(legalActions.size()));
+        int action = isValues.getUnvisitedAction();
+        if (action < 0) {
+            action = sampler.choose(EXPLORATION) ? sampler.selectIdx(legalActions.size()) : isValues.getGreedyAction();
+        }
+        double ret = learn(strategy, tracker.next(legalActions.get(action)), responder, values);
+        isValues.returnSums[action] += ret;
+        isValues.counts[action]++;
+        return ret;
+    }
+
+    /**
+     * Sample one game with responder playing its learned pure strategy.
+     * @return responder's payoff
+     */
+    private double play(IStrategy strategy, IGameTraversalTracker tracker, int responder, HashMap<IInformationSet, ActionValues> values) {
+        ICompleteInformationState s = tracker.getCurrentState();
+        while (!s.isTerminal()) {
+            IAction a;
+            if (s.isRandomNode()) {
+                a = sampleRandomAction(s);
+            } else if (s.getActingPlayerId() != responder) {
+                a = s.getLegalActions().get(sampleStrategyAction(strategy, s));
+            } else {
+                ActionValues isValues = values.get(s.getInfoSetForActingPlayer());
+                a = s.getLegalActions().get(isValues == null ? 0 : isValues.getGreedyAction());
+            }
+            tracker = tracker.next(a);
+            s = tracker.getCurrentState();
+        }
+        return tracker.getPayoff(responder);
+    }
+
+    /**
+     * Estimate exploitability within given time limit.
+     * @param normalizedStratForBothPlayers
+     * @param timeLimitMs time limit for both players together
+     * @return estimate
+     */
+    public Estimate computeExploitability(IStrategy normalizedStratForBothPlayers, long timeLimitMs) {
+        return computeExploitability(normalizedStratForBothPlayers, timeLimitMs, null);
+    }
+
+    /**
+     * Estimate exploitability within given time limit and also return the learned responses.
+     * @param normalizedStratForBothPlayers
+     * @param timeLimitMs time limit for both players together
+     * @param outResponseStrategy strategy into which the learned pure responses of both players will be written
+     * @return estimate
+     */
+    public Estimate computeExploitability(IStrategy normalizedStratForBothPlayers, long timeLimitMs, Strategy outResponseStrategy) {
+        final long playerLimitNs = timeLimitMs * 1000000L / 2;
+        double exploitability = 0, variance = 0;
+        long samples = 0;
+        for (int responder = 1; responder <= 2; ++responder) {
+            HashMap<IInformationSet, ActionValues> values = new HashMap<>();
+            long start = System.nanoTime();
+            long learnEnd = start + (long) ((1 - EVALUATION_SHARE) * playerLimitNs), end = start + playerLimitNs;
+            do {
+                learn(normalizedStratForBothPlayers, SimpleTracker.createRoot(initialState), responder, values);
+            } while (System.nanoTime() < learnEnd);
+
+            // Welford's algorithm
+            long n = 0;
+            double mean = 0, m2 = 0;
+            do {
+                double payoff = play(normalizedStratForBothPlayers, SimpleTracker.createRoot(initialState), responder, values);
+                n++;
+                double delta = payoff - mean;
+                mean += delta / n;
+                m2 += delta * (payoff - mean);
+            } while (System.nanoTime() < end);
+            exploitability += mean;
+            if (n > 1) variance += m2 / (n - 1) / n;
+            samples += n;
+
+            if (outResponseStrategy != null) {
+                values.forEach((is, isValues) -> {
+                    final int best = isValues.getGreedyAction();
+                    outResponseStrategy.setProbabilities(is, a -> a == best ? 1d : 0d);
+                });
+            }
+        }
+        return new Estimate(exploitability, Z_95 * Math.sqrt(variance), samples);
+    }
+}
@@ -1,16 +1,64 @@
 package com.ggp.utils.exploitability;
 
 import com.ggp.*;
+import com.ggp.utils.ForkJoinPools;
 import com.ggp.utils.strategy.Strategy;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Computes exploitability in perfect-recall games.
+ *
+ * The game tree can be enumerated in parallel, in which case the top of the tree is split into subtrees whose IS trees
+ * are built concurrently and then merged in the order of the serial traversal.
  */
 public class PerfectRecallExploitability {
+    private static final double TIE_TOLERANCE = 1e-12;
+    /**
+     * Number of subtrees per thread the top of the tree is split into.
+     */
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Compare values of best-response actions.
+     *
+     * Values which differ only by rounding are ties, so that the first best action is chosen regardless of the order
+     * in which the values were summed.
+     * @param val
+     * @param max
+     * @return true if val is better than max
+     */
+    static boolean isBetterValue(double val, double max) {
+        return val - max > TIE_TOLERANCE * Math.max(1, Math.max(Math.abs(val), Math.abs(max)));
+    }
+
+    private static class SubtreeTask extends RecursiveTask<BothPlayersSubtreeNode> {
+        private static final long serialVersionUID = 1L;
+        private final IStrategy normalizedPlayerStrategy;
+        private final ICompleteInformationState state;
+        private final double p1ReachProb, p2ReachProb;
+        private final int taskBudget;
+        final Exploitability exp = new Exploitability();
+
+        public SubtreeTask(IStrategy normalizedPlayerStrategy, ICompleteInformationState state, double p1ReachProb,
+                           double p2ReachProb, int taskBudget) {
+            this.normalizedPlayerStrategy = normalizedPlayerStrategy;
+            this.state = state;
+            this.p1ReachProb = p1ReachProb;
+            this.p2ReachProb = p2ReachProb;
+            this.taskBudget = taskBudget;
+        }
+
+        @Override
+        protected BothPlayersSubtreeNode compute() {
+            return exp.buildISTreesParallel(normalizedPlayerStrategy, state, p1ReachProb, p2ReachProb, taskBudget);
+        }
+    }
 
     private static class Exploitability {
         HashMap<IInformationSet, ISInfo> isInfos = new HashMap<>();
@@ -47,7 +95,7 @@ public class PerfectRecallExploitability {
             IInformationSet is = state.getInfoSetForActingPlayer();
             final int actPlayer = state.getActingPlayerId();
 
-            ISInfo info = isInfos.computeIfAbsent(is, k -> new ISInfo(legalActions.size()));
+            ISInfo info = getISInfo(is, legalActions.size());
             IInfoSetStrategy isStrat = normalizedPlayerStrategy.getInfoSetStrategy(is);
             int actionIdx = 0;
             for (IAction a: legalActions) {
@@ -59,34 +107,129 @@ public class PerfectRecallExploitability {
                     newP2Prob *= actionProb;
                 }
                 BothPlayersSubtreeNode tmp = buildISTrees(normalizedPlayerStrategy, state.next(a), newP1Prob, newP2Prob);
-                ret.add(tmp, actPlayer);
-                HashSet<IInformationSet> nextActInfoSets;
-                double directValue;
-                if (actPlayer == 1) {
-                    nextActInfoSets = tmp.p1ActIs;
-                    directValue = tmp.p1Utility;
-                } else {
-                    nextActInfoSets = tmp.p2ActIs;
-                    directValue = tmp.p2Utility;
-                }
-                info.actionNodes[actionIdx].add(directValue);
-                info.actionNodes[actionIdx].add(nextActInfoSets);
+                addActionSubtree(ret, info, actionIdx, tmp, actPlayer);
                 actionIdx++;
             }
+            setActingInfoSet(ret, is, actPlayer);
+            return ret;
+        }
+
+        private ISInfo getISInfo(IInformationSet is, int legalActionsSize) {
+            return isInfos.computeIfAbsent(is, k -> new ISInfo(legalActionsSize));
+        }
+
+        /**
+         * Add subtree of acting player's action to both the node and the IS info
+         * @param node
+         * @param info
+         * @param actionIdx
+         * @param subtree
+         * @param actPlayer
+         */
+        private void addActionSubtree(BothPlayersSubtreeNode node, ISInfo info, int actionIdx, BothPlayersSubtreeNode subtree, int actPlayer) {
+            node.add(subtree, actPlayer);
+            HashSet<IInformationSet> nextActInfoSets;
+            double directValue;
+            if (actPlayer == 1) {
+                nextActInfoSets = subtree.p1ActIs;
+                directValue = subtree.p1Utility;
+            } else {
+                nextActInfoSets = subtree.p2ActIs;
+                directValue = subtree.p2Utility;
+            }
+            info.actionNodes[actionIdx].add(directValue);
+            info.actionNodes[actionIdx].add(nextActInfoSets);
+        }
+
+        private void setActingInfoSet(BothPlayersSubtreeNode node, IInformationSet is, int actPlayer) {
             if (actPlayer == 1) {
-                ret.p1ActIs = new HashSet<>();
-                ret.p1ActIs.add(is);
-                ret.p1Utility = 0;
+                node.p1ActIs = new HashSet<>();
+                node.p1ActIs.add(is);
+                node.p1Utility = 0;
             } else {
-                ret.p2ActIs = new HashSet<>();
-                ret.p2ActIs.add(is);
-                ret.p2Utility = 0;
+                node.p2ActIs = new HashSet<>();
+                node.p2ActIs.add(is);
+                node.p2Utility = 0;
+            }
+        }
+
+        /**
+         * Merge IS infos built by another instance into this one.
+         * @param other
+         */
+        private void merge(Exploitability other) {
+            for (Map.Entry<IInformationSet, ISInfo> entry: other.isInfos.entrySet()) {
+                ISInfo info = isInfos.putIfAbsent(entry.getKey(), entry.getValue());
+                if (info == null) continue;
+                ISTreeNode[] otherNodes = entry.getValue().actionNodes;
+                for (int a = 0; a < otherNodes.length; ++a) {
+                    info.actionNodes[a].add(otherNodes[a].directValue);
+                    info.actionNodes[a].add(otherNodes[a].referencedInfoSets);
+                }
             }
+        }
+
+        /**
+         * Build IS trees for both players in parallel.
+         *
+         * Random nodes and actions of the top of the tree are split into tasks while there are less tasks than
+         * taskBudget, each task builds its own IS infos which are then merged into the caller's.
+         * @param normalizedPlayerStrategy
+         * @param state
+         * @param p1ReachProb
+         * @param p2ReachProb
+         * @param taskBudget
+         * @return subtrees corresponding to state
+         */
+        private BothPlayersSubtreeNode buildISTreesParallel(IStrategy normalizedPlayerStrategy, ICompleteInformationState state,
+                                                            double p1ReachProb, double p2ReachProb, int taskBudget) {
+            if (taskBudget <= 1 || state.isTerminal() || (p1ReachProb == 0 && p2ReachProb == 0)) {
+                return buildISTrees(normalizedPlayerStrategy, state, p1ReachProb, p2ReachProb);
+            }
+            List<IAction> legalActions = state.getLegalActions();
+            int childBudget = (taskBudget + legalActions.size() - 1) / legalActions.size();
+            ArrayList<SubtreeTask> tasks = new ArrayList<>(legalActions.size());
+            IInformationSet is = state.isRandomNode() ? null : state.getInfoSetForActingPlayer();
+            IRandomNode rndNode = state.isRandomNode() ? state.getRandomNode() : null;
+            IInfoSetStrategy isStrat = state.isRandomNode() ? null : normalizedPlayerStrategy.getInfoSetStrategy(is);
+            final int actPlayer = state.getActingPlayerId();
+            int actionIdx = 0;
+            for (IAction a: legalActions) {
+                double actionProb = (rndNode != null) ? rndNode.getActionProb(a) : isStrat.getProbability(actionIdx);
+                double newP1Prob = p1ReachProb, newP2Prob = p2ReachProb;
+                if (actPlayer != 2) newP1Prob *= actionProb;
+                if (actPlayer != 1) newP2Prob *= actionProb;
+                SubtreeTask task = new SubtreeTask(normalizedPlayerStrategy, state.next(a), newP1Prob, newP2Prob, childBudget);
+                task.fork();
+                tasks.add(task);
+                actionIdx++;
+            }
+
+            BothPlayersSubtreeNode ret = new BothPlayersSubtreeNode(0,0);
+            actionIdx = 0;
+            for (SubtreeTask task: tasks) {
+                BothPlayersSubtreeNode tmp = task.join();
+                merge(task.exp);
+                if (rndNode != null) {
+                    ret.add(tmp, 0);
+                } else {
+                    addActionSubtree(ret, getISInfo(is, legalActions.size()), actionIdx, tmp, actPlayer);
+                }
+                actionIdx++;
+            }
+            if (rndNode == null) setActingInfoSet(ret, is, actPlayer);
             return ret;
         }
 
-        public double computeExploitability(IStrategy normalizedStratForBothPlayers, ICompleteInformationState initialState) {
-            BothPlayersSubtreeNode utilities = buildISTrees(normalizedStratForBothPlayers, initialState, 1, 1);
+        public double computeExploitability(IStrategy normalizedStratForBothPlayers, ICompleteInformationState initialState, int parallelism) {
+            BothPlayersSubtreeNode utilities;
+            if (parallelism > 1) {
+                SubtreeTask root = new SubtreeTask(normalizedStratForBothPlayers, initialState, 1, 1, TASKS_PER_THREAD * parallelism);
+                utilities = ForkJoinPools.get(parallelism).invoke(root);
+                isInfos = root.exp.isInfos;
+            } else {
+                utilities = buildISTrees(normalizedStratForBothPlayers, initialState, 1, 1);
+            }
 
             return computeBestResponseUtility(utilities.p1Utility, utilities.p1ActIs)
                     + computeBestResponseUtility(utilities.p2Utility, utilities.p2ActIs);
@@ -107,13 +250,13 @@ public class PerfectRecallExploitability {
         public double computeBestResponseUtility(double directValue, HashSet<IInformationSet> referencedInfoSets) {
             if (referencedInfoSets != null) {
                 for (IInformationSet is: referencedInfoSets) {
-                    directValue += isInfos.get(is).getBestValue(is);
+                    directValue += isInfos.get(is).getBestValue(this, is);
                 }
             }
             return directValue;
         }
 
-        private class ISTreeNode {
+        private static class ISTreeNode {
             public double directValue = 0;
             public HashSet<IInformationSet> referencedInfoSets = null;
 
@@ -139,15 +282,15 @@ public class PerfectRecallExploitability {
                 directValue += terminalValue;
             }
 
-            public double getFinalValue() {
-                double res = computeBestResponseUtility(directValue, referencedInfoSets);
+            public double getFinalValue(Exploitability exp) {
+                double res = exp.computeBestResponseUtility(directValue, referencedInfoSets);
                 referencedInfoSets = null;
                 directValue = res;
                 return directValue;
             }
         }
 
-        private class ISInfo {
+        private static class ISInfo {
             public ISTreeNode[] actionNodes;
 
             public ISInfo(int legalActionsSize) {
@@ -157,17 +300,17 @@ public class PerfectRecallExploitability {
                 }
             }
 
-            public double getBestValue(IInformationSet thisIS) {
-                double max = actionNodes[0].getFinalValue();
+            public double getBestValue(Exploitability exp, IInformationSet thisIS) {
+                double max = actionNodes[0].getFinalValue(exp);
                 int maxIdx = 0;
                 for (int i = 1; i < actionNodes.length; ++i) {
-                    double val = actionNodes[i].getFinalValue();
-                    if (val > max) {
+                    double val = actionNodes[i].getFinalValue(exp);
+                    if (isBetterValue(val, max)) {
                         max = val;
                         maxIdx = i;
                     }
                 }
-                setBestAction(thisIS, maxIdx);
+                exp.setBestAction(thisIS, maxIdx);
                 return max; // no need to cache the result as in perfect recall game it will be called exactly once
             }
         }
@@ -255,8 +398,22 @@ public class PerfectRecallExploitability {
      * @return exploitability
      */
     public static double computeExploitability(IStrategy normalizedStratForBothPlayers, ICompleteInformationState initialState, Strategy outBestResponseStrategy) {
+        return computeExploitability(normalizedStratForBothPlayers, initialState, outBestResponseStrategy, 1);
+    }
+
+    /**
+     * Computes exploitability and best response strategy using multiple threads.
+     *
+     * The strategy must support concurrent access.
+     * @param normalizedStratForBothPlayers
+     * @param initialState
+     * @param outBestResponseStrategy strategy into which best response will be written
+     * @param parallelism number of threads
+     * @return exploitability
+     */
+    public static double computeExploitability(IStrategy normalizedStratForBothPlayers, ICompleteInformationState initialState, Strategy outBestResponseStrategy, int parallelism) {
         Exploitability exp = new Exploitability();
         exp.bestResponseStrategy = outBestResponseStrategy;
-        return exp.computeExploitability(normalizedStratForBothPlayers, initialState);
+        return exp.computeExploitability(normalizedStratForBothPlayers, initialState, parallelism);
     }
 }
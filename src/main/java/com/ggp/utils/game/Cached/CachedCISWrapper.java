@@ -0,0 +1,96 @@
+package com.ggp.utils.game.Cached;
+
+import com.ggp.IAction;
+import com.ggp.ICompleteInformationState;
+import com.ggp.IInformationSet;
+import com.ggp.utils.CompleteInformationStateWrapper;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * State wrapper which memoizes legal actions, IS of both players and (subject to {@link StateCache}'s limit) children.
+ */
+public class CachedCISWrapper extends CompleteInformationStateWrapper {
+    private static final long serialVersionUID = 1L;
+    private final StateCache cache;
+    private final int depth;
+    private transient volatile List<IAction> legalActions;
+    private transient volatile IInformationSet infoSet1, infoSet2;
+    /**
+     * Children indexed by legal action index, managed by the cache.
+     */
+    transient volatile AtomicReferenceArray<ICompleteInformationState> children;
+
+    CachedCISWrapper(ICompleteInformationState state, StateCache cache, int depth) {
+        super(state);
+        this.cache = cache;
+        this.depth = depth;
+    }
+
+    /**
+     * Get number of actions from the initial state.
+     * @return
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public List<IAction> getLegalActions() {
+        List<IAction> ret = legalActions;
+        if (ret == null) {
+            ret = state.getLegalActions();
+            legalActions = ret;
+        }
+        return ret;
+    }
+
+    @Override
+    public IInformationSet getInfoSetForPlayer(int player) {
+        IInformationSet ret;
+        if (player == 1) {
+            ret = infoSet1;
+            if (ret == null) {
+                ret = state.getInfoSetForPlayer(1);
+                infoSet1 = ret;
+            }
+        } else if (player == 2) {
+            ret = infoSet2;
+            if (ret == null) {
+                ret = state.getInfoSetForPlayer(2);
+                infoSet2 = ret;
+            }
+        } else {
+            ret = state.getInfoSetForPlayer(player);
+        }
+        return ret;
+    }
+
+    private static int indexOf(List<IAction> legalActions, IAction a) {
+        for (int i = 0; i < legalActions.size(); ++i) {
+            if (legalActions.get(i) == a) return i;
+        }
+        return legalActions.indexOf(a);
+    }
+
+    @Override
+    public ICompleteInformationState next(IAction a) {
+        List<IAction> actions = getLegalActions();
+        int actionIdx = (actions == null) ? -1 : indexOf(actions, a);
+        if (actionIdx < 0) return new CachedCISWrapper(state.next(a), cache, depth + 1);
+        AtomicReferenceArray<ICompleteInformationState> cached = children;
+        if (cached != null) {
+            ICompleteInformationState child = cached.get(actionIdx);
+            if (child != null) return child;
+        }
+        return cache.put(this, actionIdx, new CachedCISWrapper(state.next(a), cache, depth + 1), actions.size());
+    }
+
+    @Override
+    public String toString() {
+        return "Cached{" +
+                    state +
+                '}';
+    }
+}
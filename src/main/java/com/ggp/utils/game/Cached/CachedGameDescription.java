@@ -0,0 +1,95 @@
+package com.ggp.utils.game.Cached;
+
+import com.ggp.ICompleteInformationState;
+import com.ggp.IGameDescription;
+
+import java.util.Objects;
+
+/**
+ * Game description wrapper which memoizes transitions of states.
+ *
+ * Repeated traversals of the game (full-traversal solvers, exploitability, ...) then reuse child states together with
+ * their legal actions and IS instead of rebuilding them. The number of cached child states is limited, the deepest
+ * are evicted first. Only states reached from the same initial state instance share the cache.
+ */
+public class CachedGameDescription implements IGameDescription {
+    private static final long serialVersionUID = 1L;
+    /**
+     * Default limit of cached states.
+     */
+    public static final long DEFAULT_MAX_STATES = 1000000;
+
+    private final IGameDescription gameDesc;
+    private final StateCache cache;
+    private transient volatile ICompleteInformationState initialState;
+
+    public CachedGameDescription(IGameDescription gameDesc) {
+        this(gameDesc, DEFAULT_MAX_STATES);
+    }
+
+    /**
+     * Constructor
+     * @param gameDesc
+     * @param maxStates maximum number of cached states, 0 disables caching of children
+     */
+    public CachedGameDescription(IGameDescription gameDesc, long maxStates) {
+        if (gameDesc == null) {
+            throw new IllegalArgumentException("Inner game description can't be null!");
+        }
+        if (maxStates < 0) {
+            throw new IllegalArgumentException("Maximum number of cached states can't be negative!");
+        }
+        this.gameDesc = gameDesc;
+        this.cache = new StateCache(maxStates);
+    }
+
+    @Override
+    public ICompleteInformationState getInitialState() {
+        ICompleteInformationState ret = initialState;
+        if (ret == null) {
+            synchronized (cache) {
+                ret = initialState;
+                if (ret == null) {
+                    ret = new CachedCISWrapper(gameDesc.getInitialState(), cache, 0);
+                    initialState = ret;
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get number of currently cached states.
+     * @return
+     */
+    public long getCachedStates() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Cached{" +
+                    gameDesc +
+                    "," + cache.getMaxStates() +
+                '}';
+    }
+
+    @Override
+    public String getConfigString() {
+        return toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CachedGameDescription that = (CachedGameDescription) o;
+        return cache.getMaxStates() == that.cache.getMaxStates() &&
+                Objects.equals(gameDesc, that.gameDesc);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gameDesc, cache.getMaxStates());
+    }
+}
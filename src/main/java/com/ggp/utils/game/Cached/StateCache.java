@@ -0,0 +1,92 @@
+package com.ggp.utils.game.Cached;
+
+import com.ggp.ICompleteInformationState;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bookkeeping of children cached by {@link CachedCISWrapper}s.
+ *
+ * Limits the total number of cached children. When the limit is reached, children of the deepest caching state are
+ * dropped to make room for children of a shallower state, otherwise new children aren't cached. The top of the game
+ * tree, which every traversal goes through, therefore stays cached. Evicted states have no cached children, so no
+ * cached subtree becomes unreachable.
+ */
+class StateCache implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final long maxStates;
+    /**
+     * States with cached children by their depth.
+     */
+    private transient ArrayList<ArrayDeque<CachedCISWrapper>> parents = new ArrayList<>();
+    private transient long cachedStates = 0;
+
+    StateCache(long maxStates) {
+        this.maxStates = maxStates;
+    }
+
+    long getMaxStates() {
+        return maxStates;
+    }
+
+    /**
+     * Cache child of given state.
+     * @param parent
+     * @param actionIdx
+     * @param child
+     * @param actionCount
+     * @return cached child, which may differ from given child when another thread cached it first
+     */
+    synchronized ICompleteInformationState put(CachedCISWrapper parent, int actionIdx, ICompleteInformationState child, int actionCount) {
+        if (maxStates <= 0) return child;
+        AtomicReferenceArray<ICompleteInformationState> children = parent.children;
+        if (children != null && children.get(actionIdx) != null) return children.get(actionIdx);
+        if (cachedStates >= maxStates && !evictDeeperThan(parent.getDepth())) return child;
+        // the parent itself may have been evicted
+        children = parent.children;
+        if (children == null) {
+            children = new AtomicReferenceArray<>(actionCount);
+            parent.children = children;
+            while (parents.size() <= parent.getDepth()) parents.add(new ArrayDeque<>());
+            parents.get(parent.getDepth()).addLast(parent);
+        }
+        // the element is published with volatile semantics, so readers without the lock see a fully built child
+        children.set(actionIdx, child);
+        cachedStates++;
+        return child;
+    }
+
+    /**
+     * Drop children of the most recent state among the deepest ones, if it is deeper than given depth.
+     * @param depth
+     * @return whether some children were dropped
+     */
+    private boolean evictDeeperThan(int depth) {
+        while (!parents.isEmpty() && parents.get(parents.size() - 1).isEmpty()) {
+            parents.remove(parents.size() - 1);
+        }
+        if (parents.size() - 1 <= depth) return false;
+        CachedCISWrapper parent = parents.get(parents.size() - 1).pollLast();
+        AtomicReferenceArray<ICompleteInformationState> children = parent.children;
+        for (int i = 0; i < children.length(); ++i) {
+            if (children.get(i) != null) cachedStates--;
+        }
+        parent.children = null;
+        return true;
+    }
+
+    synchronized long size() {
+        return cachedStates;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        parents = new ArrayList<>();
+        cachedStates = 0;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ggp.utils.game.Interned;
+
+import com.ggp.IInformationSet;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonicalizes IS instances, so that equal IS are represented by a single {@link InternedISWrapper}.
+ *
+ * Interned IS compare by reference, cache their hash code and get a dense id, which can index array-backed
+ * tables. Interned IS are kept for the lifetime of the interner. Interning is thread-safe.
+ *
+ * The canonical instances aren't serialized, deserialized IS are interned again (and get new ids).
+ */
+public class InformationSetInterner implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private transient ConcurrentHashMap<IInformationSet, InternedISWrapper> infoSets = new ConcurrentHashMap<>();
+    private transient ArrayList<InternedISWrapper> infoSetsById = new ArrayList<>();
+
+    /**
+     * Get canonical instance of given IS.
+     * @param is
+     * @return interned IS or null if the IS is null
+     */
+    public InternedISWrapper intern(IInformationSet is) {
+        if (is == null) return null;
+        if (is instanceof InternedISWrapper && ((InternedISWrapper) is).getInterner() == this) {
+            return (InternedISWrapper) is;
+        }
+        InternedISWrapper ret = infoSets.get(is);
+        if (ret != null) return ret;
+        return infoSets.computeIfAbsent(is, this::create);
+    }
+
+    private synchronized InternedISWrapper create(IInformationSet is) {
+        InternedISWrapper ret = new InternedISWrapper(is, this, infoSetsById.size());
+        infoSetsById.add(ret);
+        return ret;
+    }
+
+    /**
+     * Get interned IS by its id.
+     * @param id
+     * @return
+     */
+    public synchronized InternedISWrapper getInfoSet(int id) {
+        return infoSetsById.get(id);
+    }
+
+    /**
+     * Get number of interned IS, all ids are lower.
+     * @return
+     */
+    public synchronized int size() {
+        return infoSetsById.size();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        infoSets = new ConcurrentHashMap<>();
+        infoSetsById = new ArrayList<>();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ggp.utils.game.Interned;
+
+import com.ggp.IAction;
+import com.ggp.ICompleteInformationState;
+import com.ggp.IInformationSet;
+import com.ggp.utils.CompleteInformationStateWrapper;
+
+public class InternedCISWrapper extends CompleteInformationStateWrapper {
+    private static final long serialVersionUID = 1L;
+    private final InformationSetInterner interner;
+    private transient IInformationSet infoSet1, infoSet2;
+
+    public InternedCISWrapper(ICompleteInformationState state, InformationSetInterner interner) {
+        super(state);
+        this.interner = interner;
+    }
+
+    @Override
+    public IInformationSet getInfoSetForPlayer(int player) {
+        if (player == 1) {
+            if (infoSet1 == null) infoSet1 = interner.intern(state.getInfoSetForPlayer(1));
+            return infoSet1;
+        } else if (player == 2) {
+            if (infoSet2 == null) infoSet2 = interner.intern(state.getInfoSetForPlayer(2));
+            return infoSet2;
+        }
+        return interner.intern(state.getInfoSetForPlayer(player));
+    }
+
+    @Override
+    public ICompleteInformationState next(IAction a) {
+        return new InternedCISWrapper(state.next(a), interner);
+    }
+
+    @Override
+    public String toString() {
+        return "Interned{" +
+                    state +
+                '}';
+    }
+}
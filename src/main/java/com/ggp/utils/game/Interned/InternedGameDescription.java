@@ -0,0 +1,59 @@
+package com.ggp.utils.game.Interned;
+
+import com.ggp.ICompleteInformationState;
+import com.ggp.IGameDescription;
+
+import java.util.Objects;
+
+/**
+ * Game description wrapper whose IS are interned ({@link InformationSetInterner}).
+ *
+ * Lookups of IS in solvers' tables, strategies etc. then use cached hash codes and reference equality instead of
+ * rehashing and deep comparison of the game's IS. All IS ever reached stay in memory.
+ */
+public class InternedGameDescription implements IGameDescription {
+    private static final long serialVersionUID = 1L;
+    private final IGameDescription gameDesc;
+    private final InformationSetInterner interner = new InformationSetInterner();
+
+    public InternedGameDescription(IGameDescription gameDesc) {
+        if (gameDesc == null) {
+            throw new IllegalArgumentException("Inner game description can't be null!");
+        }
+        this.gameDesc = gameDesc;
+    }
+
+    @Override
+    public ICompleteInformationState getInitialState() {
+        return new InternedCISWrapper(gameDesc.getInitialState(), interner);
+    }
+
+    public InformationSetInterner getInterner() {
+        return interner;
+    }
+
+    @Override
+    public String toString() {
+        return "Interned{" +
+                    gameDesc +
+                '}';
+    }
+
+    @Override
+    public String getConfigString() {
+        return toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InternedGameDescription that = (InternedGameDescription) o;
+        return Objects.equals(gameDesc, that.gameDesc);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gameDesc);
+    }
+}
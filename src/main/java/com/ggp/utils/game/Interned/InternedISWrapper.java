@@ -0,0 +1,73 @@
+package com.ggp.utils.game.Interned;
+
+import com.ggp.IAction;
+import com.ggp.IInformationSet;
+import com.ggp.IPercept;
+import com.ggp.utils.InformationSetWrapper;
+
+import java.io.ObjectStreamException;
+
+/**
+ * Canonical IS instance created by {@link InformationSetInterner}.
+ */
+public class InternedISWrapper extends InformationSetWrapper {
+    private static final long serialVersionUID = 1L;
+    private final InformationSetInterner interner;
+    private final transient int id;
+    private final transient int hash;
+
+    InternedISWrapper(IInformationSet infoSet, InformationSetInterner interner, int id) {
+        super(infoSet);
+        this.interner = interner;
+        this.id = id;
+        this.hash = infoSet.hashCode();
+    }
+
+    @Override
+    public IInformationSet next(IAction a) {
+        return interner.intern(infoSet.next(a));
+    }
+
+    @Override
+    public IInformationSet applyPercept(IPercept p) {
+        return interner.intern(infoSet.applyPercept(p));
+    }
+
+    public InformationSetInterner getInterner() {
+        return interner;
+    }
+
+    /**
+     * Get dense id of the IS, which is unique within its interner.
+     * @return
+     */
+    public int getId() {
+        return id;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return interner.intern(infoSet);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InternedISWrapper that = (InternedISWrapper) o;
+        // canonical instances of one interner are unique
+        if (interner == that.interner) return false;
+        return infoSet.equals(that.infoSet);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "Interned{" +
+                    infoSet +
+                '}';
+    }
+}
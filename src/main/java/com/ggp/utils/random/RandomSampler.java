@@ -1,11 +1,15 @@
 package com.ggp.utils.random;
 
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 
 /**
  * Collection of random sampling helpers.
+ *
+ * Samplers created by the default constructor draw from {@link ThreadLocalRandom} and can be shared by multiple
+ * threads, seeded samplers are only suitable for a single thread.
  */
 public class RandomSampler {
 
@@ -27,7 +31,27 @@ public class RandomSampler {
         }
     }
 
-    private Random rng = new Random();
+    private final SplittableRandom rng;
+
+    public RandomSampler() {
+        this.rng = null;
+    }
+
+    /**
+     * Constructor of reproducible single-threaded sampler
+     * @param seed
+     */
+    public RandomSampler(long seed) {
+        this.rng = new SplittableRandom(seed);
+    }
+
+    private double nextDouble() {
+        return (rng != null) ? rng.nextDouble() : ThreadLocalRandom.current().nextDouble();
+    }
+
+    private int nextInt(int bound) {
+        return (rng != null) ? rng.nextInt(bound) : ThreadLocalRandom.current().nextInt(bound);
+    }
 
     /**
      * Sample option with uniform probability
@@ -36,7 +60,7 @@ public class RandomSampler {
      */
     public <T> T select(List<T> options) {
         if (options == null || options.isEmpty()) return null;
-        T a = options.get(rng.nextInt(options.size()));
+        T a = options.get(nextInt(options.size()));
         return a;
     }
 
@@ -47,7 +71,7 @@ public class RandomSampler {
      */
     public int selectIdx(List<?> options) {
         if (options == null || options.isEmpty()) return -1;
-        return rng.nextInt(options.size());
+        return nextInt(options.size());
     }
 
     /**
@@ -58,7 +82,7 @@ public class RandomSampler {
      */
     public <T> SampleResult<T> select(Iterable<T> options, Function<T, Double> probMap) {
         if (options == null) return null;
-        double sample = rng.nextDouble();
+        double sample = nextDouble();
         T item = null;
         double p = 0d;
         for (T it: options) {
@@ -78,7 +102,7 @@ public class RandomSampler {
      */
     public <T> SampleResult<T> selectByIdx(Iterable<T> options, Function<Integer, Double> probMap) {
         if (options == null) return null;
-        double sample = rng.nextDouble();
+        double sample = nextDouble();
         T item = null;
         double p = 0d;
         int idx = 0;
@@ -100,7 +124,7 @@ public class RandomSampler {
      */
     public SampleResult<Integer> selectIdx(int size, Function<Integer, Double> probMap) {
         if (size == 0) return null;
-        double sample = rng.nextDouble();
+        double sample = nextDouble();
         double p = 0d;
         int i = 0;
         for (; i < size; ++i) {
@@ -111,13 +135,43 @@ public class RandomSampler {
         return new SampleResult<>(i, p);
     }
 
+    /**
+     * Sample index with uniform probability
+     * @param size
+     * @return index from [0, size) or -1 if size is 0
+     */
+    public int selectIdx(int size) {
+        if (size == 0) return -1;
+        return nextInt(size);
+    }
+
+    /**
+     * Sample index with given probabilities without allocating
+     * @param probs index {@literal ->} probability (must sum to 1 over the first size indices)
+     * @param size number of options
+     * @return index from [0, size) or -1 if size is 0
+     */
+    public int selectIdx(double[] probs, int size) {
+        if (size == 0) return -1;
+        double sample = nextDouble();
+        int last = -1;
+        for (int i = 0; i < size; ++i) {
+            double p = probs[i];
+            if (sample < p) return i;
+            sample -= p;
+            if (p > 0) last = i;
+        }
+        // rounding errors may leave the sample past the last option
+        return (last >= 0) ? last : size - 1;
+    }
+
     /**
      * Sample binary choice
      * @param trueProb
      * @return
      */
     public boolean choose(double trueProb) {
-        return rng.nextDouble() < trueProb;
+        return nextDouble() < trueProb;
     }
 
     /**
@@ -4,18 +4,19 @@ import com.ggp.IInfoSetStrategy;
 import com.ggp.IInformationSet;
 import com.ggp.IStrategy;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Normalizing wrapper for unnormalized strategy.
  *
  * This class assumes the underlying strategy doesn't change while the wrapper is in use.
- * If the underlying strategy changes new wrapper must be created to reflect those changes.
+ * If the underlying strategy changes new wrapper must be created to reflect those changes. The wrapper can be used
+ * concurrently if the underlying strategy can.
  */
 public class NormalizingStrategyWrapper implements IStrategy {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
     private IStrategy unnormalizedStrategy;
-    private HashMap<IInformationSet, IInfoSetStrategy> isStrats = new HashMap<>();
+    private ConcurrentHashMap<IInformationSet, IInfoSetStrategy> isStrats = new ConcurrentHashMap<>();
 
     /**
      * Constructor
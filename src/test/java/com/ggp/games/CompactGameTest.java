@@ -0,0 +1,99 @@
+package com.ggp.games;
+
+import com.ggp.*;
+import com.ggp.games.IIGoofspiel.CompactGame;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.solvers.cfr.utils.CompiledGameTree;
+import com.ggp.utils.GameRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactGameTest {
+    private static ICompactGame getCompactGame(IGameDescription gameDesc) {
+        return ((ICompactGame.IProvider) gameDesc.getInitialState()).getCompactGame();
+    }
+
+    private void checkState(ICompactGame game, ICompleteInformationState s, long c, HashMap<Long, IInformationSet> infoSets) {
+        assertEquals(s, game.toState(c));
+        assertEquals(c, game.fromState(s));
+        assertEquals(s.isTerminal(), game.isTerminal(c));
+        if (s.isTerminal()) {
+            assertEquals(s.getPayoff(1), game.getPayoff(c, 1));
+            assertEquals(s.getPayoff(2), game.getPayoff(c, 2));
+            return;
+        }
+        for (int player = 1; player <= 2; ++player) {
+            assertEquals(s.getInfoSetForPlayer(player), game.getInfoSet(c, player));
+            IInformationSet is = infoSets.putIfAbsent(game.getInfoSetKey(c, player), s.getInfoSetForPlayer(player));
+            if (is != null) assertEquals(is, s.getInfoSetForPlayer(player));
+        }
+        assertEquals(s.getActingPlayerId(), game.getActingPlayerId(c));
+        List<IAction> legalActions = s.getLegalActions();
+        assertEquals(legalActions.size(), game.getActionCount(c));
+        for (int a = 0; a < legalActions.size(); ++a) {
+            if (s.isRandomNode()) {
+                assertEquals(s.getRandomNode().getActionProb(legalActions.get(a)), game.getRandomActionProb(c, a), 1e-12);
+            }
+            checkState(game, s.next(legalActions.get(a)), game.next(c, a), infoSets);
+        }
+    }
+
+    private void checkGame(IGameDescription gameDesc) {
+        ICompactGame game = getCompactGame(gameDesc);
+        assertNotNull(game);
+        assertEquals(game.getInitialState(), game.fromState(gameDesc.getInitialState()));
+        HashMap<Long, IInformationSet> infoSets = new HashMap<>();
+        checkState(game, gameDesc.getInitialState(), game.getInitialState(), infoSets);
+        // different keys must belong to different information sets
+        assertEquals(infoSets.size(), infoSets.values().stream().distinct().count());
+    }
+
+    @Test
+    void testMatchesObjectView_rps() {
+        checkGame(GameRepository.rps(5));
+    }
+
+    @Test
+    void testMatchesObjectView_leduc() {
+        checkGame(GameRepository.leducPoker(7));
+        checkGame(GameRepository.leducPoker(3, 9, 2, 4));
+    }
+
+    @Test
+    void testMatchesObjectView_goofspiel() {
+        checkGame(GameRepository.iiGoofspiel(4));
+    }
+
+    @Test
+    void testMatchesObjectView_latentTTT() {
+        checkGame(GameRepository.latentTTT());
+    }
+
+    @Test
+    void testTooLargeGames() {
+        assertNull(getCompactGame(GameRepository.leducPoker(Integer.MAX_VALUE / 4, Integer.MAX_VALUE / 4, 1000, 3)));
+        assertNull(getCompactGame(GameRepository.iiGoofspiel(CompactGame.MAX_GAME_SIZE + 1)));
+    }
+
+    @Test
+    void testCompiledTreeMatchesObjectView_leduc() {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        CompiledGameTree objectTree = CompiledGameTree.compile(SimpleTracker.createRoot(gameDesc.getInitialState()), true);
+        CompiledGameTree compactTree = CompiledGameTree.compile(SimpleTracker.createRoot(gameDesc.getInitialState()), false);
+        assertEquals(objectTree.getNodeCount(), compactTree.getNodeCount());
+        assertEquals(objectTree.getInfoSetCount(), compactTree.getInfoSetCount());
+        assertEquals(objectTree.getRootState(), compactTree.getRootState());
+        for (int node = 0; node < objectTree.getNodeCount(); ++node) {
+            assertEquals(objectTree.getActingPlayer(node), compactTree.getActingPlayer(node));
+            assertEquals(objectTree.getChildCount(node), compactTree.getChildCount(node));
+            assertEquals(objectTree.getPayoff(node), compactTree.getPayoff(node));
+            assertEquals(objectTree.getRndProb(node), compactTree.getRndProb(node), 1e-12);
+            int isIdx = objectTree.getInfoSetIdx(node);
+            if (isIdx >= 0) assertEquals(objectTree.getInfoSet(isIdx), compactTree.getInfoSet(compactTree.getInfoSetIdx(node)));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ggp.solvers.cfr;
+
+import com.ggp.IGameDescription;
+import com.ggp.IInformationSet;
+import com.ggp.IStrategy;
+import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.solvers.cfr.regret_matching.RegretMatchingPlus;
+import com.ggp.utils.GameRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledCFRSolverTest {
+    private BaseCFRSolver solve(BaseCFRSolver.Factory factory, IGameDescription gameDesc, int iterations) {
+        BaseCFRSolver solver = factory.create(null);
+        IGameTraversalTracker tracker = SimpleTracker.createRoot(gameDesc.getInitialState());
+        for (int i = 0; i < iterations; ++i) {
+            solver.runIteration(tracker);
+        }
+        return solver;
+    }
+
+    @Test
+    void testMatchesDepthLimitedCFR_leduc() {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        BaseCFRSolver expected = solve(new DepthLimitedCFRSolver.Factory(new RegretMatchingPlus.Factory(), 0, null, true, 1), gameDesc, 10);
+        BaseCFRSolver compiled = solve(new CompiledCFRSolver.Factory(new RegretMatchingPlus.Factory(), true, 1), gameDesc, 10);
+
+        assertEquals(expected.getVisitedStates(), compiled.getVisitedStates());
+        assertEquals(expected.getTotalRegret(), compiled.getTotalRegret(), 1e-12);
+        IStrategy expectedStrat = expected.getCumulativeStrat(), compiledStrat = compiled.getCumulativeStrat();
+        for (IInformationSet is: expectedStrat.getDefinedInformationSets()) {
+            assertTrue(compiledStrat.isDefined(is));
+            for (int a = 0; a < is.getLegalActions().size(); ++a) {
+                assertEquals(expectedStrat.getInfoSetStrategy(is).getProbability(a), compiledStrat.getInfoSetStrategy(is).getProbability(a), 1e-12);
+            }
+        }
+    }
+}
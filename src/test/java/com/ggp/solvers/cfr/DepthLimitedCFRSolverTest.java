@@ -0,0 +1,111 @@
+package com.ggp.solvers.cfr;
+
+import com.ggp.IGameDescription;
+import com.ggp.IInformationSet;
+import com.ggp.IStrategy;
+import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.solvers.cfr.regret_matching.RegretMatching;
+import com.ggp.utils.GameRepository;
+import com.ggp.utils.exploitability.ExploitabilityUtils;
+import com.ggp.utils.strategy.NormalizingStrategyWrapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepthLimitedCFRSolverTest {
+    private BaseCFRSolver solve(IGameDescription gameDesc, int parallelism, int iterations) {
+        BaseCFRSolver solver = new DepthLimitedCFRSolver.Factory(new RegretMatching.Factory(), 0, null, true, 0, parallelism)
+                .create(null);
+        for (int i = 0; i < iterations; ++i) {
+            solver.runIteration(SimpleTracker.createRoot(gameDesc.getInitialState()));
+        }
+        return solver;
+    }
+
+    @Test
+    void testParallelMatchesSerial_leduc() {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        BaseCFRSolver serial = solve(gameDesc, 1, 20);
+        BaseCFRSolver parallel = solve(gameDesc, 4, 20);
+
+        assertEquals(serial.getVisitedStates(), parallel.getVisitedStates());
+        assertEquals(serial.getTotalRegret(), parallel.getTotalRegret(), 1e-9);
+        IStrategy serialStrat = serial.getCumulativeStrat(), parallelStrat = parallel.getCumulativeStrat();
+        int isCount = 0;
+        for (IInformationSet is: serialStrat.getDefinedInformationSets()) {
+            assertTrue(parallelStrat.isDefined(is));
+            for (int a = 0; a < is.getLegalActions().size(); ++a) {
+                assertEquals(serialStrat.getInfoSetStrategy(is).getProbability(a), parallelStrat.getInfoSetStrategy(is).getProbability(a), 1e-9);
+            }
+            isCount++;
+        }
+        assertTrue(isCount > 0);
+    }
+
+    @Test
+    void testSkipsRegretMatchingOfUnvisitedInfoSets_leduc() {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        DepthLimitedCFRSolver solver = (DepthLimitedCFRSolver) new DepthLimitedCFRSolver.Factory(new RegretMatching.Factory(), 0, null, true, 0)
+                .create(null);
+        IGameTraversalTracker root = SimpleTracker.createRoot(gameDesc.getInitialState());
+        solver.runIteration(root);
+        solver.runIteration(root);
+        assertEquals(0, solver.getSkippedRegretMatchings());
+
+        // continue only in the subgame after the first card is dealt, IS of the other subgames aren't touched
+        IGameTraversalTracker subgame = root.next(root.getCurrentState().getLegalActions().get(0));
+        solver.runIteration(subgame);
+        assertTrue(solver.getSkippedRegretMatchings() > 0);
+    }
+
+    @Test
+    void testRegretPruningSkipsSubtrees_leduc() {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        BaseCFRSolver full = new DepthLimitedCFRSolver.Factory(new RegretMatching.Factory(), 0, null, true, 0, 1, false)
+                .create(null);
+        BaseCFRSolver pruned = new DepthLimitedCFRSolver.Factory(new RegretMatching.Factory(), 0, null, true, 0, 1, true)
+                .create(null);
+        for (int i = 0; i < 200; ++i) {
+            full.runIteration(SimpleTracker.createRoot(gameDesc.getInitialState()));
+            pruned.runIteration(SimpleTracker.createRoot(gameDesc.getInitialState()));
+        }
+
+        assertTrue(pruned.getVisitedStates() < full.getVisitedStates());
+        double fullExp = ExploitabilityUtils.computeExploitability(new NormalizingStrategyWrapper(full.getCumulativeStrat()), gameDesc);
+        double prunedExp = ExploitabilityUtils.computeExploitability(new NormalizingStrategyWrapper(pruned.getCumulativeStrat()), gameDesc);
+        assertTrue(prunedExp < 1.5 * fullExp);
+    }
+
+    @Test
+    void testListenerOnlyNotifiedAboutObservedStates_leduc() {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        BaseCFRSolver solver = new DepthLimitedCFRSolver.Factory(new RegretMatching.Factory(), 0, null, true, 0).create(null);
+        int[] counts = new int[2];
+        solver.registerListener(new BaseCFRSolver.IListener() {
+            @Override
+            public void enteringState(IGameTraversalTracker tracker, BaseCFRSolver.Info info) {
+                counts[0]++;
+            }
+
+            @Override
+            public void leavingState(IGameTraversalTracker tracker, BaseCFRSolver.Info info, double p1Utility) {
+                assertEquals(1, tracker.getCurrentState().getActingPlayerId());
+                counts[1]++;
+            }
+
+            @Override
+            public boolean needsEnteringState() {
+                return false;
+            }
+
+            @Override
+            public boolean isObservedState(IGameTraversalTracker tracker) {
+                return !tracker.getCurrentState().isTerminal() && tracker.getCurrentState().getActingPlayerId() == 1;
+            }
+        });
+        solver.runIteration(SimpleTracker.createRoot(gameDesc.getInitialState()));
+        assertEquals(0, counts[0]);
+        assertTrue(counts[1] > 0);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ggp.solvers.cfr;
+
+import com.ggp.IGameDescription;
+import com.ggp.players.continual_resolving.trackers.IGameTraversalTracker;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.solvers.cfr.regret_matching.RegretMatchingPlus;
+import com.ggp.utils.GameRepository;
+import com.ggp.utils.exploitability.ExploitabilityUtils;
+import com.ggp.utils.strategy.NormalizingStrategyWrapper;
+import com.ggp.utils.strategy.Strategy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalSamplingMCCFRSolverTest {
+    @Test
+    void testReducesExploitability_leduc() {
+        IGameDescription gameDesc = GameRepository.leducPoker(3);
+        BaseCFRSolver solver = new ExternalSamplingMCCFRSolver.Factory(new RegretMatchingPlus.Factory(), 1).create(null);
+        IGameTraversalTracker tracker = SimpleTracker.createRoot(gameDesc.getInitialState());
+        for (int i = 0; i < 2000; ++i) {
+            solver.runIteration(tracker);
+        }
+        double uniformExp = ExploitabilityUtils.computeExploitability(new Strategy(), gameDesc);
+        double exp = ExploitabilityUtils.computeExploitability(new NormalizingStrategyWrapper(solver.getCumulativeStrat()), gameDesc);
+        assertTrue(exp < uniformExp / 4, "exploitability " + exp + " vs uniform " + uniformExp);
+    }
+}
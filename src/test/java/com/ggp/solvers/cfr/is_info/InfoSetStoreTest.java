@@ -0,0 +1,55 @@
+package com.ggp.solvers.cfr.is_info;
+
+import com.ggp.IAction;
+import com.ggp.IInformationSet;
+import com.ggp.solvers.cfr.regret_matching.RegretMatching;
+import com.ggp.solvers.cfr.utils.RandomNodeIS;
+import com.ggp.utils.GameRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InfoSetStoreTest {
+    private final List<IAction> actions = GameRepository.leducPoker(7).getInitialState().getLegalActions();
+
+    private InfoSetStore createStore(int isCount) {
+        InfoSetStore store = new InfoSetStore(new RegretMatching.Factory().create(), 2);
+        for (int i = 0; i < isCount; ++i) {
+            int id = store.getOrCreateId(new RandomNodeIS(i, actions));
+            store.addRegret(id, 0, i);
+            store.setBaseline(id, 2, 1, -i);
+        }
+        return store;
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        InfoSetStore store = createStore(3000);
+        InfoSetStore copy = store.copy();
+
+        for (int id = 0; id < 3000; id += 2) {
+            store.addRegret(id, 0, 1);
+            copy.setCumulativeStrat(id + 1, 0, 5);
+        }
+        IInformationSet newIs = new RandomNodeIS(-1, actions);
+        int newId = copy.getOrCreateId(newIs);
+        copy.addRegret(newId, 1, 7);
+
+        assertEquals(3000, store.size());
+        assertEquals(3001, copy.size());
+        assertEquals(-1, store.getId(newIs));
+        assertEquals(7, copy.getRegret(newId, 1));
+        for (int id = 0; id < 3000; ++id) {
+            assertEquals(id, store.getId(new RandomNodeIS(id, actions)));
+            assertEquals(id, copy.getId(new RandomNodeIS(id, actions)));
+            assertEquals(id + (id % 2 == 0 ? 1 : 0), store.getRegret(id, 0));
+            assertEquals(id, copy.getRegret(id, 0));
+            assertEquals((id % 2 == 1) ? 5 : 1d/actions.size(), copy.getCumulativeStrat(id, 0));
+            assertEquals(1d/actions.size(), store.getCumulativeStrat(id, 0));
+            assertEquals(-id, store.getBaseline(id, 2, 1));
+            assertEquals(-id, copy.getBaseline(id, 2, 1));
+        }
+    }
+}
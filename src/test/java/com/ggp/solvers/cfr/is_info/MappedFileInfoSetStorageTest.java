@@ -0,0 +1,60 @@
+package com.ggp.solvers.cfr.is_info;
+
+import com.ggp.IGameDescription;
+import com.ggp.IInformationSet;
+import com.ggp.IStrategy;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.solvers.cfr.BaseCFRSolver;
+import com.ggp.solvers.cfr.DepthLimitedCFRSolver;
+import com.ggp.solvers.cfr.regret_matching.RegretMatchingPlus;
+import com.ggp.utils.GameRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileInfoSetStorageTest {
+    private final String tmpDir = System.getProperty("java.io.tmpdir");
+
+    @Test
+    void testCopyIsIndependent() {
+        IInfoSetStorage storage = new MappedFileInfoSetStorage.Factory(tmpDir).create();
+        long size = (1 << 20) + 10;
+        storage.ensureCapacity(size);
+        storage.set(5, 1.5);
+        storage.set(size - 1, -2.5);
+        IInfoSetStorage copy = storage.copy();
+        storage.set(5, 3);
+
+        assertEquals(1.5, copy.get(5));
+        assertEquals(-2.5, copy.get(size - 1));
+        assertEquals(3, storage.get(5));
+
+        // closing releases only the closed storage
+        storage.close();
+        assertEquals(1.5, copy.get(5));
+        copy.close();
+    }
+
+    @Test
+    void testSolverMatchesHeapStorage_leduc() {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        BaseCFRSolver heap = new DepthLimitedCFRSolver.Factory(new RegretMatchingPlus.Factory(), 0, null, true, 1)
+                .create(null);
+        BaseCFRSolver mapped = new DepthLimitedCFRSolver.Factory(new RegretMatchingPlus.Factory(), 0, null, true, 1)
+                .setStorageFactory(new MappedFileInfoSetStorage.Factory(tmpDir))
+                .create(null);
+        for (int i = 0; i < 10; ++i) {
+            heap.runIteration(SimpleTracker.createRoot(gameDesc.getInitialState()));
+            mapped.runIteration(SimpleTracker.createRoot(gameDesc.getInitialState()));
+        }
+
+        assertEquals(heap.getTotalRegret(), mapped.getTotalRegret(), 1e-12);
+        IStrategy heapStrat = heap.getCumulativeStrat(), mappedStrat = mapped.getCumulativeStrat();
+        for (IInformationSet is: heapStrat.getDefinedInformationSets()) {
+            assertTrue(mappedStrat.isDefined(is));
+            for (int a = 0; a < is.getLegalActions().size(); ++a) {
+                assertEquals(heapStrat.getInfoSetStrategy(is).getProbability(a), mappedStrat.getInfoSetStrategy(is).getProbability(a), 1e-12);
+            }
+        }
+    }
+}
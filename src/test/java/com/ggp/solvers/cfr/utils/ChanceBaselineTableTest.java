@@ -0,0 +1,55 @@
+package com.ggp.solvers.cfr.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChanceBaselineTableTest {
+    @Test
+    void testValuesSurviveGrowthAndCopiesAreIndependent() {
+        ChanceBaselineTable table = new ChanceBaselineTable();
+        for (int i = 0; i < 1000; ++i) {
+            int id = table.getOrCreateId(ChanceBaselineTable.key(i, 1 + i % 5), 1 + i % 5);
+            assertEquals(i, id);
+            table.set(id, 1, i % 5, i);
+            table.set(id, 2, 0, -i);
+        }
+        ChanceBaselineTable copy = table.copy();
+        for (int i = 0; i < 1000; ++i) {
+            int id = table.getOrCreateId(ChanceBaselineTable.key(i, 1 + i % 5), 1 + i % 5);
+            assertEquals(i, id);
+            assertEquals(i, table.get(id, 1, i % 5));
+            assertEquals(-i, table.get(id, 2, 0));
+            table.set(id, 1, i % 5, 0);
+            assertEquals(i, copy.get(id, 1, i % 5));
+        }
+        assertEquals(1000, table.size());
+        assertThrows(IllegalStateException.class, () -> table.getOrCreateId(ChanceBaselineTable.key(1, 2), 1));
+    }
+
+    @Test
+    void testConcurrentUpdates() throws InterruptedException {
+        ChanceBaselineTable table = new ChanceBaselineTable();
+        table.enableConcurrentAccess();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; ++t) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; ++i) {
+                    int id = table.getOrCreateId(ChanceBaselineTable.key(i % 500, 2), 2);
+                    synchronized (table.getLock(id)) {
+                        table.set(id, 1, 0, table.get(id, 1, 0) + 1);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t: threads) t.join();
+        assertEquals(500, table.size());
+        for (int i = 0; i < 500; ++i) {
+            assertEquals(80, table.get(table.getOrCreateId(ChanceBaselineTable.key(i, 2), 2), 1, 0));
+        }
+    }
+}
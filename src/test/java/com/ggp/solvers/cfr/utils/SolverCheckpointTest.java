@@ -0,0 +1,92 @@
+package com.ggp.solvers.cfr.utils;
+
+import com.ggp.IGameDescription;
+import com.ggp.IInformationSet;
+import com.ggp.IStrategy;
+import com.ggp.players.continual_resolving.trackers.SimpleTracker;
+import com.ggp.solvers.cfr.BaseCFRSolver;
+import com.ggp.solvers.cfr.DepthLimitedCFRSolver;
+import com.ggp.solvers.cfr.VRMCCFRSolverFactory;
+import com.ggp.solvers.cfr.baselines.ExponentiallyDecayingAverageBaseline;
+import com.ggp.solvers.cfr.regret_matching.RegretMatchingPlus;
+import com.ggp.utils.GameRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverCheckpointTest {
+    private void runIterations(BaseCFRSolver solver, IGameDescription gameDesc, int iterations) {
+        for (int i = 0; i < iterations; ++i) {
+            solver.runIteration(SimpleTracker.createRoot(gameDesc.getInitialState()));
+        }
+    }
+
+    private void assertSameStrategy(BaseCFRSolver expected, BaseCFRSolver actual) {
+        IStrategy expectedStrat = expected.getCumulativeStrat(), actualStrat = actual.getCumulativeStrat();
+        int isCount = 0;
+        for (IInformationSet is: expectedStrat.getDefinedInformationSets()) {
+            assertTrue(actualStrat.isDefined(is));
+            for (int a = 0; a < is.getLegalActions().size(); ++a) {
+                assertEquals(expectedStrat.getInfoSetStrategy(is).getProbability(a), actualStrat.getInfoSetStrategy(is).getProbability(a), 1e-12);
+            }
+            isCount++;
+        }
+        assertTrue(isCount > 0);
+    }
+
+    @Test
+    void testResumedRunMatchesUninterrupted_leduc() throws IOException {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        BaseCFRSolver.Factory factory = new DepthLimitedCFRSolver.Factory(new RegretMatchingPlus.Factory(), 0, null, true, 1);
+        BaseCFRSolver uninterrupted = factory.create(null);
+        runIterations(uninterrupted, gameDesc, 5);
+
+        File file = File.createTempFile("solver", ".bin");
+        file.deleteOnExit();
+        SolverCheckpoint.write(file, factory.getConfigString(), uninterrupted, 5, 100);
+        BaseCFRSolver resumed = factory.create(null);
+        SolverCheckpoint checkpoint = SolverCheckpoint.read(file, factory.getConfigString(), resumed);
+        assertEquals(5, checkpoint.getIterations());
+        assertEquals(100, checkpoint.getTimeMs());
+
+        runIterations(uninterrupted, gameDesc, 5);
+        runIterations(resumed, gameDesc, 5);
+        assertEquals(uninterrupted.getVisitedStates(), resumed.getVisitedStates());
+        assertEquals(uninterrupted.getTotalRegret(), resumed.getTotalRegret(), 1e-12);
+        assertSameStrategy(uninterrupted, resumed);
+    }
+
+    @Test
+    void testRestoresBaselines_leduc() throws IOException {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        BaseCFRSolver.Factory factory = new VRMCCFRSolverFactory(new RegretMatchingPlus.Factory(), 0.6, 0, 0,
+                new ExponentiallyDecayingAverageBaseline.Factory(0.5));
+        BaseCFRSolver solver = factory.create(null);
+        runIterations(solver, gameDesc, 1000);
+
+        File file = File.createTempFile("solver", ".bin");
+        file.deleteOnExit();
+        SolverCheckpoint.write(file, factory.getConfigString(), solver, 1000, 0);
+        BaseCFRSolver restored = factory.create(null);
+        SolverCheckpoint.read(file, factory.getConfigString(), restored);
+        assertEquals(solver.getTotalRegret(), restored.getTotalRegret(), 1e-12);
+        assertSameStrategy(solver, restored);
+
+        File copyFile = File.createTempFile("solver", ".bin");
+        copyFile.deleteOnExit();
+        SolverCheckpoint.write(copyFile, factory.getConfigString(), restored, 1000, 0);
+        assertEquals(file.length(), copyFile.length());
+    }
+
+    @Test
+    void testRejectsDifferentSolver() throws IOException {
+        BaseCFRSolver.Factory factory = new DepthLimitedCFRSolver.Factory(new RegretMatchingPlus.Factory(), 0, null, true, 1);
+        File file = File.createTempFile("solver", ".bin");
+        file.deleteOnExit();
+        SolverCheckpoint.write(file, factory.getConfigString(), factory.create(null), 0, 0);
+        assertThrows(IOException.class, () -> SolverCheckpoint.read(file, "other", factory.create(null)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.ggp.utils.exploitability;
+
+import com.ggp.*;
+import com.ggp.utils.GameRepository;
+import com.ggp.utils.strategy.Strategy;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import sun.reflect.generics.reflectiveObjects.NotImplementedException;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExploitabilityEvaluatorTest {
+    private static IStrategy hashStrategy(int salt) {
+        return new IStrategy() {
+            @Override
+            public Iterable<IInformationSet> getDefinedInformationSets() {
+                throw new NotImplementedException();
+            }
+
+            @Override
+            public boolean isDefined(IInformationSet is) {
+                return true;
+            }
+
+            @Override
+            public IInfoSetStrategy getInfoSetStrategy(IInformationSet is) {
+                int size = is.getLegalActions().size();
+                double[] weights = new double[size];
+                double total = 0;
+                for (int i = 0; i < size; ++i) {
+                    weights[i] = 1 + (((is.hashCode() ^ salt) >>> (2*i)) & 3);
+                    total += weights[i];
+                }
+                final double norm = total;
+                return new IInfoSetStrategy() {
+                    @Override
+                    public double getProbability(int actionIdx) {
+                        return weights[actionIdx] / norm;
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+        };
+    }
+
+    private static void assertSameStrategy(Strategy expected, Strategy actual) {
+        assertEquals(expected.size(), actual.size());
+        for (IInformationSet is: expected.getDefinedInformationSets()) {
+            IInfoSetStrategy expectedIsStrat = expected.getInfoSetStrategy(is), actualIsStrat = actual.getInfoSetStrategy(is);
+            for (int a = 0; a < expectedIsStrat.size(); ++a) {
+                assertEquals(expectedIsStrat.getProbability(a), actualIsStrat.getProbability(a));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("games")
+    void testMatchesExploitabilityUtils(IGameDescription gameDesc) {
+        ExploitabilityEvaluator evaluator = new ExploitabilityEvaluator(gameDesc);
+        // the same evaluator is reused for different strategies
+        IStrategy[] strategies = new IStrategy[] {hashStrategy(0), new Strategy(), hashStrategy(0x5bd1e995)};
+        for (IStrategy strat: strategies) {
+            Strategy expectedBR = new Strategy(), actualBR = new Strategy();
+            double expected = ExploitabilityUtils.computeExploitability(strat, gameDesc, expectedBR);
+            double actual = evaluator.computeExploitability(strat, actualBR);
+            assertEquals(expected, actual, 1e-12 * Math.max(1, Math.abs(expected)));
+            assertSameStrategy(expectedBR, actualBR);
+        }
+    }
+
+    static Stream<IGameDescription> games() {
+        return Stream.of(GameRepository.leducPoker(7), GameRepository.leducPoker(3, 9, 2, 4), GameRepository.iiGoofspiel(4),
+                GameRepository.rps(5), GameRepository.latentTTT());
+    }
+}
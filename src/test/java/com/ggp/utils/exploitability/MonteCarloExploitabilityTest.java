@@ -0,0 +1,61 @@
+package com.ggp.utils.exploitability;
+
+import com.ggp.*;
+import com.ggp.utils.GameRepository;
+import com.ggp.utils.random.RandomSampler;
+import com.ggp.utils.strategy.Strategy;
+import org.junit.jupiter.api.Test;
+import sun.reflect.generics.reflectiveObjects.NotImplementedException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonteCarloExploitabilityTest {
+    @Test
+    void testRPS_singleAction() {
+        IStrategy singleAction = new IStrategy() {
+            @Override
+            public Iterable<IInformationSet> getDefinedInformationSets() {
+                throw new NotImplementedException();
+            }
+
+            @Override
+            public boolean isDefined(IInformationSet is) {
+                return true;
+            }
+
+            @Override
+            public IInfoSetStrategy getInfoSetStrategy(IInformationSet is) {
+                return new IInfoSetStrategy() {
+                    @Override
+                    public double getProbability(int actionIdx) {
+                        if (actionIdx == 0) return 1;
+                        return 0;
+                    }
+
+                    @Override
+                    public int size() {
+                        return 0;
+                    }
+                };
+            }
+        };
+        IGameDescription gameDesc = GameRepository.rps(5);
+        MonteCarloExploitability.Estimate estimate = new MonteCarloExploitability(gameDesc.getInitialState(), new RandomSampler(42))
+                .computeExploitability(singleAction, 100);
+        // responses of both players are found by trying each action once and the payoffs are deterministic
+        assertEquals(2d, estimate.getExploitability(), 1e-12);
+        assertEquals(0d, estimate.getConfidenceInterval(), 1e-12);
+        assertTrue(estimate.getSamples() > 0);
+    }
+
+    @Test
+    void testLeduc_uniform() {
+        IGameDescription gameDesc = GameRepository.leducPoker(7);
+        double exact = ExploitabilityUtils.computeExploitability(new Strategy(), gameDesc);
+        MonteCarloExploitability.Estimate estimate = new MonteCarloExploitability(gameDesc.getInitialState(), new RandomSampler(42))
+                .computeExploitability(new Strategy(), 1000);
+        assertTrue(estimate.getConfidenceInterval() > 0);
+        assertTrue(estimate.getLowerBound() <= exact);
+        assertTrue(estimate.getExploitability() > exact / 2);
+    }
+}
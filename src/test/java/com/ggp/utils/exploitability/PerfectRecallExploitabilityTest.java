@@ -2,6 +2,7 @@ package com.ggp.utils.exploitability;
 
 import com.ggp.*;
 import com.ggp.games.RockPaperScissors.GameDescription;
+import com.ggp.utils.GameRepository;
 import com.ggp.utils.exploitability.PerfectRecallExploitability;
 import com.ggp.utils.strategy.Strategy;
 import com.ggp.IInfoSetStrategy;
@@ -13,6 +14,7 @@ import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 import java.util.List;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -114,4 +116,63 @@ class PerfectRecallExploitabilityTest {
             }
         }));
     }
-}
\ No newline at end of file
+
+    private static IStrategy hashStrategy() {
+        // deterministic non-uniform strategy which is safe to use from multiple threads
+        return new IStrategy() {
+            @Override
+            public Iterable<IInformationSet> getDefinedInformationSets() {
+                throw new NotImplementedException();
+            }
+
+            @Override
+            public boolean isDefined(IInformationSet is) {
+                return true;
+            }
+
+            @Override
+            public IInfoSetStrategy getInfoSetStrategy(IInformationSet is) {
+                int size = is.getLegalActions().size();
+                double[] weights = new double[size];
+                double total = 0;
+                for (int i = 0; i < size; ++i) {
+                    weights[i] = 1 + ((is.hashCode() >>> (2*i)) & 3);
+                    total += weights[i];
+                }
+                final double norm = total;
+                return new IInfoSetStrategy() {
+                    @Override
+                    public double getProbability(int actionIdx) {
+                        return weights[actionIdx] / norm;
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("parallelGames")
+    void testParallelMatchesSerial(IGameDescription gameDesc) {
+        IStrategy strat = hashStrategy();
+        Strategy serialBR = new Strategy(), parallelBR = new Strategy();
+        double serialExp = ExploitabilityUtils.computeExploitability(strat, gameDesc, serialBR, 1);
+        double parallelExp = ExploitabilityUtils.computeExploitability(strat, gameDesc, parallelBR, 4);
+        assertEquals(serialExp, parallelExp, 1e-12 * Math.abs(serialExp));
+        assertEquals(serialBR.size(), parallelBR.size());
+        for (IInformationSet is: serialBR.getDefinedInformationSets()) {
+            IInfoSetStrategy serialIsStrat = serialBR.getInfoSetStrategy(is), parallelIsStrat = parallelBR.getInfoSetStrategy(is);
+            for (int a = 0; a < serialIsStrat.size(); ++a) {
+                assertEquals(serialIsStrat.getProbability(a), parallelIsStrat.getProbability(a));
+            }
+        }
+    }
+
+    static Stream<IGameDescription> parallelGames() {
+        return Stream.of(GameRepository.leducPoker(7), GameRepository.iiGoofspiel(4), GameRepository.rps(5));
+    }
+}
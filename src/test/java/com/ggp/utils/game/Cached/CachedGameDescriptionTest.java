@@ -0,0 +1,62 @@
+package com.ggp.utils.game.Cached;
+
+import com.ggp.IAction;
+import com.ggp.ICompleteInformationState;
+import com.ggp.IGameDescription;
+import com.ggp.utils.GameRepository;
+import com.ggp.utils.exploitability.ExploitabilityUtils;
+import com.ggp.utils.strategy.Strategy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedGameDescriptionTest {
+    private int countStates(ICompleteInformationState s) {
+        if (s.isTerminal()) return 1;
+        int ret = 1;
+        for (IAction a: s.getLegalActions()) {
+            ret += countStates(s.next(a));
+        }
+        return ret;
+    }
+
+    @Test
+    void testReusesChildren_leduc() {
+        CachedGameDescription gameDesc = new CachedGameDescription(GameRepository.leducPoker(3));
+        int states = countStates(gameDesc.getInitialState());
+        assertEquals(states - 1, gameDesc.getCachedStates());
+        ICompleteInformationState root = gameDesc.getInitialState();
+        IAction a = root.getLegalActions().get(0);
+        assertSame(root.next(a), root.next(a));
+        assertEquals(states, countStates(gameDesc.getInitialState()));
+    }
+
+    @Test
+    void testEvictionKeepsResults_leduc() {
+        IGameDescription orig = GameRepository.leducPoker(3);
+        CachedGameDescription gameDesc = new CachedGameDescription(orig, 100);
+        assertEquals(countStates(orig.getInitialState()), countStates(gameDesc.getInitialState()));
+        assertTrue(gameDesc.getCachedStates() <= 100);
+        assertEquals(ExploitabilityUtils.computeExploitability(new Strategy(), orig),
+                ExploitabilityUtils.computeExploitability(new Strategy(), gameDesc), 1e-9);
+    }
+
+    @Test
+    void testEvictionKeepsTopLevels_leduc() {
+        IGameDescription orig = GameRepository.leducPoker(7);
+        int states = countStates(orig.getInitialState());
+        CachedGameDescription gameDesc = new CachedGameDescription(orig, states / 10);
+        ICompleteInformationState root = gameDesc.getInitialState();
+        assertEquals(states, countStates(root));
+        assertTrue(gameDesc.getCachedStates() <= states / 10);
+        assertEquals(states, countStates(root));
+        for (IAction a: root.getLegalActions()) {
+            ICompleteInformationState child = root.next(a);
+            assertSame(child, root.next(a));
+            for (IAction b: child.getLegalActions()) {
+                assertSame(child.next(b), child.next(b));
+            }
+        }
+        assertTrue(gameDesc.getCachedStates() <= states / 10);
+    }
+}
@@ -0,0 +1,52 @@
+package com.ggp.utils.game.Interned;
+
+import com.ggp.IAction;
+import com.ggp.ICompleteInformationState;
+import com.ggp.IGameDescription;
+import com.ggp.IInformationSet;
+import com.ggp.utils.GameRepository;
+import com.ggp.utils.exploitability.ExploitabilityUtils;
+import com.ggp.utils.strategy.Strategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternedGameDescriptionTest {
+    private void collectInfoSets(ICompleteInformationState s, HashMap<IInformationSet, IInformationSet> infoSets) {
+        if (s.isTerminal()) return;
+        if (!s.isRandomNode()) {
+            IInformationSet is = s.getInfoSetForActingPlayer();
+            IInformationSet orig = ((InternedISWrapper) is).getOrigInfoSet();
+            IInformationSet known = infoSets.putIfAbsent(orig, is);
+            if (known != null) assertSame(known, is);
+        }
+        for (IAction a: s.getLegalActions()) {
+            collectInfoSets(s.next(a), infoSets);
+        }
+    }
+
+    @Test
+    void testEqualInfoSetsAreSameInstance_leduc() {
+        InternedGameDescription gameDesc = new InternedGameDescription(GameRepository.leducPoker(3));
+        HashMap<IInformationSet, IInformationSet> infoSets = new HashMap<>();
+        collectInfoSets(gameDesc.getInitialState(), infoSets);
+
+        HashSet<Integer> ids = new HashSet<>();
+        for (IInformationSet is: infoSets.values()) {
+            int id = ((InternedISWrapper) is).getId();
+            assertTrue(ids.add(id));
+            assertSame(is, gameDesc.getInterner().getInfoSet(id));
+        }
+        assertEquals(infoSets.size(), ids.size());
+    }
+
+    @Test
+    void testExploitabilityMatchesOriginal_leduc() {
+        IGameDescription orig = GameRepository.leducPoker(3);
+        assertEquals(ExploitabilityUtils.computeExploitability(new Strategy(), orig),
+                ExploitabilityUtils.computeExploitability(new Strategy(), new InternedGameDescription(orig)), 1e-9);
+    }
+}
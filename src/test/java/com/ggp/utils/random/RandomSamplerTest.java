@@ -0,0 +1,43 @@
+package com.ggp.utils.random;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomSamplerTest {
+    @Test
+    void testSeeded_reproducible() {
+        RandomSampler a = new RandomSampler(42), b = new RandomSampler(42);
+        double[] probs = new double[] {0.2, 0.5, 0.3};
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(a.selectIdx(probs, probs.length), b.selectIdx(probs, probs.length));
+            assertEquals(a.selectIdx(7), b.selectIdx(7));
+            assertEquals(a.choose(0.5), b.choose(0.5));
+        }
+    }
+
+    @Test
+    void testSeeded_selectIdx() {
+        RandomSampler sampler = new RandomSampler(42);
+        double[] probs = new double[] {0.25, 0, 0.75, 0.5};
+        int[] counts = new int[probs.length];
+        for (int i = 0; i < 10000; ++i) {
+            counts[sampler.selectIdx(probs, 3)]++;
+        }
+        assertEquals(0, counts[1]);
+        assertEquals(0, counts[3]);
+        assertEquals(2500, counts[0], 250);
+        assertEquals(7500, counts[2], 250);
+        assertEquals(-1, sampler.selectIdx(probs, 0));
+    }
+
+    @Test
+    void testSeeded_select() {
+        RandomSampler sampler = new RandomSampler(42);
+        RandomSampler.SampleResult<String> res = sampler.select(Arrays.asList("a", "b"), s -> s.equals("a") ? 0d : 1d);
+        assertEquals("b", res.getResult());
+        assertEquals(1d, res.getSampleProb());
+    }
+}